@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main Spring Boot application class for RideSync Solutions.
@@ -12,6 +13,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @SpringBootApplication(scanBasePackages = "com.ridesync")
 @EntityScan("com.ridesync.persistence.entity")
 @EnableJpaRepositories("com.ridesync.persistence.repository")
+@EnableScheduling
 public class RideSyncApplication {
     
     public static void main(String[] args) {
@@ -0,0 +1,103 @@
+package com.ridesync.api.config;
+
+import com.ridesync.core.dispatch.BatchDispatcher;
+import com.ridesync.core.dispatch.DispatchMetrics;
+import com.ridesync.core.pool.PoolMatcher;
+import com.ridesync.core.service.RideAllocator;
+import com.ridesync.core.service.SurgePricingService;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans backing driver allocation.
+ * Exposes the shared spatial index of available drivers, surge pricing,
+ * the pool matcher and, when ridesync.dispatch.mode=batched, the micro-batched dispatcher.
+ */
+@Configuration
+public class AllocationConfig {
+
+    @Bean
+    public DriverSpatialIndex driverSpatialIndex() {
+        return new DriverSpatialIndex();
+    }
+
+    /**
+     * The allocator's surge pricing, with supply read from the driver index
+     * and the surge table refreshed in the background.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public SurgePricingService surgePricingService(DriverSpatialIndex driverSpatialIndex,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${ridesync.surge.refresh-interval-ms:1000}") long refreshMillis) {
+        SurgePricingService surgePricingService = RideAllocator.getInstance().getSurgePricingService();
+        surgePricingService.setSupplySource(driverSpatialIndex::countInCell);
+
+        Gauge.builder("ridesync.surge.table.version", surgePricingService,
+                        service -> service.getSurgeTable().getVersion())
+                .register(meterRegistry);
+        Gauge.builder("ridesync.surge.table.compute.time", surgePricingService,
+                        service -> service.getSurgeTable().getComputeMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("ridesync.surge.table.cells", surgePricingService,
+                        service -> service.getSurgeTable().getMultipliers().size())
+                .register(meterRegistry);
+
+        surgePricingService.start(refreshMillis);
+        return surgePricingService;
+    }
+
+    @Bean
+    public PoolMatcher poolMatcher(MeterRegistry meterRegistry,
+                                   @Value("${ridesync.pool.max-detour-ratio:1.5}") double maxDetourRatio,
+                                   @Value("${ridesync.pool.search-radius-km:2.0}") double searchRadiusKm) {
+        PoolMatcher poolMatcher = new PoolMatcher(maxDetourRatio, searchRadiusKm);
+        Gauge.builder("ridesync.pool.open.routes", poolMatcher, PoolMatcher::getOpenRouteCount)
+                .register(meterRegistry);
+        return poolMatcher;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "ridesync.dispatch.mode", havingValue = "batched")
+    public BatchDispatcher batchDispatcher(DriverSpatialIndex driverSpatialIndex,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${ridesync.dispatch.batch-window-ms:300}") long windowMillis,
+                                           @Value("${ridesync.dispatch.max-batch-size:500}") int maxBatchSize,
+                                           @Value("${ridesync.dispatch.assign-timeout-ms:5000}") long assignTimeoutMillis) {
+        BatchDispatcher dispatcher = new BatchDispatcher(
+                RideAllocator.getInstance(), driverSpatialIndex, windowMillis, maxBatchSize, assignTimeoutMillis);
+        DispatchMetrics metrics = dispatcher.getMetrics();
+
+        Gauge.builder("ridesync.dispatch.window", dispatcher, BatchDispatcher::getWindowMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("ridesync.dispatch.pending", dispatcher, BatchDispatcher::getPendingCount)
+                .register(meterRegistry);
+        Gauge.builder("ridesync.dispatch.batch.size.last", metrics, DispatchMetrics::getLastBatchSize)
+                .register(meterRegistry);
+        Gauge.builder("ridesync.dispatch.batch.size.mean", metrics, DispatchMetrics::getAverageBatchSize)
+                .register(meterRegistry);
+        Gauge.builder("ridesync.dispatch.solver.time.last", metrics, DispatchMetrics::getLastSolveMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("ridesync.dispatch.solver.time.mean", metrics, DispatchMetrics::getAverageSolveMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("ridesync.dispatch.pickup.distance.mean", metrics, DispatchMetrics::getAveragePickupKm)
+                .baseUnit("kilometers")
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.dispatch.batches", metrics, DispatchMetrics::getBatchCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.dispatch.matched", metrics, DispatchMetrics::getMatchedRides)
+                .register(meterRegistry);
+
+        dispatcher.start();
+        return dispatcher;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ridesync.api.config;
+
+import com.ridesync.core.analytics.MinuteRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans backing ride activity time series.
+ */
+@Configuration
+public class AnalyticsConfig {
+
+    /**
+     * Per-minute ride activity, kept for ridesync.analytics.minute-retention-minutes.
+     */
+    @Bean
+    public MinuteRing minuteRing(@Value("${ridesync.analytics.minute-retention-minutes:180}") int minutes) {
+        return new MinuteRing(minutes);
+    }
+}
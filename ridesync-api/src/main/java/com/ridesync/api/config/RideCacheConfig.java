@@ -0,0 +1,44 @@
+package com.ridesync.api.config;
+
+import com.ridesync.api.dto.RideResponse;
+import com.ridesync.core.concurrent.BoundedCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache of ride status responses, with its hit, miss and eviction counts
+ * published as metrics.
+ */
+@Configuration
+public class RideCacheConfig {
+
+    @Bean
+    public BoundedCache<String, RideResponse> rideResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${ridesync.ride-cache.max-size:10000}") int maxSize,
+            @Value("${ridesync.ride-cache.ttl-ms:60000}") long ttlMillis) {
+        BoundedCache<String, RideResponse> cache = new BoundedCache<>(maxSize, ttlMillis);
+
+        FunctionCounter.builder("ridesync.ride.cache.gets", cache, BoundedCache::getHitCount)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.cache.gets", cache, BoundedCache::getMissCount)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.cache.evictions", cache, BoundedCache::getEvictionCount)
+                .tag("cause", "size")
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.cache.evictions", cache, BoundedCache::getExpirationCount)
+                .tag("cause", "expired")
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.cache.size", cache, BoundedCache::size)
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.cache.hit.ratio", cache, BoundedCache::getHitRatio)
+                .register(meterRegistry);
+        return cache;
+    }
+}
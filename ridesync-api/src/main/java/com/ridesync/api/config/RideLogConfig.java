@@ -0,0 +1,91 @@
+package com.ridesync.api.config;
+
+import com.ridesync.core.log.FsyncPolicy;
+import com.ridesync.core.log.LogFormat;
+import com.ridesync.core.log.LogOptions;
+import com.ridesync.core.service.RideLogger;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * The segmented ride event log, its group-commit writer and compaction metrics.
+ */
+@Configuration
+public class RideLogConfig {
+
+    @Bean(destroyMethod = "close")
+    public RideLogger rideLogger(MeterRegistry meterRegistry,
+                                 @Value("${ridesync.ride-log.directory:ride-logs}") String directory,
+                                 @Value("${ridesync.ride-log.format:BINARY}") LogFormat format,
+                                 @Value("${ridesync.ride-log.buffer-size:8192}") int bufferSize,
+                                 @Value("${ridesync.ride-log.fsync-policy:INTERVAL}") FsyncPolicy fsyncPolicy,
+                                 @Value("${ridesync.ride-log.fsync-interval-ms:1000}") long fsyncIntervalMillis,
+                                 @Value("${ridesync.ride-log.segment-size-mb:64}") int segmentSizeMb,
+                                 @Value("${ridesync.ride-log.roll-interval-ms:3600000}") long rollIntervalMillis,
+                                 @Value("${ridesync.ride-log.compress-sealed-segments:false}") boolean compress,
+                                 @Value("${ridesync.ride-log.compaction-interval-ms:900000}") long compactionIntervalMillis,
+                                 @Value("${ridesync.ride-log.compaction-memory-mb:16}") int compactionMemoryMb) {
+        LogOptions options = LogOptions.builder()
+                .format(format)
+                .bufferSize(bufferSize)
+                .fsyncPolicy(fsyncPolicy)
+                .fsyncIntervalMillis(fsyncIntervalMillis)
+                .segmentBytes(segmentSizeMb * 1024 * 1024)
+                .rollIntervalMillis(rollIntervalMillis)
+                .compressSealedSegments(compress)
+                .compactionIntervalMillis(compactionIntervalMillis)
+                .compactionMemoryBytes(compactionMemoryMb * 1024L * 1024L)
+                .build();
+        RideLogger rideLogger = new RideLogger(Paths.get(directory), options);
+
+        Gauge.builder("ridesync.ride.log.queue.depth", rideLogger, RideLogger::getQueueDepth)
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.log.batch.size.last", rideLogger,
+                        logger -> logger.getMetrics().getLastBatchSize())
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.log.batch.size.mean", rideLogger,
+                        logger -> logger.getMetrics().getAverageBatchSize())
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.log.flush.time.last", rideLogger,
+                        logger -> logger.getMetrics().getLastFlushMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.log.flush.time.mean", rideLogger,
+                        logger -> logger.getMetrics().getAverageFlushMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.records", rideLogger,
+                        logger -> logger.getMetrics().getRecordCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.records.failed", rideLogger,
+                        logger -> logger.getMetrics().getFailedRecordCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.fsyncs", rideLogger,
+                        logger -> logger.getMetrics().getFsyncCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.producer.waits", rideLogger,
+                        logger -> logger.getMetrics().getProducerWaits())
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.compactions", rideLogger,
+                        logger -> logger.getCompactionMetrics().getCompactionCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.compaction.bytes.reclaimed", rideLogger,
+                        logger -> logger.getCompactionMetrics().getBytesReclaimed())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("ridesync.ride.log.compaction.records.dropped", rideLogger,
+                        logger -> logger.getCompactionMetrics().getRecordsDropped())
+                .register(meterRegistry);
+        Gauge.builder("ridesync.ride.log.compaction.time.last", rideLogger,
+                        logger -> logger.getCompactionMetrics().getLastDurationMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return rideLogger;
+    }
+}
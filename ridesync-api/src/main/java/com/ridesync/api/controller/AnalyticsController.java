@@ -1,19 +1,31 @@
 package com.ridesync.api.controller;
 
 import com.ridesync.api.dto.AnalyticsResponse;
+import com.ridesync.api.dto.CursorPage;
+import com.ridesync.api.dto.TimeSeriesResponse;
 import com.ridesync.api.dto.TopDriverDTO;
 import com.ridesync.api.service.AnalyticsService;
+import com.ridesync.api.service.RideHistoryService;
+import com.ridesync.api.service.RideTimeSeriesService;
+import com.ridesync.core.analytics.LeaderboardWindow;
+import com.ridesync.core.analytics.TimeResolution;
 import com.ridesync.core.model.RideStatus;
 import com.ridesync.core.model.RideType;
 import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.query.RideFilter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * REST Controller for analytics and reporting.
@@ -26,6 +38,8 @@ import java.util.Map;
 public class AnalyticsController {
     
     private final AnalyticsService analyticsService;
+    private final RideTimeSeriesService timeSeriesService;
+    private final RideHistoryService rideHistoryService;
     
     @GetMapping("/dashboard")
     @Operation(summary = "Get dashboard analytics", 
@@ -48,20 +62,35 @@ public class AnalyticsController {
     
     @GetMapping("/rides")
     @Operation(summary = "Get filtered rides", 
-               description = "Filter rides by status and type using Streams")
-    public ResponseEntity<List<RideEntity>> getFilteredRides(
+               description = "Rides by status and type, filtered in the database, newest first, one page at a time")
+    public ResponseEntity<CursorPage<RideEntity>> getFilteredRides(
             @RequestParam(required = false) RideStatus status,
-            @RequestParam(required = false) RideType type) {
-        List<RideEntity> rides = analyticsService.getFilteredRides(status, type);
+            @RequestParam(required = false) RideType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<RideEntity> rides = rideHistoryService.getPage(
+                RideFilter.of(status, type), cursor, limit, Function.identity());
         return ResponseEntity.ok(rides);
     }
     
+    @GetMapping(value = "/rides/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream filtered rides", 
+               description = "Every ride matching status and type as newline-delimited JSON, newest first")
+    public ResponseEntity<StreamingResponseBody> streamFilteredRides(
+            @RequestParam(required = false) RideStatus status,
+            @RequestParam(required = false) RideType type) {
+        return RideController.ndjson(out -> rideHistoryService.stream(
+                RideFilter.of(status, type), out, Function.identity()));
+    }
+    
     @GetMapping("/top-drivers")
     @Operation(summary = "Get top drivers", 
-               description = "Top drivers by earnings with Stream sorting")
+               description = "Top drivers by earnings all time (ALL), today (DAY) or this week (WEEK), " +
+                             "read from an incrementally maintained leaderboard")
     public ResponseEntity<List<TopDriverDTO>> getTopDrivers(
-            @RequestParam(defaultValue = "10") int limit) {
-        List<TopDriverDTO> topDrivers = analyticsService.getTopDrivers(limit);
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "ALL") LeaderboardWindow window) {
+        List<TopDriverDTO> topDrivers = analyticsService.getTopDrivers(limit, window);
         return ResponseEntity.ok(topDrivers);
     }
     
@@ -72,4 +101,17 @@ public class AnalyticsController {
         Map<RideType, Double> avgFares = analyticsService.getAverageFareByType();
         return ResponseEntity.ok(avgFares);
     }
+    
+    @GetMapping("/timeseries")
+    @Operation(summary = "Get ride activity over time", 
+               description = "Rides requested, completed and cancelled, revenue and average surge per bucket " +
+                             "in [from, to). HOUR and DAY come from rollups; MINUTE covers the last few hours only")
+    public ResponseEntity<TimeSeriesResponse> getTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") TimeResolution resolution,
+            @RequestParam(required = false) RideType type) {
+        TimeSeriesResponse series = timeSeriesService.getTimeSeries(from, to, resolution, type);
+        return ResponseEntity.ok(series);
+    }
 }
@@ -1,8 +1,8 @@
 package com.ridesync.api.controller;
 
 import com.ridesync.api.dto.DriverRequest;
+import com.ridesync.api.dto.DriverResponse;
 import com.ridesync.api.service.DriverService;
-import com.ridesync.core.model.Driver;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -26,29 +26,29 @@ public class DriverController {
     
     @PostMapping
     @Operation(summary = "Register a new driver", description = "Register a driver with vehicle details")
-    public ResponseEntity<Driver> registerDriver(@Valid @RequestBody DriverRequest request) {
-        Driver driver = driverService.registerDriver(request);
+    public ResponseEntity<DriverResponse> registerDriver(@Valid @RequestBody DriverRequest request) {
+        DriverResponse driver = driverService.registerDriver(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(driver);
     }
     
     @GetMapping("/{driverId}")
     @Operation(summary = "Get driver by ID")
-    public ResponseEntity<Driver> getDriver(@PathVariable String driverId) {
-        Driver driver = driverService.getDriver(driverId);
+    public ResponseEntity<DriverResponse> getDriver(@PathVariable String driverId) {
+        DriverResponse driver = driverService.getDriver(driverId);
         return ResponseEntity.ok(driver);
     }
     
     @GetMapping
     @Operation(summary = "Get all drivers")
-    public ResponseEntity<List<Driver>> getAllDrivers() {
-        List<Driver> drivers = driverService.getAllDrivers();
+    public ResponseEntity<List<DriverResponse>> getAllDrivers() {
+        List<DriverResponse> drivers = driverService.getAllDrivers();
         return ResponseEntity.ok(drivers);
     }
     
     @GetMapping("/available")
     @Operation(summary = "Get available drivers")
-    public ResponseEntity<List<Driver>> getAvailableDrivers() {
-        List<Driver> drivers = driverService.getAvailableDrivers();
+    public ResponseEntity<List<DriverResponse>> getAvailableDrivers() {
+        List<DriverResponse> drivers = driverService.getAvailableDrivers();
         return ResponseEntity.ok(drivers);
     }
     
@@ -1,17 +1,20 @@
 package com.ridesync.api.controller;
 
 import com.ridesync.api.dto.BookRideRequest;
+import com.ridesync.api.dto.CursorPage;
 import com.ridesync.api.dto.RideResponse;
+import com.ridesync.api.service.RideHistoryService;
 import com.ridesync.api.service.RideService;
+import com.ridesync.persistence.query.RideFilter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST Controller for ride operations.
@@ -23,6 +26,7 @@ import java.util.List;
 public class RideController {
     
     private final RideService rideService;
+    private final RideHistoryService rideHistoryService;
     
     @PostMapping("/book")
     @Operation(summary = "Book a new ride", description = "Book a ride with automatic driver assignment")
@@ -53,16 +57,44 @@ public class RideController {
     }
     
     @GetMapping("/rider/{riderId}")
-    @Operation(summary = "Get rides for a rider")
-    public ResponseEntity<List<RideResponse>> getRiderRides(@PathVariable String riderId) {
-        List<RideResponse> rides = rideService.getRiderRides(riderId);
+    @Operation(summary = "Get rides for a rider", description = "Newest first, one page at a time")
+    public ResponseEntity<CursorPage<RideResponse>> getRiderRides(
+            @PathVariable String riderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<RideResponse> rides = rideHistoryService.getPage(
+                RideFilter.forRider(riderId), cursor, limit, RideHistoryService::toResponse);
         return ResponseEntity.ok(rides);
     }
     
+    @GetMapping(value = "/rider/{riderId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all rides for a rider", description = "Newline-delimited JSON, newest first")
+    public ResponseEntity<StreamingResponseBody> streamRiderRides(@PathVariable String riderId) {
+        return ndjson(out -> rideHistoryService.stream(
+                RideFilter.forRider(riderId), out, RideHistoryService::toResponse));
+    }
+    
     @GetMapping("/driver/{driverId}")
-    @Operation(summary = "Get rides for a driver")
-    public ResponseEntity<List<RideResponse>> getDriverRides(@PathVariable String driverId) {
-        List<RideResponse> rides = rideService.getDriverRides(driverId);
+    @Operation(summary = "Get rides for a driver", description = "Newest first, one page at a time")
+    public ResponseEntity<CursorPage<RideResponse>> getDriverRides(
+            @PathVariable String driverId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<RideResponse> rides = rideHistoryService.getPage(
+                RideFilter.forDriver(driverId), cursor, limit, RideHistoryService::toResponse);
         return ResponseEntity.ok(rides);
     }
+    
+    @GetMapping(value = "/driver/{driverId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all rides for a driver", description = "Newline-delimited JSON, newest first")
+    public ResponseEntity<StreamingResponseBody> streamDriverRides(@PathVariable String driverId) {
+        return ndjson(out -> rideHistoryService.stream(
+                RideFilter.forDriver(driverId), out, RideHistoryService::toResponse));
+    }
+    
+    static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
@@ -0,0 +1,57 @@
+package com.ridesync.api.controller;
+
+import com.ridesync.api.dto.SurgeGridResponse;
+import com.ridesync.core.service.SurgePricingService;
+import com.ridesync.core.spatial.GeoGrid;
+import com.ridesync.core.surge.SurgeTable;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * REST Controller for surge pricing.
+ */
+@RestController
+@RequestMapping("/api/surge")
+@RequiredArgsConstructor
+@Tag(name = "Surge", description = "Surge pricing grid APIs")
+public class SurgeController {
+    
+    private final SurgePricingService surgePricingService;
+    
+    @GetMapping("/grid")
+    @Operation(summary = "Get current surge grid", 
+               description = "Per-cell surge multipliers from the latest surge table, for map overlays")
+    public ResponseEntity<SurgeGridResponse> getSurgeGrid() {
+        SurgeTable table = surgePricingService.getSurgeTable();
+        GeoGrid grid = surgePricingService.getDemandTracker().getGrid();
+        
+        List<SurgeGridResponse.Cell> cells = table.getMultipliers().entrySet().stream()
+                .map(entry -> SurgeGridResponse.Cell.builder()
+                        .latitude(round(grid.centerLatitude(entry.getKey())))
+                        .longitude(round(grid.centerLongitude(entry.getKey())))
+                        .multiplier(entry.getValue())
+                        .build())
+                .sorted(Comparator.comparingDouble(SurgeGridResponse.Cell::getLatitude)
+                        .thenComparingDouble(SurgeGridResponse.Cell::getLongitude))
+                .toList();
+        
+        return ResponseEntity.ok(SurgeGridResponse.builder()
+                .version(table.getVersion())
+                .computedAt(table.getComputedAt())
+                .computeMillis(table.getComputeMillis())
+                .cellSizeDegrees(grid.getCellSizeDegrees())
+                .fallbackMultiplier(table.getFallbackMultiplier())
+                .cells(cells)
+                .build());
+    }
+    
+    private double round(double degrees) {
+        return Math.round(degrees * 1_000_000.0) / 1_000_000.0;
+    }
+}
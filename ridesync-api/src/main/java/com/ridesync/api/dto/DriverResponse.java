@@ -0,0 +1,45 @@
+package com.ridesync.api.dto;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.core.model.Location;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for driver information.
+ * A snapshot of the registry's driver, so serialization never reads a
+ * driver while a ride is being assigned to it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverResponse {
+    private String id;
+    private String name;
+    private String vehicle;
+    private String vehicleNumber;
+    private DriverStatus status;
+    private Location currentLocation;
+    private double totalEarnings;
+    private double rating;
+    private boolean available;
+
+    public static DriverResponse from(Driver driver) {
+        DriverStatus status = driver.getStatus();
+        return DriverResponse.builder()
+                .id(driver.getId())
+                .name(driver.getName())
+                .vehicle(driver.getVehicle())
+                .vehicleNumber(driver.getVehicleNumber())
+                .status(status)
+                .currentLocation(driver.getCurrentLocation())
+                .totalEarnings(driver.getTotalEarnings())
+                .rating(driver.getRating())
+                .available(status == DriverStatus.AVAILABLE)
+                .build();
+    }
+}
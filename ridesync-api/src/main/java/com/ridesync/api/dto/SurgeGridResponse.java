@@ -0,0 +1,38 @@
+package com.ridesync.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Response DTO for the current surge grid, for map overlays.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SurgeGridResponse {
+    private long version;
+    private Instant computedAt;
+    private long computeMillis;
+    private double cellSizeDegrees;
+    private double fallbackMultiplier;
+    private List<Cell> cells;
+
+    /**
+     * One grid cell, identified by its centre point.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cell {
+        private double latitude;
+        private double longitude;
+        private double multiplier;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ridesync.api.dto;
+
+import com.ridesync.core.analytics.TimeResolution;
+import com.ridesync.core.model.RideType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO for ride activity over time, one point per bucket.
+ * The ride type is left out when the series covers all types.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesResponse {
+    private TimeResolution resolution;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private RideType rideType;
+    private List<Point> points;
+
+    /**
+     * Activity within the bucket starting at bucketStart.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime bucketStart;
+        private long requested;
+        private long completed;
+        private long cancelled;
+        private double revenue;
+        private double averageSurge;
+    }
+}
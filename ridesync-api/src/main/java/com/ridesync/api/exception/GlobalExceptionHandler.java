@@ -1,5 +1,7 @@
 package com.ridesync.api.exception;
 
+import com.ridesync.core.exception.IllegalRideTransitionException;
+import com.ridesync.core.exception.InvalidQueryException;
 import com.ridesync.core.exception.InvalidRideRequestException;
 import com.ridesync.core.exception.NoDriverAvailableException;
 import com.ridesync.core.exception.RideNotFoundException;
@@ -56,6 +58,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    @ExceptionHandler(IllegalRideTransitionException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalRideTransition(IllegalRideTransitionException ex) {
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Invalid Ride Transition",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidQuery(InvalidQueryException ex) {
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Invalid Query",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
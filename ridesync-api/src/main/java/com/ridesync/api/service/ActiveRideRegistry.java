@@ -0,0 +1,158 @@
+package com.ridesync.api.service;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.Ride;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.persistence.mapper.EntityMapper;
+import com.ridesync.persistence.repository.RideRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store of rides in flight, keyed by ride ID.
+ * Holds the domain ride booked on this node together with its driver, so
+ * starting and completing a ride reads nothing from the database. Lifecycle
+ * changes are written back asynchronously in batches (write-behind), and
+ * rides leave the registry once completed or cancelled. Rides not held here,
+ * such as those booked on another API node, are loaded on first use.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ActiveRideRegistry {
+
+    private static final Set<RideStatus> ACTIVE_STATUSES =
+            EnumSet.of(RideStatus.REQUESTED, RideStatus.ASSIGNED, RideStatus.STARTED);
+
+    private final RideRepository rideRepository;
+    private final DriverRegistry driverRegistry;
+    private final ConcurrentHashMap<String, ActiveRide> rides = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Ride> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * A ride in flight and the driver assigned to it, if any.
+     */
+    public record ActiveRide(Ride ride, Driver driver) {
+    }
+
+    /**
+     * Load every ride still in flight from the database.
+     */
+    @PostConstruct
+    public void warm() {
+        rideRepository.findByStatusIn(ACTIVE_STATUSES).stream()
+                .map(EntityMapper::toDomain)
+                .forEach(ride -> rides.put(ride.getId(), activeRide(ride)));
+        log.info("Loaded {} active rides into registry", rides.size());
+    }
+
+    /**
+     * Track a ride just booked and saved.
+     */
+    public void register(Ride ride, Driver driver) {
+        rides.put(ride.getId(), new ActiveRide(ride, driver));
+    }
+
+    /**
+     * A ride held in the registry, without touching the database.
+     */
+    public Optional<ActiveRide> get(String rideId) {
+        return Optional.ofNullable(rides.get(rideId));
+    }
+
+    /**
+     * A ride from the registry, or else from the database. A ride loaded
+     * while still in flight is registered, so later transitions find it here.
+     */
+    public Optional<ActiveRide> find(String rideId) {
+        ActiveRide active = rides.get(rideId);
+        if (active != null) {
+            return Optional.of(active);
+        }
+        return rideRepository.findById(rideId)
+                .map(EntityMapper::toDomain)
+                .map(ride -> {
+                    ActiveRide loaded = activeRide(ride);
+                    if (!ACTIVE_STATUSES.contains(ride.getStatus())) {
+                        return loaded;
+                    }
+                    ActiveRide existing = rides.putIfAbsent(rideId, loaded);
+                    return existing != null ? existing : loaded;
+                });
+    }
+
+    /**
+     * Schedule a ride's current state to be written to the database, and
+     * stop tracking it once it has finished.
+     */
+    public void update(Ride ride) {
+        pendingWrites.put(ride.getId(), ride);
+        if (!ACTIVE_STATUSES.contains(ride.getStatus())) {
+            rides.remove(ride.getId());
+        }
+    }
+
+    /**
+     * Write status, fare and timestamps of all changed rides to the database.
+     * A ride changed again while being flushed is re-queued and picked up by
+     * the next run.
+     */
+    @Scheduled(fixedDelayString = "${ridesync.rides.write-behind-interval-ms:200}")
+    public void flush() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        List<Ride> batch = new ArrayList<>(pendingWrites.size());
+        for (Map.Entry<String, Ride> entry : pendingWrites.entrySet()) {
+            if (pendingWrites.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+
+        int flushed = 0;
+        try {
+            for (Ride ride : batch) {
+                rideRepository.updateLifecycle(ride.getId(), ride.getStatus(), ride.getFare(),
+                        ride.getStartedAt(), ride.getCompletedAt());
+                flushed++;
+            }
+            log.debug("Flushed {} rides to database", flushed);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} rides, will retry", batch.size() - flushed, e);
+            for (Ride ride : batch.subList(flushed, batch.size())) {
+                pendingWrites.putIfAbsent(ride.getId(), ride);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int getActiveCount() {
+        return rides.size();
+    }
+
+    public int getPendingWrites() {
+        return pendingWrites.size();
+    }
+
+    private ActiveRide activeRide(Ride ride) {
+        Driver driver = ride.getDriverId() != null ? driverRegistry.get(ride.getDriverId()).orElse(null) : null;
+        return new ActiveRide(ride, driver);
+    }
+}
@@ -2,24 +2,25 @@ package com.ridesync.api.service;
 
 import com.ridesync.api.dto.AnalyticsResponse;
 import com.ridesync.api.dto.TopDriverDTO;
+import com.ridesync.core.analytics.LeaderboardWindow;
 import com.ridesync.core.model.RideStatus;
 import com.ridesync.core.model.RideType;
-import com.ridesync.persistence.entity.DriverEntity;
-import com.ridesync.persistence.entity.RideEntity;
-import com.ridesync.persistence.repository.DriverRepository;
+import com.ridesync.persistence.projection.TypeAverageFare;
 import com.ridesync.persistence.repository.RideRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * Service for analytics and reporting using Java Streams.
- * Implements advanced stream operations for data analysis.
+ * Service for analytics and reporting.
+ * The dashboard is served from {@link RideAnalyticsAggregator}; other
+ * reports are aggregated by the database and returned as small projections.
  */
 @Service
 @Slf4j
@@ -27,152 +28,63 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
     
     private final RideRepository rideRepository;
-    private final DriverRepository driverRepository;
+    private final RideAnalyticsAggregator aggregator;
+    
+    private static final Set<RideStatus> ACTIVE_STATUSES =
+            EnumSet.of(RideStatus.REQUESTED, RideStatus.ASSIGNED, RideStatus.STARTED);
     
     /**
      * Get comprehensive dashboard analytics.
-     * Uses Java Streams for efficient data processing.
+     * Served from the incrementally maintained aggregates, so polling the
+     * dashboard costs the same however many rides there are.
      */
     public AnalyticsResponse getDashboardAnalytics() {
-        List<RideEntity> allRides = rideRepository.findAll();
-        
-        // Total rides count
-        long totalRides = allRides.size();
-        
-        // Completed rides count
-        long completedRides = allRides.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                .count();
-        
-        // Active rides (REQUESTED, ASSIGNED, STARTED)
-        long activeRides = allRides.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.REQUESTED ||
-                               ride.getStatus() == RideStatus.ASSIGNED ||
-                               ride.getStatus() == RideStatus.STARTED)
-                .count();
-        
-        // Total revenue from completed rides
-        double totalRevenue = allRides.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                .mapToDouble(RideEntity::getFare)
+        long activeRides = ACTIVE_STATUSES.stream()
+                .mapToLong(aggregator::getRideCount)
                 .sum();
         
-        // Average fare
-        double averageFare = allRides.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                .mapToDouble(RideEntity::getFare)
-                .average()
-                .orElse(0.0);
-        
-        // Average distance
-        double averageDistance = allRides.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                .mapToDouble(RideEntity::getDistance)
-                .average()
-                .orElse(0.0);
-        
-        // Group rides by type
-        Map<String, Long> ridesByType = allRides.stream()
-                .collect(Collectors.groupingBy(
-                    ride -> ride.getRideType().name(),
-                    Collectors.counting()
-                ));
-        
-        // Group rides by status
-        Map<String, Long> ridesByStatus = allRides.stream()
-                .collect(Collectors.groupingBy(
-                    ride -> ride.getStatus().name(),
-                    Collectors.counting()
-                ));
-        
-        // Get top 5 drivers by earnings
-        List<TopDriverDTO> topDrivers = getTopDrivers(5);
+        Map<String, Long> ridesByType = aggregator.getRidesByType().entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().name(), Map.Entry::getValue));
+        Map<String, Long> ridesByStatus = aggregator.getRidesByStatus().entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().name(), Map.Entry::getValue));
         
         return AnalyticsResponse.builder()
-                .totalRides(totalRides)
-                .completedRides(completedRides)
+                .totalRides(aggregator.getTotalRides())
+                .completedRides(aggregator.getCompletedRides())
                 .activeRides(activeRides)
-                .totalRevenue(Math.round(totalRevenue * 100.0) / 100.0)
-                .averageFare(Math.round(averageFare * 100.0) / 100.0)
-                .averageDistance(Math.round(averageDistance * 100.0) / 100.0)
+                .totalRevenue(round(aggregator.getCompletedRevenue()))
+                .averageFare(round(aggregator.getAverageFare()))
+                .averageDistance(round(aggregator.getAverageDistance()))
                 .ridesByType(ridesByType)
                 .ridesByStatus(ridesByStatus)
-                .topDrivers(topDrivers)
+                .topDrivers(aggregator.getTopDrivers(5))
                 .build();
     }
     
     /**
-     * Get driver earnings with stream-based calculation.
+     * Get driver earnings, summed in the database over the driver's completed rides.
      */
     public double getDriverEarnings(String driverId) {
-        List<RideEntity> driverRides = rideRepository.findByDriverId(driverId);
-        
-        return driverRides.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                .mapToDouble(RideEntity::getFare)
-                .sum();
+        Double earnings = rideRepository.calculateTotalEarnings(driverId);
+        return earnings == null ? 0.0 : earnings;
     }
     
     /**
-     * Get filtered rides by status and type.
+     * Get top drivers by earnings within a window, from the maintained leaderboards.
      */
-    public List<RideEntity> getFilteredRides(RideStatus status, RideType type) {
-        List<RideEntity> rides = rideRepository.findAll();
-        
-        return rides.stream()
-                .filter(ride -> (status == null || ride.getStatus() == status))
-                .filter(ride -> (type == null || ride.getRideType() == type))
-                .collect(Collectors.toList());
+    public List<TopDriverDTO> getTopDrivers(int limit, LeaderboardWindow window) {
+        return aggregator.getTopDrivers(limit, window);
     }
     
     /**
-     * Get top drivers by earnings.
+     * Get average fare of completed rides grouped by ride type.
      */
-    public List<TopDriverDTO> getTopDrivers(int limit) {
-        List<DriverEntity> drivers = driverRepository.findAll();
-        List<RideEntity> allRides = rideRepository.findAll();
-        
-        // Group rides by driver
-        Map<String, List<RideEntity>> ridesByDriver = allRides.stream()
-                .filter(ride -> ride.getDriverId() != null)
-                .collect(Collectors.groupingBy(RideEntity::getDriverId));
-        
-        return drivers.stream()
-                .map(driver -> {
-                    List<RideEntity> driverRides = ridesByDriver.getOrDefault(driver.getId(), List.of());
-                    
-                    double earnings = driverRides.stream()
-                            .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                            .mapToDouble(RideEntity::getFare)
-                            .sum();
-                    
-                    long completedCount = driverRides.stream()
-                            .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                            .count();
-                    
-                    return TopDriverDTO.builder()
-                            .driverId(driver.getId())
-                            .driverName(driver.getName())
-                            .totalEarnings(Math.round(earnings * 100.0) / 100.0)
-                            .completedRides(completedCount)
-                            .rating(driver.getRating())
-                            .build();
-                })
-                .sorted(Comparator.comparingDouble(TopDriverDTO::getTotalEarnings).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+    public Map<RideType, Double> getAverageFareByType() {
+        return rideRepository.averageFareByType().stream()
+                .collect(Collectors.toMap(TypeAverageFare::rideType, TypeAverageFare::averageFare));
     }
     
-    /**
-     * Get ride statistics grouped by ride type.
-     */
-    public Map<RideType, Double> getAverageFareByType() {
-        List<RideEntity> completedRides = rideRepository.findByStatus(RideStatus.COMPLETED);
-        
-        return completedRides.stream()
-                .collect(Collectors.groupingBy(
-                    RideEntity::getRideType,
-                    Collectors.averagingDouble(RideEntity::getFare)
-                ));
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
     }
 }
@@ -0,0 +1,36 @@
+package com.ridesync.api.service;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.service.DriverClaim;
+import com.ridesync.core.service.RideAllocator;
+import com.ridesync.persistence.repository.DriverRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Claims drivers with a conditional UPDATE on the drivers table, so that
+ * several API nodes sharing one database never assign the same driver twice.
+ * Installed into the {@link RideAllocator} at startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class DatabaseDriverClaim implements DriverClaim {
+
+    private final DriverRepository driverRepository;
+
+    @PostConstruct
+    public void install() {
+        RideAllocator.getInstance().setDriverClaim(this);
+    }
+
+    @Override
+    public boolean tryClaim(Driver driver) {
+        return driverRepository.claimAvailableDriver(driver.getId()) == 1;
+    }
+
+    @Override
+    public void release(Driver driver) {
+        driverRepository.releaseClaim(driver.getId());
+    }
+}
@@ -0,0 +1,208 @@
+package com.ridesync.api.service;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.core.model.Location;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import com.ridesync.persistence.entity.DriverEntity;
+import com.ridesync.persistence.mapper.EntityMapper;
+import com.ridesync.persistence.repository.DriverRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authoritative in-memory store of driver state.
+ * Warmed from the database at startup; afterwards status and location are
+ * read and changed here. Status changes go to the database synchronously so
+ * claims stay correct across API nodes; location and earnings are written
+ * back asynchronously in batches (write-behind). Earnings are written as the
+ * amount credited on this node since the last flush, never as a total.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DriverRegistry {
+
+    private final DriverRepository driverRepository;
+    private final DriverSpatialIndex driverIndex;
+    private final ConcurrentHashMap<String, Driver> drivers = new ConcurrentHashMap<>();
+    private final Set<String> dirtyDriverIds = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Double> unflushedEarnings = new ConcurrentHashMap<>();
+
+    /**
+     * Load every driver from the database and index the available ones.
+     */
+    @PostConstruct
+    public void warm() {
+        driverRepository.findAll().stream()
+                .map(EntityMapper::toDomain)
+                .forEach(driver -> {
+                    drivers.put(driver.getId(), driver);
+                    driverIndex.add(driver);
+                });
+        log.info("Loaded {} drivers ({} available) into registry", drivers.size(), driverIndex.size());
+    }
+
+    /**
+     * Add a new driver. New drivers are persisted immediately.
+     */
+    public void register(Driver driver) {
+        driverRepository.save(EntityMapper.toEntity(driver));
+        drivers.put(driver.getId(), driver);
+        driverIndex.add(driver);
+    }
+
+    public Optional<Driver> get(String driverId) {
+        return Optional.ofNullable(drivers.get(driverId));
+    }
+
+    public Collection<Driver> getAll() {
+        return drivers.values();
+    }
+
+    public List<Driver> getByStatus(DriverStatus status) {
+        return drivers.values().stream()
+                .filter(driver -> driver.getStatus() == status)
+                .toList();
+    }
+
+    /**
+     * Move a driver and keep the spatial index in step.
+     */
+    public void updateLocation(String driverId, Location location) {
+        Driver driver = get(driverId)
+                .orElseThrow(() -> new RuntimeException("Driver not found: " + driverId));
+        driver.setCurrentLocation(location);
+        driverIndex.updateLocation(driverId, location);
+        markDirty(driverId);
+    }
+
+    /**
+     * Return a driver to the pool of available drivers after a ride.
+     */
+    public void release(Driver driver) {
+        driverRepository.updateStatus(driver.getId(), DriverStatus.AVAILABLE);
+        driverIndex.add(driver);
+        markDirty(driver.getId());
+    }
+
+    /**
+     * Record a fare credited to a driver on this node, to be added to the
+     * driver's earnings in the database by the next flush.
+     */
+    public void creditEarnings(String driverId, double fare) {
+        unflushedEarnings.merge(driverId, fare, Double::sum);
+        markDirty(driverId);
+    }
+
+    /**
+     * Schedule a driver's current state to be written to the database.
+     */
+    public void markDirty(String driverId) {
+        dirtyDriverIds.add(driverId);
+    }
+
+    /**
+     * Write location and credited earnings of all dirty drivers to the database.
+     * Status is left alone, since it is owned by the conditional claim.
+     * A driver changed again while being flushed is simply re-marked and
+     * picked up by the next run.
+     */
+    @Scheduled(fixedDelayString = "${ridesync.drivers.write-behind-interval-ms:500}")
+    public synchronized void flush() {
+        if (dirtyDriverIds.isEmpty()) {
+            return;
+        }
+
+        List<String> batch = new ArrayList<>();
+        for (Iterator<String> it = dirtyDriverIds.iterator(); it.hasNext(); ) {
+            batch.add(it.next());
+            it.remove();
+        }
+
+        int flushed = 0;
+        try {
+            for (String driverId : batch) {
+                Driver driver = drivers.get(driverId);
+                if (driver != null) {
+                    DriverEntity entity = EntityMapper.toEntity(driver);
+                    Double earned = unflushedEarnings.remove(driverId);
+                    try {
+                        driverRepository.updateLocationAndAddEarnings(driverId,
+                                entity.getCurrentLatitude(), entity.getCurrentLongitude(),
+                                entity.getCurrentAddress(), earned != null ? earned : 0.0);
+                    } catch (RuntimeException e) {
+                        if (earned != null) {
+                            unflushedEarnings.merge(driverId, earned, Double::sum);
+                        }
+                        throw e;
+                    }
+                }
+                flushed++;
+            }
+            log.debug("Flushed {} drivers to database", flushed);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} drivers, will retry", batch.size() - flushed, e);
+            dirtyDriverIds.addAll(batch.subList(flushed, batch.size()));
+        }
+    }
+
+    /**
+     * Pick up changes made by other API nodes: drivers they made available
+     * or registered, fares they credited, and locations they received.
+     * Drivers that lost a claim stay BUSY here until the database says
+     * otherwise, and a location not yet flushed from this node is kept.
+     */
+    @Scheduled(fixedDelayString = "${ridesync.drivers.resync-interval-ms:10000}")
+    public synchronized void resync() {
+        int restored = 0;
+        for (DriverEntity entity : driverRepository.findAll()) {
+            Driver local = drivers.get(entity.getId());
+            if (local == null) {
+                local = EntityMapper.toDomain(entity);
+                drivers.put(local.getId(), local);
+                if (local.isAvailable()) {
+                    driverIndex.add(local);
+                    restored++;
+                }
+                continue;
+            }
+
+            local.setTotalEarnings(entity.getTotalEarnings() + unflushedEarnings.getOrDefault(local.getId(), 0.0));
+            if (!dirtyDriverIds.contains(local.getId())) {
+                Location location = EntityMapper.toDomain(entity).getCurrentLocation();
+                local.setCurrentLocation(location);
+                driverIndex.updateLocation(local.getId(), location);
+            }
+            if (entity.getStatus() == DriverStatus.AVAILABLE && local.getStatus() != DriverStatus.AVAILABLE) {
+                local.setStatus(DriverStatus.AVAILABLE);
+                driverIndex.add(local);
+                restored++;
+            }
+        }
+        if (restored > 0) {
+            log.info("Resynced {} available drivers from database", restored);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int getPendingWrites() {
+        return dirtyDriverIds.size();
+    }
+}
@@ -1,36 +1,33 @@
 package com.ridesync.api.service;
 
 import com.ridesync.api.dto.DriverRequest;
+import com.ridesync.api.dto.DriverResponse;
 import com.ridesync.core.model.Driver;
 import com.ridesync.core.model.DriverStatus;
 import com.ridesync.core.model.Location;
-import com.ridesync.persistence.entity.DriverEntity;
-import com.ridesync.persistence.mapper.EntityMapper;
-import com.ridesync.persistence.repository.DriverRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Service for driver management operations.
+ * Driver state is served from the in-memory {@link DriverRegistry}; callers
+ * get snapshots, never the registry's live drivers.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class DriverService {
     
-    private final DriverRepository driverRepository;
+    private final DriverRegistry driverRegistry;
     
     /**
      * Register a new driver.
      */
-    @Transactional
-    public Driver registerDriver(DriverRequest request) {
+    public DriverResponse registerDriver(DriverRequest request) {
         String driverId = "DRV-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         
         Driver driver = Driver.builder()
@@ -48,53 +45,49 @@ public class DriverService {
                 .rating(5.0)
                 .build();
         
-        DriverEntity entity = EntityMapper.toEntity(driver);
-        driverRepository.save(entity);
+        driverRegistry.register(driver);
         
         log.info("Registered new driver: {} with ID: {}", driver.getName(), driver.getId());
-        return driver;
+        return DriverResponse.from(driver);
     }
     
     /**
      * Get driver by ID.
      */
-    public Driver getDriver(String driverId) {
-        DriverEntity entity = driverRepository.findById(driverId)
+    public DriverResponse getDriver(String driverId) {
+        return driverRegistry.get(driverId)
+                .map(DriverResponse::from)
                 .orElseThrow(() -> new RuntimeException("Driver not found: " + driverId));
-        return EntityMapper.toDomain(entity);
     }
     
     /**
      * Get all drivers.
      */
-    public List<Driver> getAllDrivers() {
-        return driverRepository.findAll().stream()
-                .map(EntityMapper::toDomain)
-                .collect(Collectors.toList());
+    public List<DriverResponse> getAllDrivers() {
+        return driverRegistry.getAll().stream()
+                .map(DriverResponse::from)
+                .toList();
     }
     
     /**
      * Get available drivers.
      */
-    public List<Driver> getAvailableDrivers() {
-        return driverRepository.findByStatus(DriverStatus.AVAILABLE).stream()
-                .map(EntityMapper::toDomain)
-                .collect(Collectors.toList());
+    public List<DriverResponse> getAvailableDrivers() {
+        return driverRegistry.getByStatus(DriverStatus.AVAILABLE).stream()
+                .map(DriverResponse::from)
+                .toList();
     }
     
     /**
      * Update driver location.
+     * The database is updated asynchronously by the registry.
      */
-    @Transactional
     public void updateDriverLocation(String driverId, double latitude, double longitude, String address) {
-        DriverEntity entity = driverRepository.findById(driverId)
-                .orElseThrow(() -> new RuntimeException("Driver not found: " + driverId));
-        
-        entity.setCurrentLatitude(latitude);
-        entity.setCurrentLongitude(longitude);
-        entity.setCurrentAddress(address);
-        
-        driverRepository.save(entity);
+        driverRegistry.updateLocation(driverId, Location.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .address(address)
+                .build());
         log.info("Updated location for driver: {}", driverId);
     }
 }
@@ -0,0 +1,345 @@
+package com.ridesync.api.service;
+
+import com.ridesync.api.dto.TopDriverDTO;
+import com.ridesync.core.analytics.Leaderboard;
+import com.ridesync.core.analytics.LeaderboardWindow;
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import com.ridesync.persistence.projection.CompletedRideTotals;
+import com.ridesync.persistence.projection.DriverEarnings;
+import com.ridesync.persistence.projection.StatusCount;
+import com.ridesync.persistence.projection.TypeCount;
+import com.ridesync.persistence.repository.RideRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard aggregates kept up to date as rides move through their lifecycle,
+ * so reading them never touches the database.
+ *
+ * {@link RideService} reports every transition; counters are lock-free adders,
+ * so concurrent bookings do not contend. Driver earnings are ranked in
+ * {@link Leaderboard}s, all time and for the current day and week, so the
+ * top drivers are read without sorting the fleet. A periodic reconciliation compares
+ * every aggregate with the database and adds the difference, correcting
+ * drift from failed transactions or changes made by other API nodes. It
+ * also loads the initial state at startup.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RideAnalyticsAggregator {
+
+    private final RideRepository rideRepository;
+    private final DriverRegistry driverRegistry;
+    private final LongAdder[] ridesByStatus = adders(RideStatus.values().length);
+    private final LongAdder[] ridesByType = adders(RideType.values().length);
+    private final LongAdder completedRides = new LongAdder();
+    private final DoubleAdder completedRevenue = new DoubleAdder();
+    private final DoubleAdder completedDistance = new DoubleAdder();
+    private final Leaderboard allTime = new Leaderboard();
+    private final Map<LeaderboardWindow, AtomicReference<WindowBoard>> windows = windowBoards();
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong driftCorrections = new AtomicLong();
+
+    /**
+     * Leaderboard of the day or week starting at start.
+     */
+    private record WindowBoard(LocalDateTime start, Leaderboard board) {
+    }
+
+    /**
+     * A new ride was saved.
+     */
+    public void onBooked(RideType rideType, RideStatus status) {
+        ridesByType[rideType.ordinal()].increment();
+        ridesByStatus[status.ordinal()].increment();
+    }
+
+    /**
+     * A ride moved from one status to another.
+     */
+    public void onTransition(RideStatus from, RideStatus to) {
+        if (from != to) {
+            ridesByStatus[from.ordinal()].decrement();
+            ridesByStatus[to.ordinal()].increment();
+        }
+    }
+
+    /**
+     * A ride was completed; its fare counts towards revenue and its driver's earnings.
+     */
+    public void onCompleted(RideStatus from, String driverId, double fare, double distance) {
+        onTransition(from, RideStatus.COMPLETED);
+        completedRides.increment();
+        completedRevenue.add(fare);
+        completedDistance.add(distance);
+        if (driverId != null) {
+            allTime.add(driverId, fare, 1);
+            LocalDateTime now = LocalDateTime.now();
+            for (LeaderboardWindow window : windows.keySet()) {
+                currentBoard(window, now).add(driverId, fare, 1);
+            }
+        }
+    }
+
+    /**
+     * A ride was cancelled.
+     */
+    public void onCancelled(RideStatus from) {
+        onTransition(from, RideStatus.CANCELLED);
+    }
+
+    public long getTotalRides() {
+        long total = 0;
+        for (LongAdder count : ridesByType) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public long getRideCount(RideStatus status) {
+        return ridesByStatus[status.ordinal()].sum();
+    }
+
+    /**
+     * Rides per status, leaving out statuses no ride has.
+     */
+    public Map<RideStatus, Long> getRidesByStatus() {
+        return nonZero(ridesByStatus, RideStatus.values(), RideStatus.class);
+    }
+
+    /**
+     * Rides per type, leaving out types no ride has.
+     */
+    public Map<RideType, Long> getRidesByType() {
+        return nonZero(ridesByType, RideType.values(), RideType.class);
+    }
+
+    public long getCompletedRides() {
+        return completedRides.sum();
+    }
+
+    public double getCompletedRevenue() {
+        return completedRevenue.sum();
+    }
+
+    public double getAverageFare() {
+        long count = completedRides.sum();
+        return count == 0 ? 0.0 : completedRevenue.sum() / count;
+    }
+
+    public double getAverageDistance() {
+        long count = completedRides.sum();
+        return count == 0 ? 0.0 : completedDistance.sum() / count;
+    }
+
+    /**
+     * Drivers ranked by all-time earnings, highest first, including drivers
+     * without completed rides.
+     */
+    public List<TopDriverDTO> getTopDrivers(int limit) {
+        return getTopDrivers(limit, LeaderboardWindow.ALL);
+    }
+
+    /**
+     * Drivers ranked by earnings within a window, highest first. Day and week
+     * rankings only list drivers who completed a ride in that window.
+     * Costs O(limit + log D), independent of fleet size and ride count.
+     */
+    public List<TopDriverDTO> getTopDrivers(int limit, LeaderboardWindow window) {
+        Leaderboard board = window == LeaderboardWindow.ALL ? allTime : currentBoard(window, LocalDateTime.now());
+        return board.top(limit).stream()
+                .map(this::toTopDriver)
+                .toList();
+    }
+
+    public long getReconciliationCount() {
+        return reconciliations.get();
+    }
+
+    /**
+     * Aggregates found out of step with the database and corrected, over all reconciliations.
+     */
+    public long getDriftCorrections() {
+        return driftCorrections.get();
+    }
+
+    /**
+     * Bring every aggregate in line with the database.
+     * Adds the difference instead of resetting, so transitions recorded
+     * while the queries run are only missed if they land between a query
+     * and its correction; the next pass picks those up.
+     */
+    @Scheduled(fixedDelayString = "${ridesync.analytics.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            int corrected = 0;
+
+            Map<RideStatus, Long> statusCounts = new EnumMap<>(RideStatus.class);
+            for (StatusCount count : rideRepository.countRidesByStatus()) {
+                statusCounts.put(count.status(), count.count());
+            }
+            for (RideStatus status : RideStatus.values()) {
+                corrected += correct(ridesByStatus[status.ordinal()], statusCounts.getOrDefault(status, 0L));
+            }
+
+            Map<RideType, Long> typeCounts = new EnumMap<>(RideType.class);
+            for (TypeCount count : rideRepository.countRidesByType()) {
+                typeCounts.put(count.rideType(), count.count());
+            }
+            for (RideType rideType : RideType.values()) {
+                corrected += correct(ridesByType[rideType.ordinal()], typeCounts.getOrDefault(rideType, 0L));
+            }
+
+            CompletedRideTotals completed = rideRepository.summarizeCompletedRides();
+            corrected += correct(completedRides, completed.count());
+            corrected += correct(completedRevenue, completed.revenue());
+            corrected += correct(completedDistance, completed.averageDistance() * completed.count());
+
+            corrected += correct(allTime, rideRepository.findTopDriversByEarnings(Pageable.unpaged()), false);
+            LocalDateTime now = LocalDateTime.now();
+            for (LeaderboardWindow window : windows.keySet()) {
+                WindowBoard current = currentWindow(window, now);
+                corrected += correct(current.board(),
+                        rideRepository.findDriverEarningsSince(current.start()), true);
+            }
+
+            reconciliations.incrementAndGet();
+            if (corrected > 0) {
+                driftCorrections.addAndGet(corrected);
+                log.info("Reconciled ride analytics with database, corrected {} aggregates", corrected);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile ride analytics, will retry", e);
+        }
+    }
+
+    private Leaderboard currentBoard(LeaderboardWindow window, LocalDateTime now) {
+        return currentWindow(window, now).board();
+    }
+
+    /**
+     * The board of the window containing now, starting a new one when the day or week has turned.
+     */
+    private WindowBoard currentWindow(LeaderboardWindow window, LocalDateTime now) {
+        AtomicReference<WindowBoard> ref = windows.get(window);
+        LocalDateTime start = window.start(now);
+        while (true) {
+            WindowBoard current = ref.get();
+            if (current != null && !current.start().isBefore(start)) {
+                return current;
+            }
+            WindowBoard fresh = new WindowBoard(start, new Leaderboard());
+            if (ref.compareAndSet(current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private TopDriverDTO toTopDriver(Leaderboard.Entry entry) {
+        Optional<Driver> driver = driverRegistry.get(entry.driverId());
+        return TopDriverDTO.builder()
+                .driverId(entry.driverId())
+                .driverName(driver.map(Driver::getName).orElse(null))
+                .totalEarnings(Math.round(entry.earnings() * 100.0) / 100.0)
+                .completedRides(entry.completedRides())
+                .rating(driver.map(Driver::getRating).orElse(0.0))
+                .build();
+    }
+
+    /**
+     * Add the difference between each driver's ranked totals and the database.
+     * Drivers missing from the database results are reset to zero, or dropped
+     * from windowed boards, which only list drivers with completed rides.
+     */
+    private static int correct(Leaderboard board, List<DriverEarnings> expected, boolean dropMissing) {
+        int corrected = 0;
+        Map<String, DriverEarnings> earnings = new HashMap<>();
+        for (DriverEarnings driver : expected) {
+            earnings.put(driver.driverId(), driver);
+        }
+        for (Leaderboard.Entry entry : List.copyOf(board.entries())) {
+            if (!earnings.containsKey(entry.driverId())) {
+                if (dropMissing) {
+                    board.remove(entry.driverId());
+                    corrected++;
+                } else if (entry.completedRides() != 0 || entry.earnings() != 0.0) {
+                    board.add(entry.driverId(), -entry.earnings(), -entry.completedRides());
+                    corrected++;
+                }
+            }
+        }
+        for (DriverEarnings driver : expected) {
+            Optional<Leaderboard.Entry> entry = board.get(driver.driverId());
+            double earningsDrift = driver.totalEarnings() - entry.map(Leaderboard.Entry::earnings).orElse(0.0);
+            long ridesDrift = driver.completedRides() - entry.map(Leaderboard.Entry::completedRides).orElse(0L);
+            // Sums of fares are not exact; only fix differences worth a paisa
+            if (entry.isEmpty() || ridesDrift != 0 || Math.abs(earningsDrift) >= 0.005) {
+                board.add(driver.driverId(), earningsDrift, ridesDrift);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    private static int correct(LongAdder adder, long expected) {
+        long drift = expected - adder.sum();
+        if (drift == 0) {
+            return 0;
+        }
+        adder.add(drift);
+        return 1;
+    }
+
+    private static int correct(DoubleAdder adder, double expected) {
+        double drift = expected - adder.sum();
+        // Sums of fares are not exact; only fix differences worth a paisa
+        if (Math.abs(drift) < 0.005) {
+            return 0;
+        }
+        adder.add(drift);
+        return 1;
+    }
+
+    private static Map<LeaderboardWindow, AtomicReference<WindowBoard>> windowBoards() {
+        Map<LeaderboardWindow, AtomicReference<WindowBoard>> boards = new EnumMap<>(LeaderboardWindow.class);
+        boards.put(LeaderboardWindow.DAY, new AtomicReference<>());
+        boards.put(LeaderboardWindow.WEEK, new AtomicReference<>());
+        return boards;
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> nonZero(LongAdder[] counts, E[] values, Class<E> type) {
+        Map<E, Long> result = new EnumMap<>(type);
+        for (E value : values) {
+            long count = counts[value.ordinal()].sum();
+            if (count != 0) {
+                result.put(value, count);
+            }
+        }
+        return result;
+    }
+}
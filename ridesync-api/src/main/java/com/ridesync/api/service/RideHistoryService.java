@@ -0,0 +1,92 @@
+package com.ridesync.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridesync.api.dto.CursorPage;
+import com.ridesync.api.dto.RideResponse;
+import com.ridesync.core.exception.InvalidQueryException;
+import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.query.RideCursor;
+import com.ridesync.persistence.query.RideFilter;
+import com.ridesync.persistence.repository.RideRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Ride history listings, newest first.
+ * Pages are bounded by a limit and continued with a cursor; the streaming
+ * variant writes every matching ride as newline-delimited JSON while it
+ * is read, so neither holds more than a page or a fetch batch in memory.
+ */
+@Service
+@RequiredArgsConstructor
+public class RideHistoryService {
+
+    static final int MAX_PAGE_SIZE = 500;
+    private static final int FETCH_SIZE = 500;
+
+    private final RideRepository rideRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * One page of rides matching the filter.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param mapper Converts each ride into the listed item
+     */
+    public <T> CursorPage<T> getPage(RideFilter filter, String cursor, int limit, Function<RideEntity, T> mapper) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidQueryException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        RideCursor after = cursor == null || cursor.isBlank() ? null : RideCursor.decode(cursor);
+
+        // One extra row tells whether another page follows
+        List<RideEntity> rides = rideRepository.findHistoryPage(filter, after, limit + 1);
+        boolean more = rides.size() > limit;
+        if (more) {
+            rides = rides.subList(0, limit);
+        }
+        return CursorPage.<T>builder()
+                .items(rides.stream().map(mapper).toList())
+                .nextCursor(more ? RideCursor.after(rides.get(limit - 1)).encode() : null)
+                .build();
+    }
+
+    /**
+     * Write every ride matching the filter to out, one JSON document per line.
+     */
+    @Transactional(readOnly = true)
+    public void stream(RideFilter filter, OutputStream out, Function<RideEntity, ?> mapper) throws IOException {
+        try (Stream<RideEntity> rides = rideRepository.streamHistory(filter, FETCH_SIZE)) {
+            Iterator<RideEntity> iterator = rides.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(mapper.apply(iterator.next())));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    public static RideResponse toResponse(RideEntity entity) {
+        return RideResponse.builder()
+                .rideId(entity.getId())
+                .riderId(entity.getRiderId())
+                .driverId(entity.getDriverId())
+                .rideType(entity.getRideType())
+                .status(entity.getStatus())
+                .distance(entity.getDistance())
+                .actualFare(entity.getFare())
+                .surgeMultiplier(entity.getSurgeMultiplier())
+                .requestedAt(entity.getRequestedAt())
+                .startedAt(entity.getStartedAt())
+                .completedAt(entity.getCompletedAt())
+                .build();
+    }
+}
@@ -2,26 +2,34 @@ package com.ridesync.api.service;
 
 import com.ridesync.api.dto.BookRideRequest;
 import com.ridesync.api.dto.RideResponse;
+import com.ridesync.core.concurrent.BoundedCache;
+import com.ridesync.core.dispatch.BatchDispatcher;
 import com.ridesync.core.exception.InvalidRideRequestException;
 import com.ridesync.core.exception.NoDriverAvailableException;
 import com.ridesync.core.exception.RideNotFoundException;
 import com.ridesync.core.factory.RideFactory;
 import com.ridesync.core.model.*;
+import com.ridesync.core.pool.PoolMatcher;
+import com.ridesync.core.pool.SharedRoute;
 import com.ridesync.core.service.RideAllocator;
 import com.ridesync.core.service.RideLogger;
-import com.ridesync.persistence.entity.DriverEntity;
+import com.ridesync.core.spatial.DriverSpatialIndex;
 import com.ridesync.persistence.entity.RideEntity;
 import com.ridesync.persistence.mapper.EntityMapper;
-import com.ridesync.persistence.repository.DriverRepository;
+import com.ridesync.persistence.projection.RideDetails;
 import com.ridesync.persistence.repository.RideRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service layer for ride management operations.
@@ -33,10 +41,17 @@ import java.util.stream.Collectors;
 public class RideService {
     
     private final RideRepository rideRepository;
-    private final DriverRepository driverRepository;
+    private final DriverSpatialIndex driverIndex;
+    private final DriverRegistry driverRegistry;
+    private final PoolMatcher poolMatcher;
     private final RideAllocator rideAllocator = RideAllocator.getInstance();
-    private final RideLogger rideLogger = new RideLogger();
+    private final RideLogger rideLogger;
     private final SimpMessagingTemplate messagingTemplate;
+    private final Optional<BatchDispatcher> batchDispatcher;
+    private final RideAnalyticsAggregator analytics;
+    private final RideTimeSeriesService timeSeries;
+    private final BoundedCache<String, RideResponse> rideCache;
+    private final ActiveRideRegistry activeRides;
     
     /**
      * Book a new ride with automatic driver assignment.
@@ -68,29 +83,65 @@ public class RideService {
             endLocation
         );
         
-        // Get available drivers
-        List<DriverEntity> driverEntities = driverRepository.findByStatus(DriverStatus.AVAILABLE);
-        List<Driver> availableDrivers = driverEntities.stream()
-                .map(EntityMapper::toDomain)
-                .collect(Collectors.toList());
+        // Every request counts towards demand in its area, served or not
+        rideAllocator.getSurgePricingService().recordRequest(startLocation);
         
-        // Assign driver using singleton allocator
+        // Pool riders share a nearby driver's route when the detour allows it
+        Optional<SharedRoute> sharedRoute = ride instanceof PoolRide poolRide
+                ? poolMatcher.tryJoin(poolRide) : Optional.empty();
+        
+        // Otherwise assign nearest indexed driver, or wait for the next batch in batched mode
         Driver assignedDriver;
-        try {
-            assignedDriver = rideAllocator.assignDriver(ride, availableDrivers);
-        } catch (NoDriverAvailableException e) {
-            log.error("No driver available", e);
-            throw e;
+        if (sharedRoute.isPresent()) {
+            assignedDriver = driverRegistry.get(ride.getDriverId())
+                    .orElseThrow(() -> new IllegalStateException("Driver not found"));
+        } else {
+            try {
+                assignedDriver = assignDriver(ride);
+            } catch (NoDriverAvailableException e) {
+                log.error("No driver available", e);
+                throw e;
+            }
+            
+            // Driver row is updated asynchronously by the registry
+            driverRegistry.markDirty(assignedDriver.getId());
         }
         
-        // Update driver in database
-        DriverEntity driverEntity = EntityMapper.toEntity(assignedDriver);
-        driverRepository.save(driverEntity);
+        // A booking that does not commit hands its seat, and a driver it claimed, back;
+        // riders it pooled with lose its discount again
+        onRollback(() -> {
+            if (poolMatcher.withdraw(ride.getId())) {
+                rideAllocator.releaseDriver(assignedDriver, driverIndex);
+            }
+            sharedRoute.ifPresent(route -> route.getRides()
+                    .forEach(member -> rideCache.invalidate(member.getId())));
+        });
         
         // Save ride to database
         RideEntity rideEntity = EntityMapper.toEntity(ride);
         rideRepository.save(rideEntity);
         
+        if (sharedRoute.isPresent()) {
+            // Riders already on board now get the pool discount as well
+            sharedRoute.get().getRides().stream()
+                    .filter(member -> !member.getId().equals(ride.getId()))
+                    .forEach(member -> {
+                        rideRepository.save(EntityMapper.toEntity(member));
+                        rideCache.invalidate(member.getId());
+                    });
+        } else if (ride instanceof PoolRide poolRide) {
+            poolMatcher.open(poolRide);
+        }
+        RideResponse booked = toResponse(ride, assignedDriver);
+        RideStatus bookedStatus = ride.getStatus();
+        afterCommit(() -> {
+            activeRides.register(ride, assignedDriver);
+            rideCache.put(ride.getId(), booked);
+            // Only bookings that commit count towards analytics
+            analytics.onBooked(ride.getRideType(), bookedStatus);
+            timeSeries.recordRequested(ride.getRideType(), ride.getSurgeMultiplier());
+        });
+        
         // Log to file
         rideLogger.logRide(ride);
         
@@ -111,54 +162,68 @@ public class RideService {
                 .estimatedFare(ride.getFare())
                 .surgeMultiplier(ride.getSurgeMultiplier())
                 .requestedAt(ride.getRequestedAt())
-                .message("Ride booked successfully! Your driver will arrive soon.")
+                .message(sharedRoute.isPresent()
+                        ? "Ride booked successfully! You are sharing this trip with other riders."
+                        : "Ride booked successfully! Your driver will arrive soon.")
                 .build();
     }
     
     /**
      * Get ride details by ID.
+     * Served from the ride cache, which every transition on this node
+     * updates, or else from the active ride registry; otherwise ride and
+     * driver columns come from one joined query.
      */
     public RideResponse getRide(String rideId) {
-        RideEntity rideEntity = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RideNotFoundException(rideId));
+        Optional<RideResponse> cached = rideCache.get(rideId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<ActiveRideRegistry.ActiveRide> active = activeRides.get(rideId);
+        if (active.isPresent()) {
+            RideResponse response = toResponse(active.get().ride(), active.get().driver());
+            rideCache.putIfAbsent(rideId, response);
+            return response;
+        }
         
-        DriverEntity driverEntity = rideEntity.getDriverId() != null ? 
-                driverRepository.findById(rideEntity.getDriverId()).orElse(null) : null;
+        RideDetails details = rideRepository.findDetailsById(rideId)
+                .orElseThrow(() -> new RideNotFoundException(rideId));
         
-        return RideResponse.builder()
-                .rideId(rideEntity.getId())
-                .riderId(rideEntity.getRiderId())
-                .driverId(rideEntity.getDriverId())
-                .driverName(driverEntity != null ? driverEntity.getName() : null)
-                .driverVehicle(driverEntity != null ? driverEntity.getVehicle() : null)
-                .rideType(rideEntity.getRideType())
-                .status(rideEntity.getStatus())
-                .distance(rideEntity.getDistance())
-                .actualFare(rideEntity.getFare())
-                .surgeMultiplier(rideEntity.getSurgeMultiplier())
-                .requestedAt(rideEntity.getRequestedAt())
-                .startedAt(rideEntity.getStartedAt())
-                .completedAt(rideEntity.getCompletedAt())
+        RideResponse response = RideResponse.builder()
+                .rideId(details.rideId())
+                .riderId(details.riderId())
+                .driverId(details.driverId())
+                .driverName(details.driverName())
+                .driverVehicle(details.driverVehicle())
+                .rideType(details.rideType())
+                .status(details.status())
+                .distance(details.distance())
+                .actualFare(details.fare())
+                .surgeMultiplier(details.surgeMultiplier())
+                .requestedAt(details.requestedAt())
+                .startedAt(details.startedAt())
+                .completedAt(details.completedAt())
                 .build();
+        // A transition committed since the query may already have cached a newer status
+        rideCache.putIfAbsent(rideId, response);
+        return response;
     }
     
     /**
      * Start a ride.
+     * The ride is taken from the active ride registry and written back asynchronously.
+     * Rejected unless the ride is ASSIGNED, so of concurrent calls only one starts it.
      */
-    @Transactional
     public RideResponse startRide(String rideId) {
-        RideEntity rideEntity = rideRepository.findById(rideId)
+        ActiveRideRegistry.ActiveRide active = activeRides.find(rideId)
                 .orElseThrow(() -> new RideNotFoundException(rideId));
-        
-        // Convert to domain model
-        Ride ride = convertToDomainRide(rideEntity);
+        Ride ride = active.ride();
         
         rideAllocator.startRide(ride);
+        poolMatcher.close(rideId);
         
-        // Update database
-        rideEntity.setStatus(ride.getStatus());
-        rideEntity.setStartedAt(ride.getStartedAt());
-        rideRepository.save(rideEntity);
+        activeRides.update(ride);
+        analytics.onTransition(RideStatus.ASSIGNED, RideStatus.STARTED);
         
         // Log update
         rideLogger.logRide(ride);
@@ -166,35 +231,39 @@ public class RideService {
         // WebSocket notification
         sendRideUpdate(ride, "Ride started");
         
-        return getRide(rideId);
+        RideResponse response = toResponse(ride, active.driver());
+        rideCache.put(rideId, response);
+        return response;
     }
     
     /**
      * Complete a ride and calculate earnings.
+     * The ride leaves the active ride registry and is written back asynchronously.
+     * Rejected unless the ride is STARTED, so a ride is completed and paid once.
      */
-    @Transactional
     public RideResponse completeRide(String rideId) {
-        RideEntity rideEntity = rideRepository.findById(rideId)
+        ActiveRideRegistry.ActiveRide active = activeRides.find(rideId)
                 .orElseThrow(() -> new RideNotFoundException(rideId));
+        Ride ride = active.ride();
+        Driver driver = active.driver();
+        if (driver == null) {
+            throw new IllegalStateException("Driver not found");
+        }
         
-        DriverEntity driverEntity = driverRepository.findById(rideEntity.getDriverId())
-                .orElseThrow(() -> new IllegalStateException("Driver not found"));
-        
-        // Convert to domain models
-        Ride ride = convertToDomainRide(rideEntity);
-        Driver driver = EntityMapper.toDomain(driverEntity);
+        // Complete ride using allocator; a pool driver stays busy until the last rider is dropped
+        boolean releaseDriver = rideAllocator.completeRide(ride, driver, () -> poolMatcher.leave(rideId));
         
-        // Complete ride using allocator
-        rideAllocator.completeRide(ride, driver);
+        activeRides.update(ride);
+        analytics.onCompleted(RideStatus.STARTED, ride.getDriverId(), ride.getFare(), ride.getDistance());
+        timeSeries.recordCompleted(ride.getRideType(), ride.getFare());
         
-        // Update database
-        rideEntity.setStatus(ride.getStatus());
-        rideEntity.setCompletedAt(ride.getCompletedAt());
-        rideRepository.save(rideEntity);
+        // Fare is added to the driver's earnings row by the registry's next flush
+        driverRegistry.creditEarnings(driver.getId(), ride.getFare());
         
-        driverEntity.setStatus(driver.getStatus());
-        driverEntity.setTotalEarnings(driver.getTotalEarnings());
-        driverRepository.save(driverEntity);
+        // Driver is available again for nearby bookings
+        if (releaseDriver) {
+            driverRegistry.release(driver);
+        }
         
         // Log completion
         rideLogger.logRide(ride);
@@ -202,25 +271,9 @@ public class RideService {
         // WebSocket notification
         sendRideUpdate(ride, "Ride completed! Fare: ₹" + ride.getFare());
         
-        return getRide(rideId);
-    }
-    
-    /**
-     * Get all rides for a rider.
-     */
-    public List<RideResponse> getRiderRides(String riderId) {
-        return rideRepository.findByRiderId(riderId).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * Get all rides for a driver.
-     */
-    public List<RideResponse> getDriverRides(String driverId) {
-        return rideRepository.findByDriverId(driverId).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        RideResponse response = toResponse(ride, driver);
+        rideCache.put(rideId, response);
+        return response;
     }
     
     // Helper methods
@@ -238,44 +291,85 @@ public class RideService {
         }
     }
     
-    private Ride convertToDomainRide(RideEntity entity) {
-        Location start = Location.builder()
-                .latitude(entity.getStartLatitude())
-                .longitude(entity.getStartLongitude())
-                .address(entity.getStartAddress())
-                .build();
-        
-        Location end = Location.builder()
-                .latitude(entity.getEndLatitude())
-                .longitude(entity.getEndLongitude())
-                .address(entity.getEndAddress())
-                .build();
-        
-        return RideFactory.createRideWithSurge(
-            entity.getRideType(),
-            entity.getRiderId(),
-            start,
-            end,
-            entity.getSurgeMultiplier()
-        );
+    private Driver assignDriver(Ride ride) {
+        if (batchDispatcher.isEmpty()) {
+            return rideAllocator.assignDriver(ride, driverIndex);
+        }
+        BatchDispatcher dispatcher = batchDispatcher.get();
+        try {
+            return dispatcher.submit(ride)
+                    .orTimeout(dispatcher.getAssignTimeoutMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException timeout) {
+                throw new NoDriverAvailableException(
+                    "No driver could be assigned in time. Please try again later.", timeout);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
     
-    private RideResponse convertToResponse(RideEntity entity) {
+    /**
+     * Response for a ride held in memory, built from the domain ride and the
+     * registry's driver rather than read back from the database.
+     */
+    private RideResponse toResponse(Ride ride, Driver driver) {
         return RideResponse.builder()
-                .rideId(entity.getId())
-                .riderId(entity.getRiderId())
-                .driverId(entity.getDriverId())
-                .rideType(entity.getRideType())
-                .status(entity.getStatus())
-                .distance(entity.getDistance())
-                .actualFare(entity.getFare())
-                .surgeMultiplier(entity.getSurgeMultiplier())
-                .requestedAt(entity.getRequestedAt())
-                .startedAt(entity.getStartedAt())
-                .completedAt(entity.getCompletedAt())
+                .rideId(ride.getId())
+                .riderId(ride.getRiderId())
+                .driverId(ride.getDriverId())
+                .driverName(driver != null ? driver.getName() : null)
+                .driverVehicle(driver != null ? driver.getVehicle() : null)
+                .rideType(ride.getRideType())
+                .status(ride.getStatus())
+                .distance(ride.getDistance())
+                .actualFare(ride.getFare())
+                .surgeMultiplier(ride.getSurgeMultiplier())
+                .requestedAt(ride.getRequestedAt())
+                .startedAt(ride.getStartedAt())
+                .completedAt(ride.getCompletedAt())
                 .build();
     }
     
+    /**
+     * Run an action once the current transaction commits, or right away
+     * outside one; if the transaction rolls back the action never runs.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    /**
+     * Run an action once the current transaction has rolled back. The
+     * transaction is finished by then, so any database work in the action
+     * must start its own.
+     */
+    private void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+    
     private void sendRideUpdate(Ride ride, String message) {
         try {
             RideResponse response = RideResponse.builder()
@@ -0,0 +1,186 @@
+package com.ridesync.api.service;
+
+import com.ridesync.api.dto.TimeSeriesResponse;
+import com.ridesync.core.analytics.MinuteRing;
+import com.ridesync.core.analytics.RideActivity;
+import com.ridesync.core.analytics.TimeResolution;
+import com.ridesync.core.exception.InvalidQueryException;
+import com.ridesync.core.model.RideType;
+import com.ridesync.persistence.entity.RideRollupEntity;
+import com.ridesync.persistence.repository.RideRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ride activity over time, answered without reading ride rows.
+ *
+ * Bookings, completions and cancellations are counted per minute in a
+ * {@link MinuteRing}. Every rollup interval, minutes that have closed are
+ * added to the hourly and daily rollups in the database in one batch; if
+ * that fails the same minutes are retried on the next run, as long as the
+ * ring still holds them. Hourly and daily series combine the rollups with
+ * the minutes not yet rolled up; minute series come from the ring alone.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RideTimeSeriesService {
+
+    static final int MAX_POINTS = 10_000;
+    private static final TimeResolution[] ROLLUP_RESOLUTIONS = {TimeResolution.HOUR, TimeResolution.DAY};
+
+    private final RideRollupRepository rollupRepository;
+    private final MinuteRing minuteRing;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // First minute not yet added to the rollups; 0 until the first flush
+    private long rolledUpBefore;
+
+    public void recordRequested(RideType rideType, double surgeMultiplier) {
+        minuteRing.recordRequested(rideType, surgeMultiplier);
+    }
+
+    public void recordCompleted(RideType rideType, double fare) {
+        minuteRing.recordCompleted(rideType, fare);
+    }
+
+    public void recordCancelled(RideType rideType) {
+        minuteRing.recordCancelled(rideType);
+    }
+
+    /**
+     * Add closed minutes to the hourly and daily rollups.
+     * The minute before the current one is left for the next run, so
+     * bookings that read the clock just before it ticked still land in it.
+     */
+    @Scheduled(fixedDelayString = "${ridesync.analytics.rollup-interval-ms:60000}")
+    public synchronized void rollUp() {
+        long closedBefore = minuteRing.currentMinute() - 1;
+        long oldestHeld = minuteRing.currentMinute() - minuteRing.capacity() + 1;
+        if (rolledUpBefore > 0 && rolledUpBefore < oldestHeld) {
+            log.warn("Ride activity for {} minutes was evicted before it could be rolled up",
+                    oldestHeld - rolledUpBefore);
+        }
+        if (closedBefore <= rolledUpBefore) {
+            return;
+        }
+        try {
+            Map<String, RideRollupEntity> rollups = new HashMap<>();
+            Map<String, RideActivity> deltas = new HashMap<>();
+            for (MinuteRing.Minute minute : minuteRing.minutes(rolledUpBefore, closedBefore)) {
+                LocalDateTime time = toLocalTime(minute.epochMinute());
+                for (TimeResolution resolution : ROLLUP_RESOLUTIONS) {
+                    LocalDateTime bucketStart = resolution.bucketStart(time);
+                    minute.activity().forEach((rideType, activity) -> {
+                        String id = RideRollupEntity.idOf(resolution, bucketStart, rideType);
+                        rollups.computeIfAbsent(id, key -> RideRollupEntity.empty(resolution, bucketStart, rideType));
+                        deltas.merge(id, activity, RideActivity::plus);
+                    });
+                }
+            }
+            if (!deltas.isEmpty()) {
+                rollupRepository.findAllById(deltas.keySet())
+                        .forEach(existing -> rollups.put(existing.getId(), existing));
+                deltas.forEach((id, activity) -> rollups.get(id).add(activity));
+                rollupRepository.saveAll(rollups.values());
+            }
+            rolledUpBefore = closedBefore;
+        } catch (RuntimeException e) {
+            log.error("Failed to roll up ride activity, will retry", e);
+        }
+    }
+
+    /**
+     * Ride activity in {@code [from, to)}, one point per bucket including empty ones.
+     *
+     * @param rideType Restrict to one ride type, or null for all types
+     */
+    public TimeSeriesResponse getTimeSeries(LocalDateTime from, LocalDateTime to,
+                                            TimeResolution resolution, RideType rideType) {
+        if (!from.isBefore(to)) {
+            throw new InvalidQueryException("from must be before to");
+        }
+        LocalDateTime start = resolution.bucketStart(from);
+        long buckets = Duration.between(start, to).dividedBy(resolution.getDuration()) + 1;
+        if (buckets > MAX_POINTS) {
+            throw new InvalidQueryException("Range spans " + buckets + " " + resolution
+                    + " buckets, at most " + MAX_POINTS + " allowed");
+        }
+
+        Map<LocalDateTime, RideActivity> totals = new TreeMap<>();
+        if (resolution == TimeResolution.MINUTE) {
+            addMinutes(totals, toEpochMinute(start), to, resolution, rideType);
+        } else {
+            synchronized (this) {
+                for (RideRollupEntity rollup : rollupRepository.findRollups(resolution, start, to)) {
+                    if (rideType == null || rollup.getRideType() == rideType) {
+                        totals.merge(rollup.getBucketStart(), rollup.toActivity(), RideActivity::plus);
+                    }
+                }
+                long fromMinute = Math.max(rolledUpBefore, toEpochMinute(start));
+                addMinutes(totals, fromMinute, to, resolution, rideType);
+            }
+        }
+
+        List<TimeSeriesResponse.Point> points = new ArrayList<>();
+        for (LocalDateTime bucketStart = start; bucketStart.isBefore(to); bucketStart = resolution.next(bucketStart)) {
+            points.add(toPoint(bucketStart, totals.getOrDefault(bucketStart, RideActivity.EMPTY)));
+        }
+        return TimeSeriesResponse.builder()
+                .resolution(resolution)
+                .from(start)
+                .to(to)
+                .rideType(rideType)
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Add the minutes the ring holds from fromMinute up to {@code to} into their buckets.
+     */
+    private void addMinutes(Map<LocalDateTime, RideActivity> totals, long fromMinute, LocalDateTime to,
+                            TimeResolution resolution, RideType rideType) {
+        for (MinuteRing.Minute minute : minuteRing.minutes(fromMinute, toEpochMinute(to) + 1)) {
+            LocalDateTime time = toLocalTime(minute.epochMinute());
+            if (!time.isBefore(to)) {
+                continue;
+            }
+            minute.activity().forEach((type, activity) -> {
+                if (rideType == null || type == rideType) {
+                    totals.merge(resolution.bucketStart(time), activity, RideActivity::plus);
+                }
+            });
+        }
+    }
+
+    private LocalDateTime toLocalTime(long epochMinute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(TimeUnit.MINUTES.toSeconds(epochMinute)), zone);
+    }
+
+    private long toEpochMinute(LocalDateTime time) {
+        return TimeUnit.SECONDS.toMinutes(time.atZone(zone).toEpochSecond());
+    }
+
+    private static TimeSeriesResponse.Point toPoint(LocalDateTime bucketStart, RideActivity activity) {
+        return TimeSeriesResponse.Point.builder()
+                .bucketStart(bucketStart)
+                .requested(activity.requested())
+                .completed(activity.completed())
+                .cancelled(activity.cancelled())
+                .revenue(Math.round(activity.revenue() * 100.0) / 100.0)
+                .averageSurge(Math.round(activity.averageSurge() * 100.0) / 100.0)
+                .build();
+    }
+}
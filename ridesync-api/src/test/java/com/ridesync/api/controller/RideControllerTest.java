@@ -3,6 +3,7 @@ package com.ridesync.api.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ridesync.api.dto.BookRideRequest;
 import com.ridesync.api.dto.RideResponse;
+import com.ridesync.api.service.RideHistoryService;
 import com.ridesync.api.service.RideService;
 import com.ridesync.core.model.RideStatus;
 import com.ridesync.core.model.RideType;
@@ -35,6 +36,9 @@ class RideControllerTest {
     @MockBean
     private RideService rideService;
     
+    @MockBean
+    private RideHistoryService rideHistoryService;
+    
     @Test
     void testBookRide() throws Exception {
         BookRideRequest request = BookRideRequest.builder()
@@ -0,0 +1,137 @@
+package com.ridesync.api.service;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.core.model.PoolRide;
+import com.ridesync.core.model.Ride;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.mapper.EntityMapper;
+import com.ridesync.persistence.repository.RideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the in-memory registry of rides in flight and its write-behind flush.
+ */
+@ExtendWith(MockitoExtension.class)
+class ActiveRideRegistryTest {
+
+    @Mock
+    private RideRepository rideRepository;
+
+    @Mock
+    private DriverRegistry driverRegistry;
+
+    private ActiveRideRegistry activeRides;
+    private Driver driver;
+
+    @BeforeEach
+    void setUp() {
+        activeRides = new ActiveRideRegistry(rideRepository, driverRegistry);
+        driver = Driver.builder().id("DRV-1").name("Driver").status(DriverStatus.BUSY).build();
+        lenient().when(driverRegistry.get("DRV-1")).thenReturn(Optional.of(driver));
+    }
+
+    @Test
+    void testWarmKeepsRideIdFareAndDriver() {
+        when(rideRepository.findByStatusIn(anyCollection()))
+                .thenReturn(List.of(createRideEntity("RIDE-1", RideType.POOL, RideStatus.ASSIGNED)));
+
+        activeRides.warm();
+
+        ActiveRideRegistry.ActiveRide active = activeRides.get("RIDE-1").orElseThrow();
+        assertInstanceOf(PoolRide.class, active.ride());
+        assertEquals("RIDE-1", active.ride().getId());
+        assertEquals(48.0, active.ride().getFare());
+        assertEquals(RideStatus.ASSIGNED, active.ride().getStatus());
+        assertSame(driver, active.driver());
+    }
+
+    @Test
+    void testFindLoadsMissingRidesAndRegistersOnlyActiveOnes() {
+        when(rideRepository.findById("RIDE-1"))
+                .thenReturn(Optional.of(createRideEntity("RIDE-1", RideType.STANDARD, RideStatus.STARTED)));
+        when(rideRepository.findById("RIDE-2"))
+                .thenReturn(Optional.of(createRideEntity("RIDE-2", RideType.STANDARD, RideStatus.COMPLETED)));
+
+        Ride started = activeRides.find("RIDE-1").orElseThrow().ride();
+        assertSame(started, activeRides.find("RIDE-1").orElseThrow().ride());
+        verify(rideRepository, times(1)).findById("RIDE-1");
+
+        assertEquals(RideStatus.COMPLETED, activeRides.find("RIDE-2").orElseThrow().ride().getStatus());
+        assertTrue(activeRides.get("RIDE-2").isEmpty());
+        assertTrue(activeRides.find("RIDE-404").isEmpty());
+        assertEquals(1, activeRides.getActiveCount());
+    }
+
+    @Test
+    void testTransitionsAreWrittenBehindAndFinishedRidesEvicted() {
+        Ride ride = createRide("RIDE-1");
+        activeRides.register(ride, driver);
+
+        ride.transitionTo(RideStatus.STARTED);
+        ride.setStartedAt(LocalDateTime.now());
+        activeRides.update(ride);
+        ride.transitionTo(RideStatus.COMPLETED);
+        ride.setCompletedAt(LocalDateTime.now());
+        activeRides.update(ride);
+
+        verifyNoInteractions(rideRepository);
+        assertEquals(1, activeRides.getPendingWrites());
+        assertEquals(0, activeRides.getActiveCount());
+
+        activeRides.flush();
+
+        verify(rideRepository).updateLifecycle("RIDE-1", RideStatus.COMPLETED, 120.0,
+                ride.getStartedAt(), ride.getCompletedAt());
+        assertEquals(0, activeRides.getPendingWrites());
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        when(rideRepository.updateLifecycle(any(), any(), anyDouble(), any(), any()))
+                .thenThrow(new RuntimeException("database down"));
+
+        activeRides.update(createRide("RIDE-1"));
+        activeRides.flush();
+
+        assertEquals(1, activeRides.getPendingWrites());
+    }
+
+    private Ride createRide(String id) {
+        Ride ride = EntityMapper.toDomain(createRideEntity(id, RideType.STANDARD, RideStatus.ASSIGNED));
+        ride.setFare(120.0);
+        return ride;
+    }
+
+    private RideEntity createRideEntity(String id, RideType rideType, RideStatus status) {
+        return RideEntity.builder()
+                .id(id)
+                .riderId("RDR-1")
+                .driverId("DRV-1")
+                .rideType(rideType)
+                .status(status)
+                .startLatitude(12.9716)
+                .startLongitude(77.5946)
+                .endLatitude(12.9352)
+                .endLongitude(77.6245)
+                .distance(6.0)
+                .fare(48.0)
+                .surgeMultiplier(1.0)
+                .requestedAt(LocalDateTime.of(2024, 1, 15, 10, 0))
+                .build();
+    }
+}
@@ -1,26 +1,24 @@
 package com.ridesync.api.service;
 
 import com.ridesync.api.dto.AnalyticsResponse;
+import com.ridesync.api.dto.TopDriverDTO;
 import com.ridesync.core.model.RideStatus;
 import com.ridesync.core.model.RideType;
-import com.ridesync.persistence.entity.RideEntity;
-import com.ridesync.persistence.repository.DriverRepository;
 import com.ridesync.persistence.repository.RideRepository;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
- * Unit tests for AnalyticsService Stream operations.
+ * Unit tests for AnalyticsService.
  */
 @ExtendWith(MockitoExtension.class)
 class AnalyticsServiceTest {
@@ -29,27 +27,24 @@ class AnalyticsServiceTest {
     private RideRepository rideRepository;
     
     @Mock
-    private DriverRepository driverRepository;
+    private RideAnalyticsAggregator aggregator;
     
     @InjectMocks
     private AnalyticsService analyticsService;
     
-    private List<RideEntity> sampleRides;
-    
-    @BeforeEach
-    void setUp() {
-        sampleRides = List.of(
-            createRideEntity("ride1", RideStatus.COMPLETED, RideType.STANDARD, 100.0),
-            createRideEntity("ride2", RideStatus.COMPLETED, RideType.POOL, 60.0),
-            createRideEntity("ride3", RideStatus.STARTED, RideType.LUXURY, 200.0),
-            createRideEntity("ride4", RideStatus.COMPLETED, RideType.STANDARD, 120.0)
-        );
-    }
-    
     @Test
     void testGetDashboardAnalytics() {
-        when(rideRepository.findAll()).thenReturn(sampleRides);
-        when(driverRepository.findAll()).thenReturn(List.of());
+        when(aggregator.getTotalRides()).thenReturn(4L);
+        when(aggregator.getCompletedRides()).thenReturn(3L);
+        when(aggregator.getRideCount(any())).thenReturn(0L);
+        when(aggregator.getRideCount(RideStatus.STARTED)).thenReturn(1L);
+        when(aggregator.getCompletedRevenue()).thenReturn(280.0);
+        when(aggregator.getAverageFare()).thenReturn(280.0 / 3);
+        when(aggregator.getRidesByType()).thenReturn(Map.of(RideType.STANDARD, 2L, RideType.POOL, 1L, RideType.LUXURY, 1L));
+        when(aggregator.getRidesByStatus()).thenReturn(Map.of(RideStatus.COMPLETED, 3L, RideStatus.STARTED, 1L));
+        when(aggregator.getTopDrivers(5)).thenReturn(List.of(
+            TopDriverDTO.builder().driverId("driver1").totalEarnings(280.0).completedRides(3).build()
+        ));
         
         AnalyticsResponse analytics = analyticsService.getDashboardAnalytics();
         
@@ -58,50 +53,18 @@ class AnalyticsServiceTest {
         assertEquals(3, analytics.getCompletedRides());
         assertEquals(1, analytics.getActiveRides());
         assertEquals(280.0, analytics.getTotalRevenue(), 0.01);
-        assertTrue(analytics.getAverageFare() > 0);
+        assertEquals(93.33, analytics.getAverageFare(), 0.001);
+        assertEquals(2L, analytics.getRidesByType().get("STANDARD"));
+        assertEquals("driver1", analytics.getTopDrivers().get(0).getDriverId());
+        verifyNoInteractions(rideRepository);
     }
     
     @Test
     void testGetDriverEarnings() {
-        when(rideRepository.findByDriverId("driver1")).thenReturn(
-            List.of(
-                createRideEntity("ride1", RideStatus.COMPLETED, RideType.STANDARD, 100.0),
-                createRideEntity("ride2", RideStatus.COMPLETED, RideType.STANDARD, 120.0)
-            )
-        );
+        when(rideRepository.calculateTotalEarnings("driver1")).thenReturn(220.0);
+        when(rideRepository.calculateTotalEarnings("driver2")).thenReturn(null);
         
-        double earnings = analyticsService.getDriverEarnings("driver1");
-        
-        assertEquals(220.0, earnings, 0.01);
-    }
-    
-    @Test
-    void testGetFilteredRides() {
-        when(rideRepository.findAll()).thenReturn(sampleRides);
-        
-        List<RideEntity> filtered = analyticsService.getFilteredRides(
-            RideStatus.COMPLETED, 
-            RideType.STANDARD
-        );
-        
-        assertNotNull(filtered);
-        assertEquals(2, filtered.size());
-        assertTrue(filtered.stream().allMatch(r -> 
-            r.getStatus() == RideStatus.COMPLETED && r.getRideType() == RideType.STANDARD
-        ));
-    }
-    
-    private RideEntity createRideEntity(String id, RideStatus status, RideType type, double fare) {
-        return RideEntity.builder()
-                .id(id)
-                .riderId("rider1")
-                .driverId("driver1")
-                .status(status)
-                .rideType(type)
-                .fare(fare)
-                .distance(10.0)
-                .surgeMultiplier(1.0)
-                .requestedAt(LocalDateTime.now())
-                .build();
+        assertEquals(220.0, analyticsService.getDriverEarnings("driver1"), 0.01);
+        assertEquals(0.0, analyticsService.getDriverEarnings("driver2"), 0.01);
     }
 }
@@ -0,0 +1,189 @@
+package com.ridesync.api.service;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.core.model.Location;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import com.ridesync.persistence.entity.DriverEntity;
+import com.ridesync.persistence.repository.DriverRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the in-memory driver registry and its write-behind flush.
+ */
+@ExtendWith(MockitoExtension.class)
+class DriverRegistryTest {
+
+    @Mock
+    private DriverRepository driverRepository;
+
+    private DriverSpatialIndex driverIndex;
+    private DriverRegistry driverRegistry;
+
+    @BeforeEach
+    void setUp() {
+        driverIndex = new DriverSpatialIndex();
+        driverRegistry = new DriverRegistry(driverRepository, driverIndex);
+    }
+
+    @Test
+    void testWarmLoadsAllDriversAndIndexesAvailableOnes() {
+        when(driverRepository.findAll()).thenReturn(List.of(
+            createDriverEntity("d1", DriverStatus.AVAILABLE),
+            createDriverEntity("d2", DriverStatus.BUSY)
+        ));
+
+        driverRegistry.warm();
+
+        assertEquals(2, driverRegistry.getAll().size());
+        assertTrue(driverIndex.contains("d1"));
+        assertFalse(driverIndex.contains("d2"));
+    }
+
+    @Test
+    void testLocationUpdatesAreWrittenBehindWithoutTouchingStatus() {
+        when(driverRepository.findAll()).thenReturn(List.of(
+            createDriverEntity("d1", DriverStatus.AVAILABLE),
+            createDriverEntity("d2", DriverStatus.AVAILABLE)
+        ));
+        driverRegistry.warm();
+
+        Location moved = Location.builder().latitude(12.9352).longitude(77.6245).build();
+        driverRegistry.updateLocation("d1", moved);
+        driverRegistry.updateLocation("d1", moved);
+        driverRegistry.updateLocation("d2", moved);
+
+        verifyNoMoreInteractions(ignoreStubs(driverRepository));
+        assertEquals(2, driverRegistry.getPendingWrites());
+
+        driverRegistry.flush();
+
+        verify(driverRepository).updateLocationAndAddEarnings(eq("d1"), eq(12.9352), eq(77.6245), any(), eq(0.0));
+        verify(driverRepository).updateLocationAndAddEarnings(eq("d2"), eq(12.9352), eq(77.6245), any(), eq(0.0));
+        verify(driverRepository, never()).saveAll(anyList());
+        verify(driverRepository, never()).updateStatus(any(), any());
+        assertEquals(0, driverRegistry.getPendingWrites());
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        when(driverRepository.findAll()).thenReturn(List.of(createDriverEntity("d1", DriverStatus.AVAILABLE)));
+        driverRegistry.warm();
+        when(driverRepository.updateLocationAndAddEarnings(any(), anyDouble(), anyDouble(), any(), anyDouble()))
+                .thenThrow(new RuntimeException("database down"));
+
+        driverRegistry.creditEarnings("d1", 80.0);
+        driverRegistry.flush();
+
+        assertEquals(1, driverRegistry.getPendingWrites());
+
+        reset(driverRepository);
+        driverRegistry.flush();
+
+        verify(driverRepository).updateLocationAndAddEarnings(eq("d1"), anyDouble(), anyDouble(), any(), eq(80.0));
+    }
+
+    @Test
+    void testFlushAddsOnlyEarningsCreditedSinceLastFlush() {
+        when(driverRepository.findAll()).thenReturn(List.of(createDriverEntity("d1", DriverStatus.BUSY)));
+        driverRegistry.warm();
+
+        driverRegistry.creditEarnings("d1", 100.0);
+        driverRegistry.creditEarnings("d1", 50.0);
+        driverRegistry.flush();
+        driverRegistry.creditEarnings("d1", 20.0);
+        driverRegistry.flush();
+
+        verify(driverRepository).updateLocationAndAddEarnings(eq("d1"), anyDouble(), anyDouble(), any(), eq(150.0));
+        verify(driverRepository).updateLocationAndAddEarnings(eq("d1"), anyDouble(), anyDouble(), any(), eq(20.0));
+    }
+
+    @Test
+    void testReleaseWritesStatusAndReturnsDriverToIndex() {
+        Driver driver = Driver.builder()
+                .id("d1")
+                .name("Driver d1")
+                .status(DriverStatus.AVAILABLE)
+                .currentLocation(Location.builder().latitude(12.9716).longitude(77.5946).build())
+                .build();
+
+        driverRegistry.release(driver);
+
+        verify(driverRepository).updateStatus("d1", DriverStatus.AVAILABLE);
+        assertTrue(driverIndex.contains("d1"));
+        assertEquals(1, driverRegistry.getPendingWrites());
+    }
+
+    @Test
+    void testResyncRestoresDriversReleasedElsewhere() {
+        when(driverRepository.findAll()).thenReturn(List.of(createDriverEntity("d1", DriverStatus.BUSY)));
+        driverRegistry.warm();
+        when(driverRepository.findAll()).thenReturn(List.of(
+            createDriverEntity("d1", DriverStatus.AVAILABLE),
+            createDriverEntity("d2", DriverStatus.AVAILABLE),
+            createDriverEntity("d3", DriverStatus.BUSY)
+        ));
+
+        driverRegistry.resync();
+
+        assertEquals(DriverStatus.AVAILABLE, driverRegistry.get("d1").orElseThrow().getStatus());
+        assertTrue(driverIndex.contains("d1"));
+        assertTrue(driverIndex.contains("d2"));
+        assertFalse(driverIndex.contains("d3"));
+        assertEquals(3, driverRegistry.getAll().size());
+    }
+
+    @Test
+    void testResyncRefreshesEarningsAndLocationFromOtherNodes() {
+        when(driverRepository.findAll()).thenReturn(List.of(
+            createDriverEntity("d1", DriverStatus.AVAILABLE),
+            createDriverEntity("d2", DriverStatus.AVAILABLE)
+        ));
+        driverRegistry.warm();
+        driverRegistry.creditEarnings("d2", 30.0);
+        driverRegistry.updateLocation("d2", Location.builder().latitude(12.9352).longitude(77.6245).build());
+
+        DriverEntity d1 = createDriverEntity("d1", DriverStatus.AVAILABLE);
+        d1.setTotalEarnings(200.0);
+        d1.setCurrentLatitude(13.0);
+        DriverEntity d2 = createDriverEntity("d2", DriverStatus.AVAILABLE);
+        d2.setTotalEarnings(10.0);
+        when(driverRepository.findAll()).thenReturn(List.of(d1, d2));
+
+        driverRegistry.resync();
+
+        Driver first = driverRegistry.get("d1").orElseThrow();
+        assertEquals(200.0, first.getTotalEarnings(), 0.001);
+        assertEquals(13.0, first.getCurrentLocation().getLatitude());
+
+        // Fare credited here but not yet flushed comes on top of what other nodes wrote,
+        // and a location not yet flushed is not overwritten
+        Driver second = driverRegistry.get("d2").orElseThrow();
+        assertEquals(40.0, second.getTotalEarnings(), 0.001);
+        assertEquals(12.9352, second.getCurrentLocation().getLatitude());
+    }
+
+    private DriverEntity createDriverEntity(String id, DriverStatus status) {
+        return DriverEntity.builder()
+                .id(id)
+                .name("Driver " + id)
+                .vehicle("Test Car")
+                .vehicleNumber("TEST-" + id)
+                .status(status)
+                .currentLatitude(12.9716)
+                .currentLongitude(77.5946)
+                .totalEarnings(0.0)
+                .rating(5.0)
+                .build();
+    }
+}
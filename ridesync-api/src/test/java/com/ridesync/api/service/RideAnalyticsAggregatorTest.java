@@ -0,0 +1,137 @@
+package com.ridesync.api.service;
+
+import com.ridesync.api.dto.TopDriverDTO;
+import com.ridesync.core.analytics.LeaderboardWindow;
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import com.ridesync.persistence.projection.CompletedRideTotals;
+import com.ridesync.persistence.projection.DriverEarnings;
+import com.ridesync.persistence.projection.StatusCount;
+import com.ridesync.persistence.projection.TypeCount;
+import com.ridesync.persistence.repository.RideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the incrementally maintained dashboard aggregates.
+ */
+@ExtendWith(MockitoExtension.class)
+class RideAnalyticsAggregatorTest {
+
+    @Mock
+    private RideRepository rideRepository;
+
+    @Mock
+    private DriverRegistry driverRegistry;
+
+    private RideAnalyticsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new RideAnalyticsAggregator(rideRepository, driverRegistry);
+        lenient().when(driverRegistry.get(anyString()))
+                .thenAnswer(invocation -> Optional.of(driver(invocation.getArgument(0))));
+    }
+
+    @Test
+    void testLifecycleTransitionsUpdateAggregates() {
+        aggregator.onBooked(RideType.STANDARD, RideStatus.ASSIGNED);
+        aggregator.onBooked(RideType.POOL, RideStatus.ASSIGNED);
+        aggregator.onBooked(RideType.POOL, RideStatus.ASSIGNED);
+        aggregator.onTransition(RideStatus.ASSIGNED, RideStatus.STARTED);
+        aggregator.onCompleted(RideStatus.STARTED, "d1", 120.0, 8.0);
+        aggregator.onCompleted(RideStatus.ASSIGNED, "d1", 60.0, 4.0);
+        aggregator.onCancelled(RideStatus.ASSIGNED);
+
+        assertEquals(3, aggregator.getTotalRides());
+        assertEquals(Map.of(RideStatus.COMPLETED, 2L, RideStatus.CANCELLED, 1L), aggregator.getRidesByStatus());
+        assertEquals(Map.of(RideType.STANDARD, 1L, RideType.POOL, 2L), aggregator.getRidesByType());
+        assertEquals(180.0, aggregator.getCompletedRevenue(), 0.001);
+        assertEquals(90.0, aggregator.getAverageFare(), 0.001);
+        assertEquals(6.0, aggregator.getAverageDistance(), 0.001);
+
+        List<TopDriverDTO> top = aggregator.getTopDrivers(5);
+        assertEquals(List.of("d1"), top.stream().map(TopDriverDTO::getDriverId).toList());
+        assertEquals("Driver d1", top.get(0).getDriverName());
+        assertEquals(180.0, top.get(0).getTotalEarnings(), 0.001);
+        assertEquals(2, top.get(0).getCompletedRides());
+        assertEquals(top, aggregator.getTopDrivers(5, LeaderboardWindow.DAY));
+        assertEquals(top, aggregator.getTopDrivers(5, LeaderboardWindow.WEEK));
+    }
+
+    @Test
+    void testConcurrentTransitionsAreNotLost() {
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            aggregator.onBooked(RideType.STANDARD, RideStatus.ASSIGNED);
+            aggregator.onCompleted(RideStatus.ASSIGNED, "d" + (i % 4), 10.0, 1.0);
+        });
+
+        assertEquals(10_000, aggregator.getCompletedRides());
+        assertEquals(0, aggregator.getRideCount(RideStatus.ASSIGNED));
+        assertEquals(100_000.0, aggregator.getCompletedRevenue(), 0.001);
+    }
+
+    @Test
+    void testReconcileCorrectsDriftFromDatabase() {
+        aggregator.onBooked(RideType.STANDARD, RideStatus.ASSIGNED);
+        aggregator.onCompleted(RideStatus.ASSIGNED, "d1", 100.0, 5.0);
+        aggregator.onCompleted(RideStatus.ASSIGNED, "d2", 50.0, 5.0); // never committed
+        aggregator.onCompleted(RideStatus.ASSIGNED, "d4", 20.0, 5.0); // completed yesterday
+
+        when(rideRepository.countRidesByStatus()).thenReturn(List.of(
+                new StatusCount(RideStatus.COMPLETED, 1), new StatusCount(RideStatus.REQUESTED, 2)));
+        when(rideRepository.countRidesByType()).thenReturn(List.of(new TypeCount(RideType.STANDARD, 3)));
+        when(rideRepository.summarizeCompletedRides()).thenReturn(new CompletedRideTotals(1, 100.0, 100.0, 5.0));
+        when(rideRepository.findTopDriversByEarnings(any())).thenReturn(List.of(
+                new DriverEarnings("d1", "Driver d1", 4.5, 100.0, 1),
+                new DriverEarnings("d3", "Driver d3", 4.5, 0.0, 0),
+                new DriverEarnings("d4", "Driver d4", 4.5, 20.0, 1)));
+        when(rideRepository.findDriverEarningsSince(any())).thenReturn(List.of(
+                new DriverEarnings("d1", "Driver d1", 4.5, 100.0, 1)));
+
+        aggregator.reconcile();
+
+        assertEquals(3, aggregator.getTotalRides());
+        assertEquals(Map.of(RideStatus.COMPLETED, 1L, RideStatus.REQUESTED, 2L), aggregator.getRidesByStatus());
+        assertEquals(1, aggregator.getCompletedRides());
+        assertEquals(100.0, aggregator.getCompletedRevenue(), 0.001);
+        assertEquals(5.0, aggregator.getAverageDistance(), 0.001);
+        assertTrue(aggregator.getDriftCorrections() > 0);
+
+        assertEquals(List.of("d1", "d4", "d2", "d3"), driverIds(aggregator.getTopDrivers(5)));
+        assertEquals(0.0, aggregator.getTopDrivers(5).get(2).getTotalEarnings());
+        assertEquals(List.of("d1"), driverIds(aggregator.getTopDrivers(5, LeaderboardWindow.DAY)));
+        assertEquals(List.of("d1"), driverIds(aggregator.getTopDrivers(5, LeaderboardWindow.WEEK)));
+
+        long corrections = aggregator.getDriftCorrections();
+        aggregator.reconcile();
+        assertEquals(corrections, aggregator.getDriftCorrections(), "Nothing left to correct");
+        assertEquals(2, aggregator.getReconciliationCount());
+    }
+
+    private static List<String> driverIds(List<TopDriverDTO> drivers) {
+        return drivers.stream().map(TopDriverDTO::getDriverId).toList();
+    }
+
+    private static Driver driver(String id) {
+        Driver driver = new Driver();
+        driver.setId(id);
+        driver.setName("Driver " + id);
+        driver.setRating(4.5);
+        return driver;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ridesync.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridesync.api.dto.CursorPage;
+import com.ridesync.api.dto.RideResponse;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import com.ridesync.core.exception.InvalidQueryException;
+import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.query.RideCursor;
+import com.ridesync.persistence.query.RideFilter;
+import com.ridesync.persistence.repository.RideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for paginated and streamed ride history.
+ */
+@ExtendWith(MockitoExtension.class)
+class RideHistoryServiceTest {
+
+    @Mock
+    private RideRepository rideRepository;
+
+    private RideHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        historyService = new RideHistoryService(rideRepository, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void testPageCarriesCursorOnlyWhenMoreRidesFollow() {
+        RideFilter filter = RideFilter.forDriver("driver1");
+        List<RideEntity> rides = IntStream.range(0, 3).mapToObj(i -> ride("RIDE-" + (9 - i))).toList();
+        when(rideRepository.findHistoryPage(filter, null, 3)).thenReturn(rides);
+
+        CursorPage<RideResponse> first = historyService.getPage(filter, null, 2, RideHistoryService::toResponse);
+        assertEquals(List.of("RIDE-9", "RIDE-8"), first.getItems().stream().map(RideResponse::getRideId).toList());
+        assertEquals(RideCursor.after(rides.get(1)), RideCursor.decode(first.getNextCursor()));
+
+        when(rideRepository.findHistoryPage(filter, RideCursor.after(rides.get(1)), 3))
+                .thenReturn(List.of(rides.get(2)));
+        CursorPage<RideResponse> last = historyService.getPage(filter, first.getNextCursor(), 2,
+                RideHistoryService::toResponse);
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testRejectsUnboundedPagesAndBadCursors() {
+        RideFilter filter = RideFilter.of(null, null);
+        assertThrows(InvalidQueryException.class,
+                () -> historyService.getPage(filter, null, RideHistoryService.MAX_PAGE_SIZE + 1, ride -> ride));
+        assertThrows(InvalidQueryException.class,
+                () -> historyService.getPage(filter, null, 0, ride -> ride));
+        assertThrows(InvalidQueryException.class,
+                () -> historyService.getPage(filter, "%%%", 10, ride -> ride));
+        verify(rideRepository, never()).findHistoryPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void testStreamWritesOneJsonDocumentPerRide() throws Exception {
+        RideFilter filter = RideFilter.of(RideStatus.COMPLETED, null);
+        when(rideRepository.streamHistory(eq(filter), anyInt())).thenReturn(Stream.of(ride("RIDE-2"), ride("RIDE-1")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        historyService.stream(filter, out, RideHistoryService::toResponse);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        assertEquals("RIDE-2", mapper.readTree(lines[0]).get("rideId").asText());
+        assertEquals("RIDE-1", mapper.readTree(lines[1]).get("rideId").asText());
+    }
+
+    private static RideEntity ride(String id) {
+        return RideEntity.builder()
+                .id(id)
+                .riderId("rider1")
+                .driverId("driver1")
+                .status(RideStatus.COMPLETED)
+                .rideType(RideType.STANDARD)
+                .fare(100.0)
+                .distance(10.0)
+                .surgeMultiplier(1.0)
+                .requestedAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}
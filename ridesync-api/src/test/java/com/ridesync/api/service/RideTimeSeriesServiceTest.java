@@ -0,0 +1,160 @@
+package com.ridesync.api.service;
+
+import com.ridesync.api.dto.TimeSeriesResponse;
+import com.ridesync.core.analytics.MinuteRing;
+import com.ridesync.core.analytics.TimeResolution;
+import com.ridesync.core.exception.InvalidQueryException;
+import com.ridesync.core.model.RideType;
+import com.ridesync.persistence.entity.RideRollupEntity;
+import com.ridesync.persistence.repository.RideRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ride activity time series and their rollups.
+ */
+@ExtendWith(MockitoExtension.class)
+class RideTimeSeriesServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 10, 9, 0);
+
+    @Mock
+    private RideRollupRepository rollupRepository;
+
+    private final Map<String, RideRollupEntity> stored = new HashMap<>();
+    private final AtomicLong now = new AtomicLong();
+    private RideTimeSeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        setTime(START.plusMinutes(10));
+        service = new RideTimeSeriesService(rollupRepository, new MinuteRing(60, now::get));
+    }
+
+    @Test
+    void testRollUpAddsClosedMinutesToHourlyAndDailyBuckets() {
+        storeRollups();
+        service.recordRequested(RideType.STANDARD, 2.0);
+        service.recordCompleted(RideType.STANDARD, 150.0);
+        setTime(START.plusMinutes(11));
+        service.recordRequested(RideType.POOL, 1.0);
+
+        setTime(START.plusMinutes(12));
+        service.rollUp();
+
+        // Minute 11 is held back in case of late writes
+        RideRollupEntity hour = stored.get(RideRollupEntity.idOf(TimeResolution.HOUR, START, RideType.STANDARD));
+        assertEquals(1, hour.getRequested());
+        assertEquals(150.0, hour.getRevenue());
+        assertNotNull(stored.get(RideRollupEntity.idOf(TimeResolution.DAY, START.toLocalDate().atStartOfDay(),
+                RideType.STANDARD)));
+        assertNull(stored.get(RideRollupEntity.idOf(TimeResolution.HOUR, START, RideType.POOL)));
+
+        setTime(START.plusMinutes(13));
+        service.rollUp();
+        assertEquals(1, stored.get(RideRollupEntity.idOf(TimeResolution.HOUR, START, RideType.POOL)).getRequested());
+        assertEquals(1, stored.get(RideRollupEntity.idOf(TimeResolution.HOUR, START, RideType.STANDARD)).getRequested(),
+                "Minutes are rolled up once");
+    }
+
+    @Test
+    void testFailedRollUpIsRetried() {
+        service.recordRequested(RideType.LUXURY, 1.8);
+        setTime(START.plusMinutes(12));
+        when(rollupRepository.findAllById(any())).thenThrow(new IllegalStateException("database down"));
+        service.rollUp();
+
+        storeRollups();
+        setTime(START.plusMinutes(13));
+        service.rollUp();
+        assertEquals(1, stored.get(RideRollupEntity.idOf(TimeResolution.HOUR, START, RideType.LUXURY)).getRequested());
+    }
+
+    @Test
+    void testHourlySeriesCombinesRollupsWithRecentMinutes() {
+        storeRollups();
+        RideRollupEntity earlier = RideRollupEntity.empty(TimeResolution.HOUR, START.minusHours(1), RideType.STANDARD);
+        earlier.setRequested(4);
+        earlier.setCompleted(3);
+        earlier.setRevenue(300.0);
+        earlier.setSurgeTotal(6.0);
+        when(rollupRepository.findRollups(TimeResolution.HOUR, START.minusHours(2), START.plusHours(1)))
+                .thenAnswer(invocation -> new ArrayList<>(List.of(earlier)));
+
+        service.recordRequested(RideType.STANDARD, 1.0);
+        service.recordRequested(RideType.POOL, 1.0);
+
+        TimeSeriesResponse series = service.getTimeSeries(START.minusHours(2), START.plusHours(1),
+                TimeResolution.HOUR, RideType.STANDARD);
+
+        assertEquals(3, series.getPoints().size());
+        assertEquals(0, series.getPoints().get(0).getRequested());
+        assertEquals(1.0, series.getPoints().get(0).getAverageSurge());
+        assertEquals(4, series.getPoints().get(1).getRequested());
+        assertEquals(1.5, series.getPoints().get(1).getAverageSurge());
+        assertEquals(300.0, series.getPoints().get(1).getRevenue());
+        assertEquals(1, series.getPoints().get(2).getRequested());
+        assertEquals(START, series.getPoints().get(2).getBucketStart());
+    }
+
+    @Test
+    void testMinuteSeriesComesFromMemory() {
+        service.recordRequested(RideType.POOL, 1.2);
+        setTime(START.plusMinutes(12));
+        service.recordCompleted(RideType.POOL, 80.0);
+
+        TimeSeriesResponse series = service.getTimeSeries(START.plusMinutes(10), START.plusMinutes(13),
+                TimeResolution.MINUTE, null);
+
+        assertEquals(List.of(1L, 0L, 0L), series.getPoints().stream().map(TimeSeriesResponse.Point::getRequested).toList());
+        assertEquals(80.0, series.getPoints().get(2).getRevenue());
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void testRejectsInvalidRanges() {
+        assertThrows(InvalidQueryException.class,
+                () -> service.getTimeSeries(START, START, TimeResolution.HOUR, null));
+        assertThrows(InvalidQueryException.class,
+                () -> service.getTimeSeries(START.minusYears(2), START, TimeResolution.MINUTE, null));
+    }
+
+    private void setTime(LocalDateTime time) {
+        now.set(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storeRollups() {
+        lenient().doAnswer(invocation -> {
+            List<RideRollupEntity> found = new ArrayList<>();
+            for (String id : (Iterable<String>) invocation.getArgument(0)) {
+                if (stored.containsKey(id)) {
+                    found.add(stored.get(id));
+                }
+            }
+            return found;
+        }).when(rollupRepository).findAllById(any());
+        lenient().doAnswer(invocation -> {
+            for (RideRollupEntity rollup : (Collection<RideRollupEntity>) invocation.getArgument(0)) {
+                stored.put(rollup.getId(), rollup);
+            }
+            return List.copyOf((Collection<RideRollupEntity>) invocation.getArgument(0));
+        }).when(rollupRepository).saveAll(any());
+    }
+}
@@ -0,0 +1,81 @@
+package com.ridesync.core.analytics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Drivers ranked by earnings, updated one completion at a time.
+ *
+ * Entries are kept in a skip list ordered by earnings, highest first, and
+ * indexed by driver id, so an update costs O(log D) and reading the top N
+ * costs O(N + log D) however many drivers there are. Updates of one driver
+ * are serialised by the index; readers iterate the skip list without
+ * locking and may briefly miss a driver whose entry is being replaced.
+ */
+public class Leaderboard {
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::earnings).reversed()
+            .thenComparing(Entry::driverId);
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+    /**
+     * A driver's earnings and completed rides.
+     */
+    public record Entry(String driverId, double earnings, long completedRides) {
+    }
+
+    /**
+     * Add to a driver's totals, entering the driver if not yet ranked.
+     * Negative amounts are allowed, for corrections.
+     */
+    public void add(String driverId, double earnings, long completedRides) {
+        entries.compute(driverId, (id, current) -> {
+            Entry updated = current == null
+                    ? new Entry(id, earnings, completedRides)
+                    : new Entry(id, current.earnings() + earnings, current.completedRides() + completedRides);
+            if (current != null) {
+                ranking.remove(current);
+            }
+            ranking.add(updated);
+            return updated;
+        });
+    }
+
+    public void remove(String driverId) {
+        entries.computeIfPresent(driverId, (id, current) -> {
+            ranking.remove(current);
+            return null;
+        });
+    }
+
+    public Optional<Entry> get(String driverId) {
+        return Optional.ofNullable(entries.get(driverId));
+    }
+
+    /**
+     * The highest-earning drivers, at most limit of them.
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (top.size() < limit && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    public Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,27 @@
+package com.ridesync.core.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Period a driver leaderboard covers: all time, the current day or the current week.
+ */
+public enum LeaderboardWindow {
+    ALL,
+    DAY,
+    WEEK;
+
+    /**
+     * Start of the window containing the given time; weeks start on Monday.
+     * All-time windows start at {@link LocalDateTime#MIN}.
+     */
+    public LocalDateTime start(LocalDateTime time) {
+        return switch (this) {
+            case ALL -> LocalDateTime.MIN;
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        };
+    }
+}
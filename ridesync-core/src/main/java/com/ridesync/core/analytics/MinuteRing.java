@@ -0,0 +1,150 @@
+package com.ridesync.core.analytics;
+
+import com.ridesync.core.model.RideType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-minute ride activity for the last few hours, recorded lock-free.
+ *
+ * The ring holds one bucket per minute, indexed by epoch minute modulo its
+ * size. Unlike {@link com.ridesync.core.surge.SlidingWindowCounter} a bucket
+ * is never reset in place: the first writer of a new minute swaps in a fresh
+ * one, so no increment is lost to a concurrent reset. A bucket is overwritten
+ * only once the ring has wrapped, so readers that roll minutes up into
+ * coarser buckets must do so within {@code minutes} of them closing.
+ */
+public class MinuteRing {
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongSupplier clock;
+
+    /**
+     * Activity per ride type within one epoch minute.
+     *
+     * @param epochMinute Minutes since the epoch, UTC
+     */
+    public record Minute(long epochMinute, Map<RideType, RideActivity> activity) {
+    }
+
+    public MinuteRing(int minutes) {
+        this(minutes, System::currentTimeMillis);
+    }
+
+    public MinuteRing(int minutes, LongSupplier clock) {
+        if (minutes < 2) {
+            throw new IllegalArgumentException("A minute ring needs at least 2 minutes, got " + minutes);
+        }
+        this.buckets = new AtomicReferenceArray<>(minutes);
+        this.clock = clock;
+    }
+
+    public void recordRequested(RideType rideType, double surgeMultiplier) {
+        Counters counters = current().counters[rideType.ordinal()];
+        counters.requested.increment();
+        counters.surgeTotal.add(surgeMultiplier);
+    }
+
+    public void recordCompleted(RideType rideType, double fare) {
+        Counters counters = current().counters[rideType.ordinal()];
+        counters.completed.increment();
+        counters.revenue.add(fare);
+    }
+
+    public void recordCancelled(RideType rideType) {
+        current().counters[rideType.ordinal()].cancelled.increment();
+    }
+
+    public long currentMinute() {
+        return clock.getAsLong() / MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Number of minutes the ring holds.
+     */
+    public int capacity() {
+        return buckets.length();
+    }
+
+    /**
+     * Minutes in {@code [fromMinute, toMinute)} that still hold activity, oldest first.
+     * The current minute may still change after it is read.
+     */
+    public List<Minute> minutes(long fromMinute, long toMinute) {
+        long current = currentMinute();
+        long oldest = Math.max(fromMinute, current - buckets.length() + 1);
+        long end = Math.min(toMinute, current + 1);
+        List<Minute> result = new ArrayList<>();
+        for (long minute = oldest; minute < end; minute++) {
+            Bucket bucket = buckets.get(index(minute));
+            if (bucket != null && bucket.epochMinute == minute) {
+                Map<RideType, RideActivity> activity = bucket.snapshot();
+                if (!activity.isEmpty()) {
+                    result.add(new Minute(minute, activity));
+                }
+            }
+        }
+        return result;
+    }
+
+    private Bucket current() {
+        long minute = currentMinute();
+        int index = index(minute);
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epochMinute >= minute) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(minute);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int index(long minute) {
+        return (int) Math.floorMod(minute, (long) buckets.length());
+    }
+
+    private static final class Bucket {
+        final long epochMinute;
+        final Counters[] counters = new Counters[RideType.values().length];
+
+        Bucket(long epochMinute) {
+            this.epochMinute = epochMinute;
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new Counters();
+            }
+        }
+
+        Map<RideType, RideActivity> snapshot() {
+            Map<RideType, RideActivity> activity = new EnumMap<>(RideType.class);
+            for (RideType rideType : RideType.values()) {
+                Counters c = counters[rideType.ordinal()];
+                RideActivity snapshot = new RideActivity(c.requested.sum(), c.completed.sum(),
+                        c.cancelled.sum(), c.revenue.sum(), c.surgeTotal.sum());
+                if (!snapshot.isEmpty()) {
+                    activity.put(rideType, snapshot);
+                }
+            }
+            return activity;
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder requested = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+        final DoubleAdder revenue = new DoubleAdder();
+        final DoubleAdder surgeTotal = new DoubleAdder();
+    }
+}
@@ -0,0 +1,31 @@
+package com.ridesync.core.analytics;
+
+/**
+ * Ride activity within one time bucket.
+ *
+ * @param requested Rides booked
+ * @param completed Rides completed
+ * @param cancelled Rides cancelled
+ * @param revenue Fares of the completed rides
+ * @param surgeTotal Sum of the surge multipliers of the booked rides
+ */
+public record RideActivity(long requested, long completed, long cancelled, double revenue, double surgeTotal) {
+
+    public static final RideActivity EMPTY = new RideActivity(0, 0, 0, 0.0, 0.0);
+
+    public RideActivity plus(RideActivity other) {
+        return new RideActivity(requested + other.requested, completed + other.completed,
+                cancelled + other.cancelled, revenue + other.revenue, surgeTotal + other.surgeTotal);
+    }
+
+    /**
+     * Mean surge multiplier of the booked rides, or 1.0 if there were none.
+     */
+    public double averageSurge() {
+        return requested == 0 ? 1.0 : surgeTotal / requested;
+    }
+
+    public boolean isEmpty() {
+        return requested == 0 && completed == 0 && cancelled == 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ridesync.core.analytics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Width of the buckets in a ride activity time series.
+ */
+public enum TimeResolution {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    TimeResolution(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Start of the bucket containing the given time.
+     */
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    public Duration getDuration() {
+        return unit.getDuration();
+    }
+}
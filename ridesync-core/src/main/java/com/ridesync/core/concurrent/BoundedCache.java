@@ -0,0 +1,164 @@
+package com.ridesync.core.concurrent;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrent cache bounded by size and by time since an entry was written.
+ *
+ * Entries live in a {@link ConcurrentHashMap}; a queue records the order keys
+ * were first inserted, and once the cache holds more than maxSize entries the
+ * oldest are evicted first. Replacing a value keeps the key's place in the
+ * queue but restarts its time to live. Expired entries are dropped when read.
+ * Queue nodes of keys removed some other way are skipped when reached, and
+ * the queue is trimmed once it holds twice maxSize nodes, so it stays bounded.
+ */
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<K>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private record Entry<V>(V value, long expiresAt, long sequence) {
+    }
+
+    private record Node<K>(K key, long sequence) {
+    }
+
+    public BoundedCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::nanoTime);
+    }
+
+    public BoundedCache(int maxSize, long ttlMillis, LongSupplier nanoClock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * The cached value, if present and not expired. Counts a hit or a miss.
+     */
+    public Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && nanoClock.getAsLong() - entry.expiresAt() >= 0) {
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.value());
+    }
+
+    public void put(K key, V value) {
+        write(key, value, true);
+    }
+
+    /**
+     * Cache the value unless the key already holds a live one. Lets a reader
+     * cache what it loaded without overwriting a newer value written meanwhile.
+     */
+    public void putIfAbsent(K key, V value) {
+        write(key, value, false);
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries removed to keep the cache within its size.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Entries dropped because their time to live had passed.
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Share of reads served from the cache, or 0 before the first read.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private void write(K key, V value, boolean replace) {
+        long now = nanoClock.getAsLong();
+        boolean[] inserted = new boolean[1];
+        Entry<V> entry = entries.compute(key, (k, current) -> {
+            boolean live = current != null && now - current.expiresAt() < 0;
+            inserted[0] = current == null;
+            if (live && !replace) {
+                return current;
+            }
+            return new Entry<>(value, now + ttlNanos, current == null ? sequence.incrementAndGet() : current.sequence());
+        });
+        if (inserted[0]) {
+            enqueue(new Node<>(key, entry.sequence()));
+        }
+        evict();
+    }
+
+    private void enqueue(Node<K> node) {
+        insertionOrder.add(node);
+        queued.incrementAndGet();
+    }
+
+    private void evict() {
+        while (entries.size() > maxSize || queued.get() > 2 * maxSize) {
+            Node<K> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            Entry<V> entry = entries.get(oldest.key());
+            if (entry == null || entry.sequence() != oldest.sequence()) {
+                continue; // removed or re-inserted since
+            }
+            if (entries.size() > maxSize && entries.remove(oldest.key(), entry)) {
+                evictions.increment();
+            } else {
+                enqueue(oldest); // only trimming stale nodes, or replaced meanwhile; keep the key tracked
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ridesync.core.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks selected by key hash.
+ * Operations on unrelated keys usually land on different stripes and run in
+ * parallel, while operations on the same key are always serialized.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param minimumStripes Lower bound on the number of stripes; rounded up to a power of two
+     */
+    public StripedLock(int minimumStripes) {
+        int count = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        this.stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Get the lock guarding the given key.
+     */
+    public ReentrantLock lockFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // spread high bits like HashMap does
+        return stripes[hash & mask];
+    }
+
+    /**
+     * Run an action while holding the lock for the given key.
+     */
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run an action while holding the lock for the given key.
+     */
+    public void withLock(Object key, Runnable action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
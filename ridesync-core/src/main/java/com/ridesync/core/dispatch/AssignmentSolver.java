@@ -0,0 +1,20 @@
+package com.ridesync.core.dispatch;
+
+/**
+ * Strategy interface for solving rider x driver assignment problems.
+ * Implementations minimise the total cost of a one-to-one matching.
+ */
+public interface AssignmentSolver {
+    /**
+     * Cost value marking a rider/driver pair that must not be matched.
+     */
+    double INFEASIBLE = Double.POSITIVE_INFINITY;
+
+    /**
+     * Solve the assignment problem for a cost matrix.
+     *
+     * @param cost cost[rider][driver], INFEASIBLE for forbidden pairs
+     * @return For each rider, the index of the assigned driver or -1 if unmatched
+     */
+    int[] solve(double[][] cost);
+}
@@ -0,0 +1,91 @@
+package com.ridesync.core.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Approximate minimum-cost assignment using Bertsekas' forward auction.
+ * Riders bid for drivers; each bid raises the driver's price by the bidder's
+ * margin over its second-best option plus epsilon. The result is within
+ * riders * epsilon of optimal and scales to large surge batches far better
+ * than the cubic Hungarian method.
+ */
+public class AuctionSolver implements AssignmentSolver {
+    private static final double DEFAULT_EPSILON = 0.01; // 10 metres of pickup distance
+
+    private final double epsilon;
+
+    public AuctionSolver() {
+        this(DEFAULT_EPSILON);
+    }
+
+    public AuctionSolver(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public int[] solve(double[][] cost) {
+        int riders = cost.length;
+        int drivers = riders == 0 ? 0 : cost[0].length;
+        int[] assignment = new int[riders];
+        Arrays.fill(assignment, -1);
+        if (riders == 0 || drivers == 0) {
+            return assignment;
+        }
+
+        // A rider stops bidding once every driver costs more than staying unmatched
+        double maxCost = 0;
+        for (double[] row : cost) {
+            for (double value : row) {
+                if (!Double.isInfinite(value)) {
+                    maxCost = Math.max(maxCost, value);
+                }
+            }
+        }
+        double unmatchedValue = -(2 * maxCost + 1);
+
+        double[] price = new double[drivers];
+        int[] owner = new int[drivers];
+        Arrays.fill(owner, -1);
+        Deque<Integer> unassigned = new ArrayDeque<>();
+        for (int i = 0; i < riders; i++) {
+            unassigned.add(i);
+        }
+
+        while (!unassigned.isEmpty()) {
+            int rider = unassigned.poll();
+            int bestDriver = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double secondValue = unmatchedValue;
+
+            for (int j = 0; j < drivers; j++) {
+                if (Double.isInfinite(cost[rider][j])) {
+                    continue;
+                }
+                double value = -cost[rider][j] - price[j];
+                if (value > bestValue) {
+                    secondValue = Math.max(secondValue, bestValue);
+                    bestValue = value;
+                    bestDriver = j;
+                } else if (value > secondValue) {
+                    secondValue = value;
+                }
+            }
+
+            if (bestDriver < 0 || bestValue < unmatchedValue) {
+                continue; // Rider drops out of this batch
+            }
+
+            price[bestDriver] += bestValue - secondValue + epsilon;
+            int previous = owner[bestDriver];
+            owner[bestDriver] = rider;
+            assignment[rider] = bestDriver;
+            if (previous >= 0) {
+                assignment[previous] = -1;
+                unassigned.add(previous);
+            }
+        }
+        return assignment;
+    }
+}
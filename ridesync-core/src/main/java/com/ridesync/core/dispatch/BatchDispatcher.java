@@ -0,0 +1,232 @@
+package com.ridesync.core.dispatch;
+
+import com.ridesync.core.exception.NoDriverAvailableException;
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.Ride;
+import com.ridesync.core.service.RideAllocator;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batched dispatch mode.
+ * Collects ride requests for a short window and assigns drivers to the whole
+ * batch at once by solving the rider x driver assignment problem, which gives
+ * a lower total pickup distance than greedy nearest-driver under surge load.
+ *
+ * Small batches are solved exactly with {@link HungarianSolver}; large ones
+ * switch to {@link AuctionSolver}. Rides the solver leaves unmatched, or whose
+ * chosen driver was taken in the meantime, fall back to
+ * {@link RideAllocator#assignDriver(Ride, DriverSpatialIndex)}.
+ *
+ * Every submitted future is completed, even if assigning a ride or a whole
+ * batch fails. Callers stop waiting after {@link #getAssignTimeoutMillis()};
+ * rides given up on are skipped, and a driver assigned to one just as it was
+ * given up on is released again.
+ */
+@Slf4j
+public class BatchDispatcher {
+    private static final int CANDIDATES_PER_RIDE = 8;
+    private static final double MAX_PICKUP_RADIUS_KM = 50.0;
+    private static final int AUCTION_THRESHOLD = 200;
+    private static final long DEFAULT_ASSIGN_TIMEOUT_MILLIS = 5000;
+
+    private final RideAllocator rideAllocator;
+    private final DriverSpatialIndex driverIndex;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long assignTimeoutMillis;
+    private final AssignmentSolver exactSolver = new HungarianSolver();
+    private final AssignmentSolver largeBatchSolver = new AuctionSolver();
+    private final ConcurrentLinkedQueue<PendingRide> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final DispatchMetrics metrics = new DispatchMetrics();
+    private ScheduledExecutorService scheduler;
+
+    public BatchDispatcher(RideAllocator rideAllocator, DriverSpatialIndex driverIndex,
+                           long windowMillis, int maxBatchSize) {
+        this(rideAllocator, driverIndex, windowMillis, maxBatchSize, DEFAULT_ASSIGN_TIMEOUT_MILLIS);
+    }
+
+    public BatchDispatcher(RideAllocator rideAllocator, DriverSpatialIndex driverIndex,
+                           long windowMillis, int maxBatchSize, long assignTimeoutMillis) {
+        this.rideAllocator = rideAllocator;
+        this.driverIndex = driverIndex;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.assignTimeoutMillis = assignTimeoutMillis;
+    }
+
+    /**
+     * Start dispatching a batch every window.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ride-batch-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dispatchPending, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        log.info("Batch dispatcher started with {} ms window", windowMillis);
+    }
+
+    /**
+     * Stop the scheduler and dispatch whatever is still queued.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        dispatchPending();
+    }
+
+    /**
+     * Queue a ride for the next batch.
+     *
+     * @return Future completed with the assigned driver, or exceptionally with
+     *         {@link NoDriverAvailableException}
+     */
+    public CompletableFuture<Driver> submit(Ride ride) {
+        CompletableFuture<Driver> result = new CompletableFuture<>();
+        pending.add(new PendingRide(ride, result));
+        pendingCount.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Dispatch everything queued so far in batches of at most maxBatchSize.
+     * Rides given up on by their caller are dropped; if a batch fails, its
+     * rides not yet assigned fail with the same error.
+     */
+    public void dispatchPending() {
+        while (!pending.isEmpty()) {
+            List<PendingRide> batch = new ArrayList<>();
+            PendingRide next;
+            while (batch.size() < maxBatchSize && (next = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                if (!next.result().isDone()) {
+                    batch.add(next);
+                }
+            }
+            try {
+                dispatchBatch(batch);
+            } catch (RuntimeException e) {
+                log.error("Batch dispatch failed", e);
+                batch.forEach(request -> request.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void dispatchBatch(List<PendingRide> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Union of each rider's nearest drivers forms the batch's driver pool
+        Map<String, Driver> pool = new LinkedHashMap<>();
+        for (PendingRide request : batch) {
+            for (Driver driver : driverIndex.findNearest(
+                    request.ride().getStartLocation(), CANDIDATES_PER_RIDE, MAX_PICKUP_RADIUS_KM)) {
+                pool.putIfAbsent(driver.getId(), driver);
+            }
+        }
+        List<Driver> drivers = new ArrayList<>(pool.values());
+
+        double[][] cost = new double[batch.size()][drivers.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            for (int j = 0; j < drivers.size(); j++) {
+                double distance = drivers.get(j).getCurrentLocation()
+                        .distanceTo(batch.get(i).ride().getStartLocation());
+                cost[i][j] = distance <= MAX_PICKUP_RADIUS_KM ? distance : AssignmentSolver.INFEASIBLE;
+            }
+        }
+
+        AssignmentSolver solver = batch.size() > AUCTION_THRESHOLD ? largeBatchSolver : exactSolver;
+        long solveStart = System.nanoTime();
+        int[] assignment = drivers.isEmpty() ? new int[0] : solver.solve(cost);
+        long solveNanos = System.nanoTime() - solveStart;
+
+        int matched = 0;
+        double pickupKm = 0.0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRide request = batch.get(i);
+            int driverIndexInPool = i < assignment.length ? assignment[i] : -1;
+            try {
+                if (driverIndexInPool >= 0) {
+                    Driver chosen = drivers.get(driverIndexInPool);
+                    if (rideAllocator.tryAssign(request.ride(), chosen, driverIndex)) {
+                        matched++;
+                        pickupKm += cost[i][driverIndexInPool];
+                        deliver(request, chosen);
+                        continue;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to assign ride {} from batch", request.ride().getId(), e);
+                request.result().completeExceptionally(e);
+                continue;
+            }
+            assignGreedily(request);
+        }
+
+        metrics.recordBatch(batch.size(), solveNanos, matched, pickupKm);
+        log.info("Dispatched batch of {} rides ({} solver matches) in {} ms",
+                batch.size(), matched, solveNanos / 1_000_000.0);
+    }
+
+    private void assignGreedily(PendingRide request) {
+        try {
+            deliver(request, rideAllocator.assignDriver(request.ride(), driverIndex));
+        } catch (RuntimeException e) {
+            request.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Hand the assigned driver to the caller, or release it if the caller
+     * gave up on the ride while it was being assigned.
+     */
+    private void deliver(PendingRide request, Driver driver) {
+        if (!request.result().complete(driver)) {
+            log.warn("Ride {} was given up on before dispatch, releasing driver {}",
+                    request.ride().getId(), driver.getId());
+            rideAllocator.releaseDriver(driver, driverIndex);
+        }
+    }
+
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * How long a caller should wait for its ride to be dispatched.
+     */
+    public long getAssignTimeoutMillis() {
+        return assignTimeoutMillis;
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private record PendingRide(Ride ride, CompletableFuture<Driver> result) {
+    }
+}
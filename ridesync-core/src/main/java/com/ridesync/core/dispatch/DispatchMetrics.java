@@ -0,0 +1,67 @@
+package com.ridesync.core.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing batched dispatch behaviour.
+ * Read by the API layer to publish batch size, solver time and match quality.
+ */
+public class DispatchMetrics {
+    private final AtomicLong batches = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder matchedRides = new LongAdder();
+    private final LongAdder solveNanos = new LongAdder();
+    private final DoubleAdder pickupKm = new DoubleAdder();
+    private volatile int lastBatchSize;
+    private volatile long lastSolveNanos;
+
+    void recordBatch(int batchSize, long solverNanos, int matched, double totalPickupKm) {
+        batches.incrementAndGet();
+        requests.add(batchSize);
+        matchedRides.add(matched);
+        solveNanos.add(solverNanos);
+        pickupKm.add(totalPickupKm);
+        lastBatchSize = batchSize;
+        lastSolveNanos = solverNanos;
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getMatchedRides() {
+        return matchedRides.sum();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return count == 0 ? 0.0 : (double) requests.sum() / count;
+    }
+
+    public double getLastSolveMillis() {
+        return lastSolveNanos / 1_000_000.0;
+    }
+
+    public double getAverageSolveMillis() {
+        long count = batches.get();
+        return count == 0 ? 0.0 : solveNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /**
+     * Mean driver-to-pickup distance over all solver-matched rides.
+     */
+    public double getAveragePickupKm() {
+        long matched = matchedRides.sum();
+        return matched == 0 ? 0.0 : pickupKm.sum() / matched;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ridesync.core.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Exact minimum-cost assignment using the Hungarian algorithm with potentials.
+ * Runs in O(n^2 * m) for n riders and m drivers, which is fine for the batch
+ * sizes produced by a few hundred milliseconds of bookings.
+ */
+public class HungarianSolver implements AssignmentSolver {
+    // Finite stand-in for infeasible pairs so potentials stay well defined
+    private static final double FORBIDDEN = 1e9;
+
+    @Override
+    public int[] solve(double[][] cost) {
+        int riders = cost.length;
+        int drivers = riders == 0 ? 0 : cost[0].length;
+        int[] assignment = new int[riders];
+        Arrays.fill(assignment, -1);
+        if (riders == 0 || drivers == 0) {
+            return assignment;
+        }
+
+        if (riders <= drivers) {
+            int[] matched = solveRowsToColumns(cost, riders, drivers, false);
+            for (int i = 0; i < riders; i++) {
+                assignment[i] = accept(cost, i, matched[i]);
+            }
+        } else {
+            // More riders than drivers: match each driver to a rider instead
+            int[] matched = solveRowsToColumns(cost, drivers, riders, true);
+            for (int j = 0; j < drivers; j++) {
+                int rider = matched[j];
+                if (rider >= 0 && accept(cost, rider, j) >= 0) {
+                    assignment[rider] = j;
+                }
+            }
+        }
+        return assignment;
+    }
+
+    private int accept(double[][] cost, int rider, int driver) {
+        return driver >= 0 && cost[rider][driver] < FORBIDDEN ? driver : -1;
+    }
+
+    /**
+     * Classic O(n^2 m) Hungarian algorithm for n <= m, 1-indexed internally.
+     */
+    private int[] solveRowsToColumns(double[][] cost, int n, int m, boolean transposed) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            double[] minv = new double[m + 1];
+            Arrays.fill(minv, Double.MAX_VALUE);
+            boolean[] used = new boolean[m + 1];
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.MAX_VALUE;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double current = entry(cost, i0 - 1, j - 1, transposed) - u[i0] - v[j];
+                    if (current < minv[j]) {
+                        minv[j] = current;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] matched = new int[n];
+        Arrays.fill(matched, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                matched[p[j] - 1] = j - 1;
+            }
+        }
+        return matched;
+    }
+
+    private double entry(double[][] cost, int row, int column, boolean transposed) {
+        double value = transposed ? cost[column][row] : cost[row][column];
+        return Double.isInfinite(value) ? FORBIDDEN : value;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ridesync.core.exception;
+
+import com.ridesync.core.model.RideStatus;
+
+/**
+ * Exception thrown when a ride cannot move to the requested status from the one it is in.
+ */
+public class IllegalRideTransitionException extends RuntimeException {
+    
+    public IllegalRideTransitionException(String rideId, RideStatus from, RideStatus to) {
+        super("Ride " + rideId + " cannot move from " + from + " to " + to);
+    }
+}
@@ -0,0 +1,16 @@
+package com.ridesync.core.exception;
+
+/**
+ * Exception thrown when a query's parameters are invalid, e.g. a malformed
+ * page cursor or a range too large to answer.
+ */
+public class InvalidQueryException extends RuntimeException {
+    
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+    
+    public InvalidQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
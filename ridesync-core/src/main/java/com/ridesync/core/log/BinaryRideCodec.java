@@ -0,0 +1,316 @@
+package com.ridesync.core.log;
+
+import com.ridesync.core.model.Location;
+import com.ridesync.core.model.LuxuryRide;
+import com.ridesync.core.model.PoolRide;
+import com.ridesync.core.model.Ride;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import com.ridesync.core.model.StandardRide;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of ride records.
+ *
+ * Layout (version 1, big-endian):
+ * <pre>
+ * magic u8 | version u8 | rideType i8 | status i8
+ * id | riderId | driverId                      ids, see below
+ * startLocation | endLocation                  present u8, lat f64, lon f64, address string ref
+ * requestedAt | startedAt | completedAt        local time as millis i64, Long.MIN_VALUE = null
+ * distance f64 | fare f64 | surgeMultiplier f64
+ * POOL:   maxPoolSize i16, count u8, ids
+ * LUXURY: premiumDriver u8, amenities string ref
+ * </pre>
+ * Enums are stored as ordinals (-1 = null), so new constants must only be
+ * appended. Ids of the form PREFIX-XXXXXXXX (8 hex digits) with a known
+ * prefix take 5 bytes; others are written as strings. Addresses and
+ * amenities go through a {@link StringDictionary} and take 2 bytes once known.
+ *
+ * Ride timestamps are zone-less local date-times. They are stored as millis
+ * since 1970-01-01T00:00 in that same local time, computed as if it were
+ * UTC. They are not real epoch instants, and they read back as the same
+ * wall-clock time, to the millisecond, whatever the zone of the reader.
+ */
+public class BinaryRideCodec implements RideCodec {
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 1;
+
+    private static final String[] ID_PREFIXES = {"RIDE-", "RDR-", "DRV-"};
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final byte ID_NULL = -1;
+    private static final byte ID_STRING = 0;
+    private static final short REF_NULL = -1;
+    private static final short REF_INLINE = -2;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final StringDictionary dictionary;
+
+    public BinaryRideCodec(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public byte[] encode(Ride ride) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(ordinal(ride.getRideType()));
+        out.writeByte(ordinal(ride.getStatus()));
+        writeId(out, ride.getId());
+        writeId(out, ride.getRiderId());
+        writeId(out, ride.getDriverId());
+        writeLocation(out, ride.getStartLocation());
+        writeLocation(out, ride.getEndLocation());
+        writeTime(out, ride.getRequestedAt());
+        writeTime(out, ride.getStartedAt());
+        writeTime(out, ride.getCompletedAt());
+        out.writeDouble(ride.getDistance());
+        out.writeDouble(ride.getFare());
+        out.writeDouble(ride.getSurgeMultiplier());
+
+        if (ride instanceof PoolRide poolRide) {
+            out.writeShort(poolRide.getMaxPoolSize());
+            List<String> pooled = poolRide.getPooledRiderIds() == null ? List.of() : poolRide.getPooledRiderIds();
+            if (pooled.size() > 0xff) {
+                throw new IOException("Too many pooled riders to encode: " + pooled.size());
+            }
+            out.writeByte(pooled.size());
+            for (String riderId : pooled) {
+                writeId(out, riderId);
+            }
+        } else if (ride instanceof LuxuryRide luxuryRide) {
+            out.writeBoolean(luxuryRide.isPremiumDriver());
+            writeRef(out, luxuryRide.getAmenities());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Whether a payload is a binary ride record.
+     */
+    public static boolean isBinary(byte[] payload) {
+        return payload.length >= 4 && payload[0] == MAGIC;
+    }
+
+    /**
+     * Ride type of a binary record, read from the header without decoding it.
+     */
+    public static RideType peekRideType(byte[] payload) {
+        return enumAt(RideType.values(), payload[2]);
+    }
+
+    /**
+     * Status of a binary record, read from the header without decoding it.
+     */
+    public static RideStatus peekStatus(byte[] payload) {
+        return enumAt(RideStatus.values(), payload[3]);
+    }
+
+    @Override
+    public Ride decode(byte[] payload) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        try {
+            if (in.get() != MAGIC) {
+                throw new IOException("Not a binary ride record");
+            }
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported ride record version " + version);
+            }
+
+            RideType rideType = enumAt(RideType.values(), in.get());
+            RideStatus status = enumAt(RideStatus.values(), in.get());
+            Ride ride = newRide(rideType);
+            ride.setRideType(rideType);
+            ride.restoreStatus(status);
+            ride.setId(readId(in));
+            ride.setRiderId(readId(in));
+            ride.setDriverId(readId(in));
+            ride.setStartLocation(readLocation(in));
+            ride.setEndLocation(readLocation(in));
+            ride.setRequestedAt(readTime(in));
+            ride.setStartedAt(readTime(in));
+            ride.setCompletedAt(readTime(in));
+            ride.setDistance(in.getDouble());
+            ride.setFare(in.getDouble());
+            ride.setSurgeMultiplier(in.getDouble());
+
+            if (ride instanceof PoolRide poolRide) {
+                poolRide.setMaxPoolSize(in.getShort());
+                int count = in.get() & 0xff;
+                List<String> pooled = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    pooled.add(readId(in));
+                }
+                poolRide.setPooledRiderIds(pooled);
+            } else if (ride instanceof LuxuryRide luxuryRide) {
+                luxuryRide.setPremiumDriver(in.get() != 0);
+                luxuryRide.setAmenities(readRef(in));
+            }
+            return ride;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed binary ride record", e);
+        }
+    }
+
+    private static Ride newRide(RideType rideType) {
+        if (rideType == null) {
+            throw new IllegalArgumentException("Ride record without a ride type");
+        }
+        return switch (rideType) {
+            case STANDARD -> new StandardRide();
+            case POOL -> new PoolRide();
+            case LUXURY -> new LuxuryRide();
+        };
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E enumAt(E[] values, byte ordinal) {
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown enum ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Known-prefix ids as prefix code plus the 8 hex digits packed into an int.
+     */
+    private static void writeId(DataOutputStream out, String id) throws IOException {
+        if (id == null) {
+            out.writeByte(ID_NULL);
+            return;
+        }
+        for (int code = 0; code < ID_PREFIXES.length; code++) {
+            String prefix = ID_PREFIXES[code];
+            if (id.length() == prefix.length() + 8 && id.startsWith(prefix) && isUpperHex(id, prefix.length())) {
+                out.writeByte(code + 1);
+                out.writeInt(Integer.parseUnsignedInt(id.substring(prefix.length()), 16));
+                return;
+            }
+        }
+        out.writeByte(ID_STRING);
+        writeString(out, id);
+    }
+
+    private static String readId(ByteBuffer in) {
+        byte code = in.get();
+        if (code == ID_NULL) {
+            return null;
+        }
+        if (code == ID_STRING) {
+            return readString(in);
+        }
+        if (code < 1 || code > ID_PREFIXES.length) {
+            throw new IllegalArgumentException("Unknown id prefix code " + code);
+        }
+        String prefix = ID_PREFIXES[code - 1];
+        int value = in.getInt();
+        char[] id = new char[prefix.length() + 8];
+        prefix.getChars(0, prefix.length(), id, 0);
+        for (int i = id.length - 1; i >= prefix.length(); i--) {
+            id[i] = HEX_DIGITS[value & 0xf];
+            value >>>= 4;
+        }
+        return new String(id);
+    }
+
+    private static boolean isUpperHex(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeLocation(DataOutputStream out, Location location) throws IOException {
+        if (location == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        out.writeDouble(location.getLatitude());
+        out.writeDouble(location.getLongitude());
+        writeRef(out, location.getAddress());
+    }
+
+    private Location readLocation(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return Location.builder()
+                .latitude(in.getDouble())
+                .longitude(in.getDouble())
+                .address(readRef(in))
+                .build();
+    }
+
+    /**
+     * A repeated string as its dictionary id, or inline if the dictionary cannot take it.
+     */
+    private void writeRef(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(REF_NULL);
+            return;
+        }
+        int id = dictionary.idFor(value);
+        if (id >= 0) {
+            out.writeShort(id);
+        } else {
+            out.writeShort(REF_INLINE);
+            writeString(out, value);
+        }
+    }
+
+    private String readRef(ByteBuffer in) {
+        short ref = in.getShort();
+        if (ref == REF_NULL) {
+            return null;
+        }
+        return ref == REF_INLINE ? readString(in) : dictionary.lookup(ref);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time == null ? NO_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in) {
+        long millis = in.getLong();
+        return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new IOException("String too long to encode: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xffff];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
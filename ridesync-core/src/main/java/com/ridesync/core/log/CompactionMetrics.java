@@ -0,0 +1,58 @@
+package com.ridesync.core.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing background compaction of a {@link SegmentedLog}.
+ * Read by the API layer to publish bytes reclaimed and compaction time.
+ */
+public class CompactionMetrics {
+    private final AtomicLong compactions = new AtomicLong();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytesReclaimed = new LongAdder();
+    private final LongAdder recordsDropped = new LongAdder();
+    private volatile CompactionResult last;
+
+    void recordCompaction(CompactionResult result) {
+        compactions.incrementAndGet();
+        bytesReclaimed.add(result.bytesReclaimed());
+        recordsDropped.add(result.recordsIn() - result.recordsOut());
+        last = result;
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getBytesReclaimed() {
+        return bytesReclaimed.sum();
+    }
+
+    /**
+     * Superseded records removed, e.g. the requested and started states of completed rides.
+     */
+    public long getRecordsDropped() {
+        return recordsDropped.sum();
+    }
+
+    /**
+     * The most recent compaction, or null if none has run.
+     */
+    public CompactionResult getLastCompaction() {
+        return last;
+    }
+
+    public long getLastDurationMillis() {
+        CompactionResult result = last;
+        return result == null ? 0 : result.durationMillis();
+    }
+}
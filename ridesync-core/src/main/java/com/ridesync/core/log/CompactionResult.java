@@ -0,0 +1,20 @@
+package com.ridesync.core.log;
+
+/**
+ * Outcome of one compaction of sealed log segments.
+ *
+ * @param segmentsIn Sealed segments rewritten
+ * @param segmentsOut Segments they were replaced by
+ * @param recordsIn Records read
+ * @param recordsOut Records kept, one per key
+ * @param bytesBefore On-disk size of the rewritten segments and their indexes
+ * @param bytesAfter On-disk size of the replacements
+ * @param durationMillis Wall-clock time of the whole compaction
+ */
+public record CompactionResult(int segmentsIn, int segmentsOut, long recordsIn, long recordsOut,
+                               long bytesBefore, long bytesAfter, long durationMillis) {
+
+    public long bytesReclaimed() {
+        return bytesBefore - bytesAfter;
+    }
+}
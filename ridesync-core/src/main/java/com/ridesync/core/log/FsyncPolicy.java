@@ -0,0 +1,13 @@
+package com.ridesync.core.log;
+
+/**
+ * When the group-commit writer forces written batches to disk.
+ */
+public enum FsyncPolicy {
+    /** Never fsync; the OS writes pages back on its own schedule. */
+    NONE,
+    /** Fsync at most once per configured interval. */
+    INTERVAL,
+    /** Fsync after every batch, before the next batch is started. */
+    EVERY_BATCH
+}
@@ -0,0 +1,310 @@
+package com.ridesync.core.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous append-only log writer with group commit.
+ * Producers publish records into a preallocated ring buffer and return
+ * immediately; a single consumer thread drains everything published so far
+ * and hands it to the {@link LogSink} as one batch, then syncs according to
+ * the {@link FsyncPolicy}. When the buffer is full, producers wait for the
+ * consumer to catch up (backpressure) instead of growing memory.
+ *
+ * A batch the sink fails to write is retried with backoff from the first
+ * record not yet written, holding up producers once the buffer fills. If
+ * it still fails, the writer fails: appends throw, and the records it could
+ * not write are counted as failed rather than written.
+ *
+ * Sequences are claimed with a CAS on a shared counter; a slot becomes
+ * readable once its published sequence matches, so producers never lock.
+ */
+@Slf4j
+public class GroupCommitWriter implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    static final int MAX_WRITE_ATTEMPTS = 5;
+    private static final long MIN_RETRY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LogSink sink;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final int capacity;
+    private final int mask;
+    private final LogRecord[] slots;
+    // Sequence last published into each slot
+    private final AtomicLongArray published;
+    // Last sequence handed to a producer
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // Last sequence handed to the sink
+    private final AtomicLong written = new AtomicLong(-1);
+    private final LogWriterMetrics metrics = new LogWriterMetrics();
+    private final Thread consumer;
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+    // Set once a batch could not be written; nothing is written after it
+    private volatile Throwable failure;
+
+    // Owned by the consumer thread
+    private final LogRecord[] batch;
+    private long lastFsyncNanos = System.nanoTime();
+    private boolean unsynced;
+
+    /**
+     * Start the consumer thread writing into the sink.
+     *
+     * @param sink Where batches are written; owned and closed by this writer
+     * @param capacity Ring buffer size in records, rounded up to a power of two
+     * @param fsyncPolicy When written batches are forced to disk
+     * @param fsyncIntervalMillis Minimum time between fsyncs for {@link FsyncPolicy#INTERVAL}
+     */
+    public GroupCommitWriter(LogSink sink, int capacity, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new LogRecord[size];
+        this.batch = new LogRecord[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.sink = sink;
+
+        this.consumer = new Thread(this::drain, "ride-log-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Queue a record for writing. Returns once the record is in the buffer,
+     * waiting first if the buffer is full.
+     *
+     * @throws IllegalStateException if the writer has been closed or has failed
+     */
+    public void append(LogRecord record) {
+        long sequence;
+        boolean waited = false;
+        while (true) {
+            checkNotFailed();
+            if (closed) {
+                throw new IllegalStateException("Ride log writer is closed");
+            }
+            long current = claimed.get();
+            sequence = current + 1;
+            if (sequence - written.get() > capacity) {
+                if (!waited) {
+                    metrics.recordProducerWait();
+                    waited = true;
+                }
+                LockSupport.unpark(consumer);
+                LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+                continue;
+            }
+            if (claimed.compareAndSet(current, sequence)) {
+                break;
+            }
+        }
+
+        int index = (int) (sequence & mask);
+        slots[index] = record;
+        published.set(index, sequence);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Wait until every record appended before this call has been handed to
+     * the sink (not necessarily synced).
+     *
+     * @throws IllegalStateException if the writer has failed
+     */
+    public void flush() {
+        long target = claimed.get();
+        while (written.get() < target && consumer.isAlive()) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+        }
+        checkNotFailed();
+    }
+
+    /**
+     * Write out everything already queued, sync and close the sink.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sink.sync();
+            sink.close();
+        } catch (IOException e) {
+            log.error("Failed to close ride log", e);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Records queued but not yet written.
+     */
+    public int getQueueDepth() {
+        return (int) Math.max(claimed.get() - written.get(), 0);
+    }
+
+    public LogWriterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Why the writer stopped writing, or null if it has not failed.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    private void checkNotFailed() {
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("Ride log writer failed", cause);
+        }
+    }
+
+    private void drain() {
+        long next = 0;
+        while (true) {
+            int count = 0;
+            while (count < capacity) {
+                int index = (int) (next & mask);
+                if (published.get(index) != next) {
+                    break;
+                }
+                batch[count++] = slots[index];
+                slots[index] = null;
+                next++;
+            }
+
+            if (count > 0) {
+                if (failure == null) {
+                    writeBatch(count);
+                } else {
+                    Arrays.fill(batch, 0, count, null);
+                    metrics.recordFailed(count);
+                }
+                written.set(next - 1);
+                continue;
+            }
+            if (closed && next > claimed.get()) {
+                return;
+            }
+
+            fsyncIfDue();
+            consumerParked = true;
+            if (published.get((int) (next & mask)) != next && !closed) {
+                LockSupport.parkNanos(this, idleParkNanos());
+            }
+            consumerParked = false;
+        }
+    }
+
+    private void writeBatch(int count) {
+        long start = System.nanoTime();
+        int done = 0;
+        long backoffNanos = MIN_RETRY_BACKOFF_NANOS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (done < count) {
+                    sink.write(batch, done, count - done);
+                    done = count;
+                    unsynced = true;
+                }
+                if (fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+                    fsync();
+                } else {
+                    fsyncIfDue();
+                }
+                break;
+            } catch (IOException | RuntimeException e) {
+                if (e instanceof LogWriteException partial) {
+                    done += partial.getAppended();
+                }
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    log.error("Failed to write ride log after {} attempts, {} records lost",
+                            attempt, count - done, e);
+                    failure = e;
+                    break;
+                }
+                log.warn("Failed to write ride log, retrying in {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(backoffNanos), e);
+                LockSupport.parkNanos(this, backoffNanos);
+                backoffNanos = Math.min(backoffNanos * 2, MAX_RETRY_BACKOFF_NANOS);
+            }
+        }
+
+        long bytes = 0;
+        for (int i = 0; i < done; i++) {
+            bytes += batch[i].payload().length;
+        }
+        Arrays.fill(batch, 0, count, null);
+        if (done > 0) {
+            metrics.recordBatch(done, bytes, System.nanoTime() - start);
+        }
+        if (done < count) {
+            metrics.recordFailed(count - done);
+        }
+    }
+
+    private void fsyncIfDue() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && unsynced
+                && System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos) {
+            try {
+                fsync();
+            } catch (IOException e) {
+                log.error("Failed to fsync ride log", e);
+            }
+        }
+    }
+
+    private void fsync() throws IOException {
+        sink.sync();
+        lastFsyncNanos = System.nanoTime();
+        unsynced = false;
+        metrics.recordFsync();
+    }
+
+    /**
+     * Park until new records arrive, or until the next interval fsync is due.
+     */
+    private long idleParkNanos() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && unsynced) {
+            long untilDue = fsyncIntervalNanos - (System.nanoTime() - lastFsyncNanos);
+            return Math.max(Math.min(untilDue, IDLE_PARK_NANOS), 1);
+        }
+        return IDLE_PARK_NANOS;
+    }
+}
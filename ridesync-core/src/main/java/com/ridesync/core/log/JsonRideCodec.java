@@ -0,0 +1,34 @@
+package com.ridesync.core.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridesync.core.model.Ride;
+
+import java.io.IOException;
+
+/**
+ * Ride records as JSON; the subclass is chosen from the rideType property.
+ */
+public class JsonRideCodec implements RideCodec {
+    private final ObjectMapper objectMapper;
+
+    public JsonRideCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Whether a payload looks like a JSON record rather than a binary one.
+     */
+    public static boolean isJson(byte[] payload) {
+        return payload.length > 0 && payload[0] == '{';
+    }
+
+    @Override
+    public byte[] encode(Ride ride) throws IOException {
+        return objectMapper.writeValueAsBytes(ride);
+    }
+
+    @Override
+    public Ride decode(byte[] payload) throws IOException {
+        return objectMapper.readValue(payload, Ride.class);
+    }
+}
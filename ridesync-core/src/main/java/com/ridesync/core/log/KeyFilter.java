@@ -0,0 +1,53 @@
+package com.ridesync.core.log;
+
+/**
+ * Bloom filter over the keys of one sealed segment, built from the key
+ * hashes in its {@link SegmentIndex}. At 10 bits per key it answers about
+ * one lookup in a hundred wrongly with "maybe", and never misses a key
+ * that is there, so it is small enough to keep for every segment.
+ */
+final class KeyFilter {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_COUNT = 7;
+
+    private final long[] bits;
+    private final int bitCount;
+
+    private KeyFilter(int bitCount) {
+        this.bits = new long[(bitCount + 63) >>> 6];
+        this.bitCount = bits.length * 64;
+    }
+
+    static KeyFilter of(long[] keyHashes) {
+        KeyFilter filter = new KeyFilter(Math.max(keyHashes.length * BITS_PER_KEY, 64));
+        for (long hash : keyHashes) {
+            filter.add(hash);
+        }
+        return filter;
+    }
+
+    /**
+     * Whether the segment may hold the key with this {@link SegmentIndex#hash}.
+     */
+    boolean mightContain(long keyHash) {
+        // Double hashing: bit i is h1 + i * h2, from the two halves of the 64-bit hash
+        int h1 = (int) keyHash;
+        int h2 = (int) (keyHash >>> 32);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(long keyHash) {
+        int h1 = (int) keyHash;
+        int h2 = (int) (keyHash >>> 32);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+}
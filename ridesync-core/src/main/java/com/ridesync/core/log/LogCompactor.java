@@ -0,0 +1,330 @@
+package com.ridesync.core.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Rewrites records so only the latest one per key remains, in bounded memory.
+ *
+ * Every record is numbered in log order as it comes in. Records are
+ * collected into a sorted in-memory run, later records of a key replacing
+ * earlier ones, until the memory budget is used up; the run is then spilled
+ * to a temporary file. The runs are merged by key, and for equal keys the
+ * record with the highest number wins. The survivors are sorted back into
+ * log order, spilling again if they do not fit the budget, so compacted
+ * segments read in the order the records were written. Output segments are
+ * written next to the log as {@code compaction-N.seg} with their index;
+ * installing them in place of the inputs is up to {@link SegmentedLog}.
+ */
+final class LogCompactor {
+    static final String OUTPUT_PREFIX = "compaction-";
+    // Rough heap cost of a buffered record beyond its key and payload
+    private static final int RECORD_OVERHEAD_BYTES = 96;
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+    private static final Comparator<Entry> LOG_ORDER = Comparator.comparingLong(Entry::sequence);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long memoryBytes;
+    private final List<Path> runFiles = new ArrayList<>();
+    private final List<Output> outputs = new ArrayList<>();
+    private long recordsIn;
+    private long recordsOut;
+
+    /**
+     * One rewritten segment, not yet installed.
+     */
+    record Output(Path segmentFile, Path indexFile, SegmentIndex index, int length) {
+
+        /**
+         * File name shared by the segment and its index, without extension.
+         */
+        String name() {
+            String fileName = segmentFile.getFileName().toString();
+            return fileName.substring(0, fileName.length() - ".seg".length());
+        }
+    }
+
+    /**
+     * A record and its position in the input.
+     */
+    private record Entry(long sequence, LogRecord record) {
+    }
+
+    LogCompactor(Path directory, int segmentBytes, long memoryBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * Compact records given in log order. Temporary run files are always
+     * removed; output files are removed if compaction fails.
+     */
+    List<Output> compact(Iterator<LogRecord> records) throws IOException {
+        try {
+            TreeMap<String, Entry> run = new TreeMap<>();
+            long runBytes = 0;
+            while (records.hasNext()) {
+                LogRecord record = records.next();
+                Entry replaced = run.put(record.key(), new Entry(recordsIn++, record));
+                runBytes += replaced == null
+                        ? sizeOf(record) : record.payload().length - replaced.record().payload().length;
+                if (runBytes >= memoryBytes) {
+                    spill(run.values());
+                    run.clear();
+                    runBytes = 0;
+                }
+            }
+
+            OutputWriter writer = new OutputWriter();
+            if (runFiles.isEmpty()) {
+                List<Entry> latest = new ArrayList<>(run.values());
+                latest.sort(LOG_ORDER);
+                writer.writeAll(latest);
+            } else {
+                if (!run.isEmpty()) {
+                    spill(run.values());
+                    run.clear();
+                }
+                mergeRuns(writer);
+            }
+            writer.finish();
+            return outputs;
+        } catch (IOException | RuntimeException e) {
+            for (Output output : outputs) {
+                Files.deleteIfExists(output.segmentFile());
+                Files.deleteIfExists(output.indexFile());
+            }
+            throw e;
+        } finally {
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+    }
+
+    long getRecordsIn() {
+        return recordsIn;
+    }
+
+    long getRecordsOut() {
+        return recordsOut;
+    }
+
+    private static long sizeOf(LogRecord record) {
+        return 2L * record.key().length() + record.payload().length + RECORD_OVERHEAD_BYTES;
+    }
+
+    private void spill(Collection<Entry> entries) throws IOException {
+        Path runFile = directory.resolve(OUTPUT_PREFIX + "run-" + runFiles.size() + ".tmp");
+        runFiles.add(runFile);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(runFile), IO_BUFFER_BYTES))) {
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                byte[] key = entry.record().key().getBytes(StandardCharsets.UTF_8);
+                out.writeLong(entry.sequence());
+                out.writeShort(key.length);
+                out.write(key);
+                out.writeInt(entry.record().payload().length);
+                out.write(entry.record().payload());
+            }
+        }
+    }
+
+    /**
+     * K-way merge of the spilled key-sorted runs down to the latest record
+     * per key, then of the log-ordered runs the survivors are sorted into.
+     */
+    private void mergeRuns(OutputWriter writer) throws IOException {
+        List<Path> keyRuns = List.copyOf(runFiles);
+        List<Entry> survivors = new ArrayList<>();
+        long survivorBytes = 0;
+        PriorityQueue<Cursor> byKey = new PriorityQueue<>(
+                Comparator.comparing((Cursor cursor) -> cursor.current.record().key())
+                        .thenComparing(Comparator.comparingLong((Cursor cursor) -> cursor.current.sequence())
+                                .reversed()));
+        try (Cursors cursors = new Cursors(keyRuns, byKey)) {
+            while (!byKey.isEmpty()) {
+                Cursor newest = byKey.poll();
+                Entry entry = newest.current;
+                survivors.add(entry);
+                survivorBytes += sizeOf(entry.record());
+                cursors.requeue(newest);
+                while (!byKey.isEmpty() && byKey.peek().current.record().key().equals(entry.record().key())) {
+                    cursors.requeue(byKey.poll());
+                }
+                if (survivorBytes >= memoryBytes) {
+                    survivors.sort(LOG_ORDER);
+                    spill(survivors);
+                    survivors.clear();
+                    survivorBytes = 0;
+                }
+            }
+        }
+
+        survivors.sort(LOG_ORDER);
+        if (runFiles.size() == keyRuns.size()) {
+            writer.writeAll(survivors);
+            return;
+        }
+        if (!survivors.isEmpty()) {
+            spill(survivors);
+        }
+        List<Path> orderRuns = List.copyOf(runFiles.subList(keyRuns.size(), runFiles.size()));
+        PriorityQueue<Cursor> byOrder = new PriorityQueue<>(
+                Comparator.comparingLong((Cursor cursor) -> cursor.current.sequence()));
+        try (Cursors cursors = new Cursors(orderRuns, byOrder)) {
+            while (!byOrder.isEmpty()) {
+                Cursor next = byOrder.poll();
+                writer.write(next.current.record());
+                cursors.requeue(next);
+            }
+        }
+    }
+
+    /**
+     * Cursors over a set of run files, queued while they have records left.
+     */
+    private static final class Cursors implements AutoCloseable {
+        private final List<Cursor> cursors = new ArrayList<>();
+        private final PriorityQueue<Cursor> queue;
+
+        Cursors(List<Path> runs, PriorityQueue<Cursor> queue) throws IOException {
+            this.queue = queue;
+            try {
+                for (Path run : runs) {
+                    Cursor cursor = new Cursor(run);
+                    cursors.add(cursor);
+                    requeue(cursor);
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        void requeue(Cursor cursor) throws IOException {
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    private static final class Cursor {
+        private final DataInputStream in;
+        private int remaining;
+        Entry current;
+
+        Cursor(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_BYTES));
+            this.remaining = in.readInt();
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            long sequence = in.readLong();
+            byte[] key = in.readNBytes(in.readUnsignedShort());
+            byte[] payload = in.readNBytes(in.readInt());
+            current = new Entry(sequence, new LogRecord(new String(key, StandardCharsets.UTF_8), payload));
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes framed records into output segments of at most segmentBytes,
+     * collecting each segment's index as it goes.
+     */
+    private final class OutputWriter {
+        private FileChannel channel;
+        private OutputStream out;
+        private int position;
+        private long[] hashes = new long[1024];
+        private int[] offsets = new int[1024];
+        private int count;
+
+        void write(LogRecord record) throws IOException {
+            byte[] frame = SegmentedLog.frame(record.key(), record.payload(), -1);
+            if (out != null && position + frame.length > segmentBytes) {
+                finish();
+            }
+            if (out == null) {
+                start();
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = SegmentIndex.hash(record.key());
+            offsets[count++] = position;
+            out.write(frame);
+            position += frame.length;
+            recordsOut++;
+        }
+
+        void writeAll(List<Entry> entries) throws IOException {
+            for (Entry entry : entries) {
+                write(entry.record());
+            }
+        }
+
+        void finish() throws IOException {
+            if (out == null) {
+                return;
+            }
+            Output output = outputs.get(outputs.size() - 1);
+            out.flush();
+            channel.force(true);
+            out.close();
+            out = null;
+            SegmentIndex index = SegmentIndex.of(hashes, offsets, count);
+            index.write(output.indexFile());
+            outputs.set(outputs.size() - 1, new Output(output.segmentFile(), output.indexFile(), index, position));
+        }
+
+        private void start() throws IOException {
+            String name = OUTPUT_PREFIX + outputs.size();
+            Path segmentFile = directory.resolve(name + ".seg");
+            outputs.add(new Output(segmentFile, directory.resolve(name + ".idx"), null, 0));
+            channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            out = new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_BYTES);
+            position = 0;
+            count = 0;
+        }
+    }
+}
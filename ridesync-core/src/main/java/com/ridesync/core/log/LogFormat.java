@@ -0,0 +1,12 @@
+package com.ridesync.core.log;
+
+/**
+ * Encoding of ride records written to the log.
+ * Readers accept both, so the format can be switched on an existing log.
+ */
+public enum LogFormat {
+    /** Jackson JSON, one object per record. */
+    JSON,
+    /** Compact versioned binary encoding, see {@link BinaryRideCodec}. */
+    BINARY
+}
@@ -0,0 +1,41 @@
+package com.ridesync.core.log;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Tuning of the ride log: record format, write buffering, durability, segment layout and compaction.
+ */
+@Getter
+@Builder
+public class LogOptions {
+    // Encoding of new records; both formats are always readable
+    @Builder.Default
+    private LogFormat format = LogFormat.BINARY;
+    // Ride events that can be queued before producers block
+    @Builder.Default
+    private int bufferSize = 8192;
+    @Builder.Default
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+    @Builder.Default
+    private long fsyncIntervalMillis = 1000;
+    // Size each segment file is mapped at; a segment rolls when the next record does not fit
+    @Builder.Default
+    private int segmentBytes = 64 * 1024 * 1024;
+    // Age after which a non-empty segment rolls on the next write (0 = size only)
+    @Builder.Default
+    private long rollIntervalMillis = 60 * 60 * 1000;
+    // Gzip segments once sealed
+    @Builder.Default
+    private boolean compressSealedSegments = false;
+    // How often sealed segments are compacted to the latest record per ride (0 = never)
+    @Builder.Default
+    private long compactionIntervalMillis = 15 * 60 * 1000;
+    // Records held in memory while compacting before a sorted run is spilled to disk
+    @Builder.Default
+    private long compactionMemoryBytes = 16 * 1024 * 1024;
+
+    public static LogOptions defaults() {
+        return LogOptions.builder().build();
+    }
+}
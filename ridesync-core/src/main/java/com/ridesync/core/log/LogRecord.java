@@ -0,0 +1,7 @@
+package com.ridesync.core.log;
+
+/**
+ * One entry in the ride log: the ride it belongs to and its encoded event.
+ */
+public record LogRecord(String key, byte[] payload) {
+}
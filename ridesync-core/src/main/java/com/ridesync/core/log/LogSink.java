@@ -0,0 +1,24 @@
+package com.ridesync.core.log;
+
+import java.io.IOException;
+
+/**
+ * Destination of batches drained by a {@link GroupCommitWriter}.
+ * Only ever called from the writer's consumer thread.
+ */
+public interface LogSink {
+
+    /**
+     * Append count records of the batch starting at offset, in order.
+     *
+     * @throws LogWriteException if it failed after appending some of them
+     */
+    void write(LogRecord[] batch, int offset, int count) throws IOException;
+
+    /**
+     * Force everything written so far to durable storage.
+     */
+    void sync() throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.ridesync.core.log;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a {@link LogSink} when appending a batch failed part way
+ * through; the records before the one that failed have been appended.
+ */
+public class LogWriteException extends IOException {
+    private final int appended;
+
+    public LogWriteException(int appended, Throwable cause) {
+        super("Ride log write failed after " + appended + " records", cause);
+        this.appended = appended;
+    }
+
+    /**
+     * Number of records from the start of the batch that were appended.
+     */
+    public int getAppended() {
+        return appended;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ridesync.core.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing group-commit behaviour of a {@link GroupCommitWriter}.
+ * Read by the API layer to publish batch size, flush latency and backpressure.
+ */
+public class LogWriterMetrics {
+    private final AtomicLong batches = new AtomicLong();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder producerWaits = new LongAdder();
+    private final LongAdder failedRecords = new LongAdder();
+    private volatile int lastBatchSize;
+    private volatile long lastFlushNanos;
+
+    void recordBatch(int batchSize, long batchBytes, long nanos) {
+        batches.incrementAndGet();
+        records.add(batchSize);
+        bytes.add(batchBytes);
+        flushNanos.add(nanos);
+        lastBatchSize = batchSize;
+        lastFlushNanos = nanos;
+    }
+
+    void recordFsync() {
+        fsyncs.increment();
+    }
+
+    void recordProducerWait() {
+        producerWaits.increment();
+    }
+
+    void recordFailed(int recordCount) {
+        failedRecords.add(recordCount);
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    /**
+     * Records that were queued but never written because the writer failed.
+     */
+    public long getFailedRecordCount() {
+        return failedRecords.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytes.sum();
+    }
+
+    public long getFsyncCount() {
+        return fsyncs.sum();
+    }
+
+    /**
+     * Number of times a producer found the buffer full and had to wait.
+     */
+    public long getProducerWaits() {
+        return producerWaits.sum();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return count == 0 ? 0.0 : (double) records.sum() / count;
+    }
+
+    /**
+     * Time to write the last batch, including its fsync if one was due.
+     */
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    public double getAverageFlushMillis() {
+        long count = batches.get();
+        return count == 0 ? 0.0 : flushNanos.sum() / 1_000_000.0 / count;
+    }
+}
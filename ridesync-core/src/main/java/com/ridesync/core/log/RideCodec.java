@@ -0,0 +1,18 @@
+package com.ridesync.core.log;
+
+import com.ridesync.core.model.Ride;
+
+import java.io.IOException;
+
+/**
+ * Converts rides to and from ride log payloads.
+ */
+public interface RideCodec {
+
+    byte[] encode(Ride ride) throws IOException;
+
+    /**
+     * Decode a payload back into the matching {@link Ride} subclass.
+     */
+    Ride decode(byte[] payload) throws IOException;
+}
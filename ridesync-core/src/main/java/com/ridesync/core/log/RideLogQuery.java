@@ -0,0 +1,59 @@
+package com.ridesync.core.log;
+
+import com.ridesync.core.model.Ride;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Filter for reading ride log records.
+ * Unset criteria match everything. The time range applies to when the ride
+ * was requested: from inclusive, to exclusive.
+ */
+@Getter
+@Builder
+public class RideLogQuery {
+    public static final RideLogQuery ALL = RideLogQuery.builder().build();
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final Set<RideType> rideTypes;
+    private final Set<RideStatus> statuses;
+
+    /**
+     * Cheap pre-check on an encoded record. Binary records carry type and
+     * status in their header, so non-matching ones are skipped without
+     * decoding; JSON records always pass to {@link #matches(Ride)}.
+     */
+    public boolean mayMatch(byte[] payload) {
+        if (!BinaryRideCodec.isBinary(payload)) {
+            return true;
+        }
+        try {
+            return (rideTypes == null || rideTypes.contains(BinaryRideCodec.peekRideType(payload)))
+                    && (statuses == null || statuses.contains(BinaryRideCodec.peekStatus(payload)));
+        } catch (IllegalArgumentException e) {
+            return true; // let the decoder report the damaged record
+        }
+    }
+
+    public boolean matches(Ride ride) {
+        if (rideTypes != null && !rideTypes.contains(ride.getRideType())) {
+            return false;
+        }
+        if (statuses != null && !statuses.contains(ride.getStatus())) {
+            return false;
+        }
+        if (from == null && to == null) {
+            return true;
+        }
+        LocalDateTime requestedAt = ride.getRequestedAt();
+        return requestedAt != null
+                && (from == null || !requestedAt.isBefore(from))
+                && (to == null || requestedAt.isBefore(to));
+    }
+}
@@ -0,0 +1,139 @@
+package com.ridesync.core.log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Sparse index of one sealed segment: for every key in the segment, the
+ * offset of its latest record. Earlier records of the same key are reached
+ * through the back-pointer stored in each record, so the index holds one
+ * entry per ride rather than one per event.
+ *
+ * Entries are sorted by a 64-bit hash of the key; a hash match is only a
+ * candidate and must be confirmed against the key stored in the record.
+ */
+final class SegmentIndex {
+    private static final int MAGIC = 0x52494458; // "RIDX"
+
+    private final long[] hashes;
+    private final int[] offsets;
+
+    private SegmentIndex(long[] hashes, int[] offsets) {
+        this.hashes = hashes;
+        this.offsets = offsets;
+    }
+
+    static SegmentIndex of(Map<String, Integer> latestOffsets) {
+        long[] hashes = new long[latestOffsets.size()];
+        int[] offsets = new int[latestOffsets.size()];
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : latestOffsets.entrySet()) {
+            hashes[count] = hash(entry.getKey());
+            offsets[count++] = entry.getValue();
+        }
+        return of(hashes, offsets, count);
+    }
+
+    /**
+     * Index over the first count (key hash, offset) pairs, in any order.
+     */
+    static SegmentIndex of(long[] keyHashes, int[] keyOffsets, int count) {
+        record Entry(long hash, int offset) {
+        }
+        List<Entry> entries = IntStream.range(0, count)
+                .mapToObj(i -> new Entry(keyHashes[i], keyOffsets[i]))
+                .sorted(Comparator.comparingLong(Entry::hash).thenComparingInt(Entry::offset))
+                .toList();
+        long[] hashes = new long[entries.size()];
+        int[] offsets = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            hashes[i] = entries.get(i).hash();
+            offsets[i] = entries.get(i).offset();
+        }
+        return new SegmentIndex(hashes, offsets);
+    }
+
+    static SegmentIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a segment index: " + file);
+            }
+            int count = in.readInt();
+            long[] hashes = new long[count];
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                hashes[i] = in.readLong();
+                offsets[i] = in.readInt();
+            }
+            return new SegmentIndex(hashes, offsets);
+        }
+    }
+
+    /**
+     * Write the index next to its segment, atomically replacing any old one.
+     */
+    void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(hashes.length);
+            for (int i = 0; i < hashes.length; i++) {
+                out.writeLong(hashes[i]);
+                out.writeInt(offsets[i]);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    int size() {
+        return hashes.length;
+    }
+
+    KeyFilter keyFilter() {
+        return KeyFilter.of(hashes);
+    }
+
+    /**
+     * Offsets of records whose key hashes like the given key.
+     */
+    int[] candidates(String key) {
+        long hash = hash(key);
+        int low = 0;
+        int high = hashes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hashes[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < hashes.length && hashes[end] == hash) {
+            end++;
+        }
+        return Arrays.copyOfRange(offsets, low, end);
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's UTF-8 bytes, stable across JVMs.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,930 @@
+package com.ridesync.core.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only log split into fixed-size, memory-mapped segment files.
+ *
+ * Records are framed as {@code [length][crc32][prevOffset][keyLength][key][payload]}
+ * and written into the mapped active segment; the length is written last, so
+ * a record cut short by a crash reads as zeros, which mark the end of data.
+ * prevOffset points at the previous record with the same key in the same
+ * segment (-1 if none).
+ *
+ * The active segment rolls when the next record does not fit or it is older
+ * than the roll interval. Sealed segments get a {@link SegmentIndex} sidecar
+ * and are optionally gzipped in the background, so the history of one key
+ * can be fetched from a handful of segments without scanning them. A
+ * {@link KeyFilter} per sealed segment stays in memory, so lookups skip the
+ * segments that cannot hold a key without loading their index.
+ *
+ * Sealed segments can be compacted in the background down to the latest
+ * record per key (see {@link #compact()}); compaction never touches the
+ * active segment, so writers are not held up by it.
+ */
+@Slf4j
+public class SegmentedLog implements LogSink, AutoCloseable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("rides-(\\d{20})\\.seg(\\.gz)?");
+    static final int HEADER_BYTES = 8;
+    private static final int INDEX_CACHE_SIZE = 64;
+    private static final String COMPACTION_MANIFEST = "compaction.manifest";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long rollIntervalMillis;
+    private final boolean compressSealedSegments;
+    private final long compactionMemoryBytes;
+    private final NavigableSet<Long> sealedSegments = new ConcurrentSkipListSet<>();
+    private final Map<Long, SegmentIndex> indexCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, SegmentIndex> eldest) {
+                    return size() > INDEX_CACHE_SIZE;
+                }
+            });
+    // Every sealed segment's key filter, built from its index on first lookup
+    private final Map<Long, KeyFilter> keyFilters = new ConcurrentHashMap<>();
+    // Indexes of unsealed segments, built by scanning when opened read-only
+    private final Map<Long, SegmentIndex> scannedIndexes = new ConcurrentHashMap<>();
+    // Compression and compaction, one task at a time; null when opened read-only
+    private final ScheduledExecutorService maintenance;
+    private final CompactionMetrics compactionMetrics = new CompactionMetrics();
+    // Held exclusively while compacted segments are swapped in or the log is cleared
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final boolean readOnly;
+    // Last segment covered by a compaction, to skip runs with nothing new
+    private long compactedThrough;
+    // Null when opened read-only
+    private volatile ActiveSegment active;
+
+    public SegmentedLog(Path directory, LogOptions options) throws IOException {
+        this(directory, options, false);
+    }
+
+    private SegmentedLog(Path directory, LogOptions options, boolean readOnly) throws IOException {
+        this.directory = directory;
+        this.readOnly = readOnly;
+        this.segmentBytes = options.getSegmentBytes();
+        this.rollIntervalMillis = options.getRollIntervalMillis();
+        this.compressSealedSegments = options.isCompressSealedSegments();
+        this.compactionMemoryBytes = options.getCompactionMemoryBytes();
+        this.maintenance = readOnly ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ride-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (readOnly) {
+            register();
+            return;
+        }
+        Files.createDirectories(directory);
+        recover();
+        this.active = openSegment(sealedSegments.isEmpty() ? 1 : sealedSegments.last() + 1);
+
+        long compactionInterval = options.getCompactionIntervalMillis();
+        if (compactionInterval > 0) {
+            maintenance.scheduleWithFixedDelay(this::compactInBackground,
+                    compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Open an existing log for reading only, e.g. an archived copy or the
+     * log of a running node. Nothing in the directory is changed; segments
+     * still being written are read up to their last complete record.
+     */
+    public static SegmentedLog openReadOnly(Path directory) throws IOException {
+        return new SegmentedLog(directory, LogOptions.defaults(), true);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public CompactionMetrics getCompactionMetrics() {
+        return compactionMetrics;
+    }
+
+    /**
+     * Append one record to the active segment, rolling to a new one first
+     * if needed. Called from a single writer thread.
+     */
+    public synchronized void append(String key, byte[] payload) throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("Ride log opened read-only: " + directory);
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int frameBytes = HEADER_BYTES + 4 + 2 + keyBytes.length + payload.length;
+        if (frameBytes > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + frameBytes
+                    + " bytes does not fit a " + segmentBytes + " byte segment");
+        }
+
+        ActiveSegment segment = active;
+        boolean expired = rollIntervalMillis > 0 && segment.position > 0
+                && System.currentTimeMillis() - segment.createdAtMillis >= rollIntervalMillis;
+        if (segment.position + frameBytes > segmentBytes || expired) {
+            roll();
+            segment = active;
+        }
+        segment.append(key, keyBytes, payload);
+    }
+
+    @Override
+    public void write(LogRecord[] batch, int offset, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            try {
+                append(batch[offset + i].key(), batch[offset + i].payload());
+            } catch (IOException | RuntimeException e) {
+                throw new LogWriteException(i, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void sync() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    /**
+     * All records for a key, oldest first. Compacted segments only hold
+     * the latest record per key they had.
+     */
+    public List<LogRecord> history(String key) throws IOException {
+        ActiveSegment current = active;
+        List<LogRecord> newestFirst = new ArrayList<>();
+
+        if (current != null) {
+            Integer latest = current.latestOffsets.get(key);
+            if (latest != null) {
+                collectChain(current.view(), latest, key, newestFirst);
+            }
+        }
+        long keyHash = SegmentIndex.hash(key);
+        swapLock.readLock().lock();
+        try {
+            for (long segmentId : sealedBefore(current).descendingSet()) {
+                if (!keyFilter(segmentId).mightContain(keyHash)) {
+                    continue;
+                }
+                int[] candidates = index(segmentId).candidates(key);
+                if (candidates.length == 0) {
+                    continue;
+                }
+                ByteBuffer data = readSegment(segmentId);
+                for (int offset : candidates) {
+                    collectChain(data, offset, key, newestFirst);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * Every record in write order, reading one segment at a time.
+     */
+    public Stream<LogRecord> records() {
+        return records(false);
+    }
+
+    /**
+     * Every record, reading one segment at a time.
+     * A parallel stream splits the log by segment across fork-join workers;
+     * records of one segment are always read by one worker, in order.
+     * The stream reads the log as it was when the stream was created: the
+     * segment files are opened then, under the swap lock, and stay readable
+     * through a later compaction, compression or clear. Segments are still
+     * read lazily; close the stream if it is not read to the end, so the
+     * files it did not reach are closed too.
+     */
+    public Stream<LogRecord> records(boolean parallel) {
+        ActiveSegment current = active;
+        List<SegmentSource> sources = new ArrayList<>();
+        List<FileChannel> channels = new ArrayList<>();
+        swapLock.readLock().lock();
+        try {
+            for (long segmentId : sealedBefore(current)) {
+                SegmentSource source = openSealed(segmentId, channels);
+                if (source != null) {
+                    sources.add(source);
+                }
+            }
+        } catch (IOException e) {
+            closeAll(channels);
+            throw new UncheckedIOException(e);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (current != null) {
+            ByteBuffer view = current.view();
+            sources.add(() -> view);
+        }
+        return StreamSupport.stream(new SegmentSpliterator(sources, 0, sources.size()), parallel)
+                .onClose(() -> closeAll(channels));
+    }
+
+    /**
+     * Segment ids in order, the active segment last.
+     */
+    public List<Long> segmentIds() {
+        ActiveSegment current = active;
+        List<Long> ids = new ArrayList<>(sealedBefore(current));
+        if (current != null) {
+            ids.add(current.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Seal the active segment and start a new one.
+     */
+    public synchronized void roll() throws IOException {
+        ActiveSegment segment = active;
+        if (segment == null || segment.position == 0) {
+            return;
+        }
+        seal(segment);
+        active = openSegment(segment.id + 1);
+    }
+
+    /**
+     * Delete every segment and start again from an empty log.
+     */
+    public synchronized void clear() throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("Ride log opened read-only: " + directory);
+        }
+        ActiveSegment segment = active;
+        segment.channel.close();
+        swapLock.writeLock().lock();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().startsWith("rides-")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            sealedSegments.clear();
+            indexCache.clear();
+            keyFilters.clear();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        active = openSegment(segment.id + 1);
+    }
+
+    /**
+     * Seal the active segment (or drop it if empty) and wait for pending compression.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        ActiveSegment segment = active;
+        if (segment == null) {
+            return;
+        }
+        if (segment.position > 0) {
+            seal(segment);
+        } else {
+            segment.channel.close();
+            Files.deleteIfExists(segmentPath(segment.id));
+        }
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compact every sealed segment down to the latest record per key and
+     * wait for it to finish. Runs on the maintenance thread, so it never
+     * overlaps compression or a scheduled compaction, and appends carry on
+     * meanwhile.
+     *
+     * @return What the compaction did, or null if no segment was sealed since the last one
+     */
+    public CompactionResult compact() throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("Ride log opened read-only: " + directory);
+        }
+        try {
+            return maintenance.submit(this::compactSealed).get();
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Ride log is closed: " + directory, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compacting " + directory, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ride log compaction failed", e.getCause());
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compactSealed();
+        } catch (IOException | RuntimeException e) {
+            log.error("Ride log compaction of {} failed", directory, e);
+        }
+    }
+
+    /**
+     * Rewrite the sealed segments present now into as many segments as their
+     * latest records need, then swap them in: the rewritten segments take the
+     * highest of the old ids, so they still sort before anything newer, and
+     * the rest of the old segments are deleted. The swap is recorded in a
+     * manifest first and finished on startup if the process dies midway.
+     */
+    private CompactionResult compactSealed() throws IOException {
+        long start = System.nanoTime();
+        List<Long> inputs = new ArrayList<>(sealedBefore(active));
+        if (inputs.isEmpty() || inputs.get(inputs.size() - 1) <= compactedThrough) {
+            return null;
+        }
+
+        try {
+            long bytesBefore = 0;
+            List<SegmentSource> sources = new ArrayList<>();
+            for (long segmentId : inputs) {
+                bytesBefore += sizeOnDisk(segmentId);
+                sources.add(() -> readSegment(segmentId));
+            }
+
+            LogCompactor compactor = new LogCompactor(directory, segmentBytes, compactionMemoryBytes);
+            List<LogCompactor.Output> outputs = compactor.compact(
+                    Spliterators.iterator(new SegmentSpliterator(sources, 0, sources.size())));
+            if (outputs.size() > inputs.size()) {
+                for (LogCompactor.Output output : outputs) {
+                    Files.deleteIfExists(output.segmentFile());
+                    Files.deleteIfExists(output.indexFile());
+                }
+                log.warn("Compacting {} ride log segments would need {}, skipped", inputs.size(), outputs.size());
+                return null;
+            }
+
+            List<String> manifest = new ArrayList<>();
+            int firstTarget = inputs.size() - outputs.size();
+            for (int i = 0; i < outputs.size(); i++) {
+                manifest.add("install " + outputs.get(i).name() + " " + inputs.get(firstTarget + i));
+            }
+            for (long segmentId : inputs.subList(0, firstTarget)) {
+                manifest.add("delete " + segmentId);
+            }
+            Path manifestFile = directory.resolve(COMPACTION_MANIFEST);
+            Path manifestTemp = manifestFile.resolveSibling(COMPACTION_MANIFEST + ".tmp");
+            Files.write(manifestTemp, manifest, StandardCharsets.UTF_8);
+            Files.move(manifestTemp, manifestFile, StandardCopyOption.ATOMIC_MOVE);
+
+            swapLock.writeLock().lock();
+            try {
+                applyManifest(manifest);
+                for (int i = 0; i < outputs.size(); i++) {
+                    indexCache.put(inputs.get(firstTarget + i), outputs.get(i).index());
+                    keyFilters.put(inputs.get(firstTarget + i), outputs.get(i).index().keyFilter());
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            Files.delete(manifestFile);
+
+            long bytesAfter = 0;
+            for (int i = 0; i < outputs.size(); i++) {
+                long segmentId = inputs.get(firstTarget + i);
+                bytesAfter += sizeOnDisk(segmentId);
+                if (compressSealedSegments && !maintenance.isShutdown()) {
+                    int length = outputs.get(i).length();
+                    maintenance.execute(() -> compress(segmentId, length));
+                }
+            }
+            compactedThrough = inputs.get(inputs.size() - 1);
+
+            CompactionResult result = new CompactionResult(inputs.size(), outputs.size(),
+                    compactor.getRecordsIn(), compactor.getRecordsOut(), bytesBefore, bytesAfter,
+                    (System.nanoTime() - start) / 1_000_000);
+            compactionMetrics.recordCompaction(result);
+            log.info("Compacted {} ride log segments into {}: {} records to {}, reclaimed {} bytes in {} ms",
+                    result.segmentsIn(), result.segmentsOut(), result.recordsIn(), result.recordsOut(),
+                    result.bytesReclaimed(), result.durationMillis());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            compactionMetrics.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Swap compacted segments in. Every step can be repeated, so an
+     * interrupted swap is finished by replaying the manifest.
+     */
+    private void applyManifest(List<String> manifest) throws IOException {
+        for (String line : manifest) {
+            String[] parts = line.split(" ");
+            if (parts[0].equals("install")) {
+                long segmentId = Long.parseLong(parts[2]);
+                Path segment = directory.resolve(parts[1] + ".seg");
+                Path index = directory.resolve(parts[1] + ".idx");
+                if (Files.exists(index)) {
+                    Files.move(index, indexPath(segmentId), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+                if (Files.exists(segment)) {
+                    Files.move(segment, segmentPath(segmentId), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.deleteIfExists(compressedPath(segmentId));
+            } else if (parts[0].equals("delete")) {
+                long segmentId = Long.parseLong(parts[1]);
+                sealedSegments.remove(segmentId);
+                indexCache.remove(segmentId);
+                keyFilters.remove(segmentId);
+                Files.deleteIfExists(segmentPath(segmentId));
+                Files.deleteIfExists(compressedPath(segmentId));
+                Files.deleteIfExists(indexPath(segmentId));
+            }
+        }
+    }
+
+    /**
+     * Bytes a segment and its index take up. Plain segments count up to
+     * their end of data, since the mapped tail of a segment sealed early is
+     * never written.
+     */
+    private long sizeOnDisk(long segmentId) throws IOException {
+        long size;
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int offset = 0;
+            while (offset + HEADER_BYTES <= data.limit() && data.getInt(offset) > 0) {
+                offset += HEADER_BYTES + data.getInt(offset);
+            }
+            size = Math.min(offset, data.limit());
+        } catch (NoSuchFileException e) {
+            size = Files.size(compressedPath(segmentId));
+        }
+        return size + Files.size(indexPath(segmentId));
+    }
+
+    private void seal(ActiveSegment segment) throws IOException {
+        segment.buffer.force();
+        segment.channel.close();
+        SegmentIndex index = SegmentIndex.of(segment.latestOffsets);
+        index.write(indexPath(segment.id));
+        indexCache.put(segment.id, index);
+        keyFilters.put(segment.id, index.keyFilter());
+        sealedSegments.add(segment.id);
+        log.debug("Sealed ride log segment {} ({} bytes, {} keys)", segment.id, segment.position, index.size());
+
+        if (compressSealedSegments) {
+            long segmentId = segment.id;
+            int length = segment.position;
+            maintenance.execute(() -> compress(segmentId, length));
+        }
+    }
+
+    private ActiveSegment openSegment(long segmentId) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(segmentId),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new ActiveSegment(segmentId, channel, buffer);
+    }
+
+    /**
+     * Register segments left by an earlier run. Segments without an index
+     * (the active one at shutdown or crash) are scanned up to the end of
+     * valid data and sealed.
+     */
+    private void recover() throws IOException {
+        Path manifest = directory.resolve(COMPACTION_MANIFEST);
+        if (Files.exists(manifest)) {
+            applyManifest(Files.readAllLines(manifest, StandardCharsets.UTF_8));
+            Files.delete(manifest);
+            log.info("Finished installing compacted ride log segments after restart");
+        }
+
+        List<Long> unindexed = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT_NAME.matcher(name);
+                if (name.endsWith(".tmp") || name.startsWith(LogCompactor.OUTPUT_PREFIX)) {
+                    Files.delete(file); // incl. output of a compaction that never got to install
+                } else if (matcher.matches()) {
+                    long segmentId = Long.parseLong(matcher.group(1));
+                    if (matcher.group(2) == null && Files.exists(compressedPath(segmentId))) {
+                        Files.delete(file); // compressed before the crash, plain copy not yet removed
+                    } else if (sealedSegments.add(segmentId) && !Files.exists(indexPath(segmentId))) {
+                        unindexed.add(segmentId);
+                    }
+                }
+            }
+        }
+
+        for (long segmentId : unindexed) {
+            ByteBuffer data = readSegment(segmentId);
+            Map<String, Integer> latestOffsets = new LinkedHashMap<>();
+            int end = scan(data, (key, offset) -> latestOffsets.put(key, offset));
+            SegmentIndex.of(latestOffsets).write(indexPath(segmentId));
+            log.info("Recovered ride log segment {} ({} bytes, {} keys)", segmentId, end, latestOffsets.size());
+            if (compressSealedSegments && !Files.exists(compressedPath(segmentId))) {
+                maintenance.execute(() -> compress(segmentId, end));
+            }
+        }
+    }
+
+    /**
+     * Read-only counterpart of {@link #recover()}: segments without an index
+     * are scanned into an in-memory index instead.
+     */
+    private void register() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    sealedSegments.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        for (long segmentId : sealedSegments) {
+            if (!Files.exists(indexPath(segmentId))) {
+                Map<String, Integer> latestOffsets = new LinkedHashMap<>();
+                scan(readSegment(segmentId), (key, offset) -> latestOffsets.put(key, offset));
+                scannedIndexes.put(segmentId, SegmentIndex.of(latestOffsets));
+            }
+        }
+    }
+
+    private NavigableSet<Long> sealedBefore(ActiveSegment current) {
+        return current == null ? sealedSegments : sealedSegments.headSet(current.id, false);
+    }
+
+    private void compress(long segmentId, int length) {
+        Path source = segmentPath(segmentId);
+        Path target = compressedPath(segmentId);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            byte[] chunk = new byte[64 * 1024];
+            while (data.hasRemaining()) {
+                int size = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, size);
+                out.write(chunk, 0, size);
+            }
+        } catch (IOException e) {
+            log.error("Failed to compress ride log segment {}", segmentId, e);
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(source);
+            log.debug("Compressed ride log segment {}", segmentId);
+        } catch (IOException e) {
+            log.error("Failed to install compressed ride log segment {}", segmentId, e);
+        }
+    }
+
+    /**
+     * Key filter of a sealed segment; callers hold the swap lock, so the
+     * index it is built from is the one installed.
+     */
+    private KeyFilter keyFilter(long segmentId) throws IOException {
+        KeyFilter filter = keyFilters.get(segmentId);
+        if (filter == null) {
+            filter = index(segmentId).keyFilter();
+            keyFilters.put(segmentId, filter);
+        }
+        return filter;
+    }
+
+    private SegmentIndex index(long segmentId) throws IOException {
+        SegmentIndex index = scannedIndexes.getOrDefault(segmentId, indexCache.get(segmentId));
+        if (index == null) {
+            index = SegmentIndex.read(indexPath(segmentId));
+            indexCache.put(segmentId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Contents of a sealed segment: mapped read-only, or inflated if compressed.
+     */
+    private ByteBuffer readSegment(long segmentId) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(compressedPath(segmentId)))) {
+                return ByteBuffer.wrap(in.readAllBytes());
+            }
+        }
+    }
+
+    /**
+     * Open a sealed segment's file now, to be read later. The open channel
+     * keeps the data readable if the file is replaced or deleted meanwhile;
+     * it is closed once the segment has been read.
+     *
+     * @return null if a read-only log finds the segment already removed by its writer
+     */
+    private SegmentSource openSealed(long segmentId, List<FileChannel> channels) throws IOException {
+        FileChannel channel;
+        boolean compressed = false;
+        try {
+            channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            try {
+                channel = FileChannel.open(compressedPath(segmentId), StandardOpenOption.READ);
+                compressed = true;
+            } catch (NoSuchFileException removed) {
+                if (readOnly) {
+                    return null;
+                }
+                throw removed;
+            }
+        }
+        channels.add(channel);
+
+        FileChannel file = channel;
+        if (compressed) {
+            return () -> {
+                try (InputStream in = new GZIPInputStream(Channels.newInputStream(file))) {
+                    return ByteBuffer.wrap(in.readAllBytes());
+                }
+            };
+        }
+        return () -> {
+            try (file) {
+                return file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            }
+        };
+    }
+
+    private static void closeAll(List<FileChannel> channels) {
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close ride log segment", e);
+            }
+        }
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(String.format("rides-%020d.seg", segmentId));
+    }
+
+    private Path compressedPath(long segmentId) {
+        return directory.resolve(String.format("rides-%020d.seg.gz", segmentId));
+    }
+
+    private Path indexPath(long segmentId) {
+        return directory.resolve(String.format("rides-%020d.idx", segmentId));
+    }
+
+    /**
+     * A record framed as stored in a segment.
+     */
+    static byte[] frame(String key, byte[] payload, int prevOffset) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = 4 + 2 + keyBytes.length + payload.length;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + length);
+        frame.putInt(HEADER_BYTES, prevOffset);
+        frame.putShort(HEADER_BYTES + 4, (short) keyBytes.length);
+        frame.put(HEADER_BYTES + 6, keyBytes);
+        frame.put(HEADER_BYTES + 6 + keyBytes.length, payload);
+        CRC32 crc = new CRC32();
+        crc.update(frame.slice(HEADER_BYTES, length));
+        frame.putInt(4, (int) crc.getValue());
+        frame.putInt(0, length);
+        return frame.array();
+    }
+
+    private static void collectChain(ByteBuffer data, int offset, String key, List<LogRecord> out) {
+        while (offset >= 0) {
+            LogRecord record = readRecord(data, offset);
+            if (record == null || !record.key().equals(key)) {
+                return; // hash collision or damaged record
+            }
+            out.add(record);
+            offset = data.getInt(offset + HEADER_BYTES);
+        }
+    }
+
+    /**
+     * Walk the valid records of a segment.
+     *
+     * @return Offset just past the last valid record
+     */
+    private static int scan(ByteBuffer data, RecordVisitor visitor) {
+        int offset = 0;
+        LogRecord record;
+        while ((record = readRecord(data, offset)) != null) {
+            visitor.visit(record.key(), offset);
+            offset += HEADER_BYTES + data.getInt(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Decode the record at an offset, or null at the end of data or on a
+     * damaged record.
+     */
+    private static LogRecord readRecord(ByteBuffer data, int offset) {
+        if (offset < 0 || offset + HEADER_BYTES > data.limit()) {
+            return null;
+        }
+        int length = data.getInt(offset);
+        if (length < 6 || offset + HEADER_BYTES + length > data.limit()) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(offset + HEADER_BYTES, length));
+        if ((int) crc.getValue() != data.getInt(offset + 4)) {
+            return null;
+        }
+
+        int keyLength = data.getShort(offset + HEADER_BYTES + 4) & 0xffff;
+        int keyStart = offset + HEADER_BYTES + 6;
+        if (keyLength > length - 6) {
+            return null;
+        }
+        byte[] keyBytes = new byte[keyLength];
+        data.get(keyStart, keyBytes);
+        byte[] payload = new byte[length - 6 - keyLength];
+        data.get(keyStart + keyLength, payload);
+        return new LogRecord(new String(keyBytes, StandardCharsets.UTF_8), payload);
+    }
+
+    @FunctionalInterface
+    private interface SegmentSource {
+        ByteBuffer open() throws IOException;
+    }
+
+    /**
+     * Records of a range of segments. Splits hand out the first half of the
+     * remaining segments, so encounter order is kept.
+     */
+    private static final class SegmentSpliterator implements Spliterator<LogRecord> {
+        private final List<SegmentSource> sources;
+        private int next;
+        private final int end;
+        private ByteBuffer data;
+        private int offset;
+
+        private SegmentSpliterator(List<SegmentSource> sources, int from, int end) {
+            this.sources = sources;
+            this.next = from;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LogRecord> action) {
+            while (true) {
+                if (data != null) {
+                    LogRecord record = readRecord(data, offset);
+                    if (record != null) {
+                        offset += HEADER_BYTES + data.getInt(offset);
+                        action.accept(record);
+                        return true;
+                    }
+                    data = null;
+                }
+                if (next >= end) {
+                    return false;
+                }
+                data = open(sources.get(next++));
+                offset = 0;
+            }
+        }
+
+        @Override
+        public Spliterator<LogRecord> trySplit() {
+            if (data != null || end - next < 2) {
+                return null;
+            }
+            int mid = (next + end) >>> 1;
+            Spliterator<LogRecord> prefix = new SegmentSpliterator(sources, next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        /**
+         * Record counts are unknown until a segment is read.
+         */
+        @Override
+        public long estimateSize() {
+            return next == end && data == null ? 0 : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+
+        private static ByteBuffer open(SegmentSource source) {
+            try {
+                return source.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(String key, int offset);
+    }
+
+    /**
+     * The segment currently written to. Readers only look below the
+     * published position.
+     */
+    private static final class ActiveSegment {
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final long createdAtMillis = System.currentTimeMillis();
+        // Latest record offset per key in this segment
+        private final Map<String, Integer> latestOffsets = new ConcurrentHashMap<>();
+        private volatile int position;
+
+        private ActiveSegment(long id, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private void append(String key, byte[] keyBytes, byte[] payload) {
+            int offset = position;
+            int length = 4 + 2 + keyBytes.length + payload.length;
+            int body = offset + HEADER_BYTES;
+            buffer.putInt(body, latestOffsets.getOrDefault(key, -1));
+            buffer.putShort(body + 4, (short) keyBytes.length);
+            buffer.put(body + 6, keyBytes);
+            buffer.put(body + 6 + keyBytes.length, payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(body, length));
+            buffer.putInt(offset + 4, (int) crc.getValue());
+            buffer.putInt(offset, length); // last: makes the record visible after a crash
+
+            position = offset + HEADER_BYTES + length;
+            latestOffsets.put(key, offset);
+        }
+
+        /**
+         * Read-only view of the data written so far.
+         */
+        private ByteBuffer view() {
+            return buffer.asReadOnlyBuffer().limit(position);
+        }
+    }
+}
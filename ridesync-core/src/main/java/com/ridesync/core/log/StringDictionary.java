@@ -0,0 +1,171 @@
+package com.ridesync.core.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary of repeated strings (addresses, amenities) shared
+ * by all binary ride records in a log directory.
+ *
+ * Ids are assigned in order of first use and never change. New entries are
+ * buffered in memory, so encoding a record does no I/O; {@link #sync()}
+ * appends them to the dictionary file and forces it. The log writer syncs
+ * the dictionary before writing any batch of records, so a record on disk
+ * never refers to an id that is not. The dictionary is capped; strings seen
+ * after that are written inline by the codec.
+ */
+@Slf4j
+public class StringDictionary implements AutoCloseable {
+    public static final int MAX_ENTRIES = Short.MAX_VALUE;
+    private static final int MAX_STRING_BYTES = 1024;
+
+    private final Path file;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Entries below size are immutable once published
+    private volatile String[] strings = new String[16];
+    private volatile int size;
+    private FileChannel channel;
+    // Entries added since the last sync, and how much of them is already in the file
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int pendingWritten;
+
+    public StringDictionary(Path file) throws IOException {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Id of a string, adding it to the dictionary if new.
+     *
+     * @return The id, or -1 if the string is too long or the dictionary is full
+     */
+    public int idFor(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : add(value);
+    }
+
+    /**
+     * String for an id.
+     *
+     * @throws IllegalArgumentException if the id is unknown
+     */
+    public String lookup(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown dictionary id " + id + " in " + file);
+        }
+        return strings[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append entries added since the last sync to the dictionary file and
+     * force it to disk. If this fails, the next sync carries on where it
+     * stopped.
+     */
+    public synchronized void sync() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer entries = ByteBuffer.wrap(pending.toByteArray());
+        entries.position(pendingWritten);
+        while (entries.hasRemaining()) {
+            pendingWritten += channel.write(entries);
+        }
+        channel.force(false);
+        pending.reset();
+        pendingWritten = 0;
+    }
+
+    /**
+     * Sync pending entries and close the dictionary file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (size >= MAX_ENTRIES || bytes.length > MAX_STRING_BYTES) {
+            return -1;
+        }
+
+        pending.write(bytes.length >>> 8);
+        pending.write(bytes.length);
+        pending.writeBytes(bytes);
+
+        int id = size;
+        if (id == strings.length) {
+            strings = Arrays.copyOf(strings, id * 2);
+        }
+        strings[id] = value;
+        size = id + 1;
+        ids.put(value, id);
+        return id;
+    }
+
+    /**
+     * Read existing entries, cutting off a partial entry left by a crash.
+     */
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        String[] loaded = strings;
+        int count = 0;
+        while (data.remaining() >= 2) {
+            int length = data.getShort(data.position());
+            if (length < 0 || data.remaining() < 2 + length) {
+                break;
+            }
+            data.getShort();
+            byte[] bytes = new byte[length];
+            data.get(bytes);
+            if (count == loaded.length) {
+                loaded = Arrays.copyOf(loaded, count * 2);
+            }
+            loaded[count] = new String(bytes, StandardCharsets.UTF_8);
+            ids.put(loaded[count], count);
+            count++;
+        }
+        strings = loaded;
+        size = count;
+
+        if (data.position() < data.limit()) {
+            log.warn("Truncating partial entry at the end of string dictionary {}", file);
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(data.position());
+            }
+        }
+    }
+}
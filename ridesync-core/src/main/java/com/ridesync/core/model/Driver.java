@@ -5,12 +5,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Represents a driver in the ride-sharing platform.
- * Maintains ride history and earnings tracking.
+ * Tracks earnings; completed rides themselves live in the ride store.
  */
 @Data
 @Builder
@@ -27,32 +24,19 @@ public class Driver {
     @Builder.Default
     private double totalEarnings = 0.0;
     
-    @Builder.Default
-    private List<Ride> rideHistory = new ArrayList<>();
-    
     @Builder.Default
     private double rating = 5.0;
     
     /**
-     * Add a completed ride to history and update earnings.
+     * Credit the fare of a completed ride. The ride itself is not kept,
+     * since drivers stay in memory for the life of the process.
      */
     public void addCompletedRide(Ride ride) {
         if (ride.getStatus() == RideStatus.COMPLETED) {
-            rideHistory.add(ride);
             totalEarnings += ride.getFare();
         }
     }
     
-    /**
-     * Calculate total earnings from completed rides using streams.
-     */
-    public double calculateTotalEarnings() {
-        return rideHistory.stream()
-                .filter(ride -> ride.getStatus() == RideStatus.COMPLETED)
-                .mapToDouble(Ride::getFare)
-                .sum();
-    }
-    
     /**
      * Check if driver is available for a new ride.
      */
@@ -0,0 +1,197 @@
+package com.ridesync.core.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Structure-of-arrays snapshot of driver coordinates for batch distance queries.
+ * Latitudes and longitudes are held in radians with cos(latitude) precomputed,
+ * so scanning many drivers touches only primitive arrays instead of boxed
+ * {@link Driver} and {@link Location} objects.
+ *
+ * Nearest-driver queries pre-filter with the equirectangular approximation
+ * (no trig per driver) and run exact Haversine only on the shortlist.
+ */
+public final class DriverCoordinates {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    // Headroom over the approximate K-th distance so no true nearest driver is filtered out
+    private static final double PREFILTER_SLACK = 1.01;
+    private static final double PREFILTER_SLACK_KM = 0.05;
+
+    private final Driver[] drivers;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] cosLatitudes;
+
+    private DriverCoordinates(Driver[] drivers) {
+        this.drivers = drivers;
+        this.latitudes = new double[drivers.length];
+        this.longitudes = new double[drivers.length];
+        this.cosLatitudes = new double[drivers.length];
+        for (int i = 0; i < drivers.length; i++) {
+            Location location = drivers[i].getCurrentLocation();
+            latitudes[i] = Math.toRadians(location.getLatitude());
+            longitudes[i] = Math.toRadians(location.getLongitude());
+            cosLatitudes[i] = Math.cos(latitudes[i]);
+        }
+    }
+
+    /**
+     * Snapshot the current locations of the given drivers.
+     * Every driver must have a current location.
+     */
+    public static DriverCoordinates of(Collection<Driver> drivers) {
+        return new DriverCoordinates(drivers.toArray(new Driver[0]));
+    }
+
+    public int size() {
+        return drivers.length;
+    }
+
+    public Driver driver(int index) {
+        return drivers[index];
+    }
+
+    /**
+     * Exact Haversine distance from the origin to every driver.
+     *
+     * @param origin Point to measure from
+     * @param out Receives distances in kilometers, indexed like the snapshot
+     */
+    public void distancesTo(Location origin, double[] out) {
+        double originLat = Math.toRadians(origin.getLatitude());
+        double originLon = Math.toRadians(origin.getLongitude());
+        double originCos = Math.cos(originLat);
+        for (int i = 0; i < drivers.length; i++) {
+            out[i] = haversine(i, originLat, originLon, originCos);
+        }
+    }
+
+    /**
+     * Equirectangular approximation of the distance to every driver.
+     * Uses the mean of both cos(latitude) values, so it needs no trig per
+     * driver and stays within a fraction of a percent at city scale.
+     *
+     * @param origin Point to measure from
+     * @param out Receives approximate distances in kilometers
+     */
+    public void approximateDistancesTo(Location origin, double[] out) {
+        double originLat = Math.toRadians(origin.getLatitude());
+        double originLon = Math.toRadians(origin.getLongitude());
+        double originCos = Math.cos(originLat);
+        for (int i = 0; i < drivers.length; i++) {
+            double x = (longitudes[i] - originLon) * 0.5 * (cosLatitudes[i] + originCos);
+            double y = latitudes[i] - originLat;
+            out[i] = EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+        }
+    }
+
+    /**
+     * Find the nearest K drivers within a radius.
+     *
+     * @param origin Search centre
+     * @param k Maximum number of drivers to return
+     * @param radiusKm Maximum distance in kilometers
+     * @return Snapshot indices ordered by increasing exact distance
+     */
+    public int[] nearest(Location origin, int k, double radiusKm) {
+        int n = drivers.length;
+        if (k <= 0 || n == 0) {
+            return new int[0];
+        }
+
+        double[] approximate = new double[n];
+        approximateDistancesTo(origin, approximate);
+
+        // Cut-off: the approximate K-th distance (or the radius), plus slack
+        double limit = radiusKm * PREFILTER_SLACK + PREFILTER_SLACK_KM;
+        if (k < n) {
+            limit = Math.min(limit, kthSmallest(approximate, k) * PREFILTER_SLACK + PREFILTER_SLACK_KM);
+        }
+
+        int[] shortlist = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (approximate[i] <= limit) {
+                shortlist[count++] = i;
+            }
+        }
+
+        double originLat = Math.toRadians(origin.getLatitude());
+        double originLon = Math.toRadians(origin.getLongitude());
+        double originCos = Math.cos(originLat);
+        double[] exact = new double[count];
+        int within = 0;
+        for (int s = 0; s < count; s++) {
+            int i = shortlist[s];
+            double distance = haversine(i, originLat, originLon, originCos);
+            if (distance <= radiusKm) {
+                shortlist[within] = i;
+                exact[within++] = distance;
+            }
+        }
+
+        sortByDistance(shortlist, exact, within);
+        return Arrays.copyOf(shortlist, Math.min(k, within));
+    }
+
+    private double haversine(int i, double originLat, double originLon, double originCos) {
+        double sinLat = Math.sin((latitudes[i] - originLat) / 2);
+        double sinLon = Math.sin((longitudes[i] - originLon) / 2);
+        double a = sinLat * sinLat + cosLatitudes[i] * originCos * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * K-th smallest value, using a bounded max-heap of primitives.
+     */
+    private static double kthSmallest(double[] values, int k) {
+        double[] heap = new double[k];
+        int size = 0;
+        for (double value : values) {
+            if (size < k) {
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] < value) {
+                    heap[child] = heap[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                heap[child] = value;
+            } else if (value < heap[0]) {
+                int parent = 0;
+                while (true) {
+                    int child = 2 * parent + 1;
+                    if (child >= k) {
+                        break;
+                    }
+                    if (child + 1 < k && heap[child + 1] > heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] <= value) {
+                        break;
+                    }
+                    heap[parent] = heap[child];
+                    parent = child;
+                }
+                heap[parent] = value;
+            }
+        }
+        return heap[0];
+    }
+
+    /**
+     * Sort the first count indices by their distances.
+     * Distances are non-negative, so their IEEE bits order the same as their
+     * values; the low 32 bits are replaced by the index, which limits ordering
+     * precision to about one part in a million (millimetres at city scale).
+     */
+    private static void sortByDistance(int[] indices, double[] distances, int count) {
+        long[] keys = new long[count];
+        for (int s = 0; s < count; s++) {
+            keys[s] = (Double.doubleToRawLongBits(distances[s]) & ~0xFFFFFFFFL) | indices[s];
+        }
+        Arrays.sort(keys);
+        for (int s = 0; s < count; s++) {
+            indices[s] = (int) keys[s];
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ridesync.core.model;
 
 import com.ridesync.core.strategy.FareStrategy;
+import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -20,7 +21,9 @@ import java.util.List;
 public class PoolRide extends Ride {
     private static final double BASE_FARE_RATE = 6.0; // Lower rate for shared rides
     
+    @Builder.Default
     private List<String> pooledRiderIds = new ArrayList<>(); // Other riders in the pool
+    @Builder.Default
     private int maxPoolSize = 4; // Maximum passengers
     
     @Override
@@ -38,9 +41,9 @@ public class PoolRide extends Ride {
     }
     
     /**
-     * Check if pool has capacity for more riders.
+     * Check if pool has capacity for more riders, counting this rider.
      */
     public boolean hasCapacity() {
-        return pooledRiderIds.size() < maxPoolSize;
+        return pooledRiderIds.size() + 1 < maxPoolSize;
     }
 }
@@ -1,30 +1,52 @@
 package com.ridesync.core.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.ridesync.core.exception.IllegalRideTransitionException;
 import com.ridesync.core.strategy.FareStrategy;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Abstract base class for all ride types in the system.
  * Implements the Template Method pattern for fare calculation.
  * Uses sealed class concept (via inheritance) for type safety.
+ * Serialized with its rideType, which selects the subclass when read back.
+ * Lifecycle changes go through {@link #transitionTo}, which compare-and-sets
+ * the status along the legal {@link RideStatus} edges without locking; there
+ * is no status setter, only {@link #restoreStatus} for rides read back.
  */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY,
+        property = "rideType", visible = true)
+@JsonSubTypes({
+    @JsonSubTypes.Type(value = StandardRide.class, name = "STANDARD"),
+    @JsonSubTypes.Type(value = PoolRide.class, name = "POOL"),
+    @JsonSubTypes.Type(value = LuxuryRide.class, name = "LUXURY")
+})
 @Data
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
 public abstract class Ride {
+    private static final AtomicReferenceFieldUpdater<Ride, RideStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Ride.class, RideStatus.class, "status");
+    
     private String id;
     private String riderId;
     private String driverId;
     private Location startLocation;
     private Location endLocation;
     private RideType rideType;
-    private RideStatus status;
+    @Setter(AccessLevel.NONE)
+    private volatile RideStatus status;
     private LocalDateTime requestedAt;
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
@@ -43,6 +65,35 @@ public abstract class Ride {
      */
     public abstract double calculateFare(FareStrategy fareStrategy, double distance, double surgeMultiplier);
     
+    /**
+     * Atomically move the ride to next, if that is a legal edge from its
+     * current status. Of concurrent transitions out of the same status
+     * exactly one succeeds; the others see the new status and are rejected.
+     * 
+     * @return The status the ride left
+     * @throws IllegalRideTransitionException if next cannot be reached from the current status
+     */
+    public RideStatus transitionTo(RideStatus next) {
+        while (true) {
+            RideStatus current = status;
+            if (current == null || !current.canTransitionTo(next)) {
+                throw new IllegalRideTransitionException(id, current, next);
+            }
+            if (STATUS.compareAndSet(this, current, next)) {
+                return current;
+            }
+        }
+    }
+    
+    /**
+     * Set the status of a ride read back from storage or a log, without the
+     * transition check. Lifecycle changes must use {@link #transitionTo}.
+     */
+    @JsonProperty("status")
+    public void restoreStatus(RideStatus status) {
+        this.status = status;
+    }
+    
     /**
      * Get the base fare rate for this ride type.
      * Subclasses override this to provide their specific rates.
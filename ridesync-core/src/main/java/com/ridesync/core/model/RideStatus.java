@@ -2,11 +2,32 @@ package com.ridesync.core.model;
 
 /**
  * Enumeration of possible ride statuses throughout its lifecycle.
+ * A ride moves REQUESTED → ASSIGNED → STARTED → COMPLETED, and can be
+ * cancelled from any status before it has finished.
  */
 public enum RideStatus {
     REQUESTED,      // Ride has been requested but no driver assigned
     ASSIGNED,       // Driver has been assigned
     STARTED,        // Ride is in progress
     COMPLETED,      // Ride has been completed successfully
-    CANCELLED       // Ride was cancelled
+    CANCELLED;      // Ride was cancelled
+    
+    /**
+     * Whether a ride in this status may move to next.
+     */
+    public boolean canTransitionTo(RideStatus next) {
+        return switch (this) {
+            case REQUESTED -> next == ASSIGNED || next == CANCELLED;
+            case ASSIGNED -> next == STARTED || next == CANCELLED;
+            case STARTED -> next == COMPLETED || next == CANCELLED;
+            case COMPLETED, CANCELLED -> false;
+        };
+    }
+    
+    /**
+     * Whether the ride has finished, so no further transition is possible.
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED;
+    }
 }
@@ -0,0 +1,184 @@
+package com.ridesync.core.pool;
+
+import com.ridesync.core.model.Location;
+import com.ridesync.core.model.PoolRide;
+import com.ridesync.core.spatial.GeoGrid;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches new POOL requests into shared routes that already have a driver.
+ * Open routes are bucketed by their host pickup cell, so a match only looks at
+ * routes near the new rider. A rider joins the route with the cheapest
+ * insertion that keeps every rider on board within the maximum detour ratio.
+ */
+@Slf4j
+public class PoolMatcher {
+    public static final double DEFAULT_MAX_DETOUR_RATIO = 1.5;
+    public static final double DEFAULT_SEARCH_RADIUS_KM = 2.0;
+
+    private final GeoGrid grid;
+    private final double maxDetourRatio;
+    private final double searchRadiusKm;
+    private final ConcurrentHashMap<String, SharedRoute> routesByRide = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<SharedRoute>> openRoutes = new ConcurrentHashMap<>();
+
+    public PoolMatcher() {
+        this(DEFAULT_MAX_DETOUR_RATIO, DEFAULT_SEARCH_RADIUS_KM);
+    }
+
+    public PoolMatcher(double maxDetourRatio, double searchRadiusKm) {
+        this(new GeoGrid(), maxDetourRatio, searchRadiusKm);
+    }
+
+    public PoolMatcher(GeoGrid grid, double maxDetourRatio, double searchRadiusKm) {
+        this.grid = grid;
+        this.maxDetourRatio = maxDetourRatio;
+        this.searchRadiusKm = searchRadiusKm;
+    }
+
+    /**
+     * Open a new shared route for a pool ride that was given its own driver.
+     */
+    public SharedRoute open(PoolRide hostRide) {
+        SharedRoute route = new SharedRoute(hostRide);
+        routesByRide.put(hostRide.getId(), route);
+        index(route);
+        return route;
+    }
+
+    /**
+     * Try to attach a pool ride to a nearby open route.
+     * On success the ride is assigned to the route's driver and every ride on
+     * board is repriced with the pool discount.
+     *
+     * @param ride The new pool ride
+     * @return The route the ride joined, or empty if it needs its own driver
+     */
+    public Optional<SharedRoute> tryJoin(PoolRide ride) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (SharedRoute route : findNearby(ride.getStartLocation())) {
+            double cost = route.insertionCost(ride, maxDetourRatio);
+            if (cost != Double.POSITIVE_INFINITY) {
+                candidates.add(new Candidate(route, cost));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::addedKm));
+
+        // Another rider may have joined since costing, so join re-checks the route
+        for (Candidate candidate : candidates) {
+            if (candidate.route().join(ride, maxDetourRatio)) {
+                routesByRide.put(ride.getId(), candidate.route());
+                if (!candidate.route().hasCapacity()) {
+                    unindex(candidate.route());
+                }
+                log.info("Pooled ride {} into route of ride {} (+{} km)",
+                        ride.getId(), candidate.route().getHostRide().getId(), candidate.addedKm());
+                return Optional.of(candidate.route());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stop a ride's route from accepting new riders, e.g. when the trip starts.
+     */
+    public void close(String rideId) {
+        SharedRoute route = routesByRide.get(rideId);
+        if (route != null) {
+            route.close();
+            unindex(route);
+        }
+    }
+
+    /**
+     * Take a completed or cancelled ride off its route. The seat it frees
+     * makes a full route that has not started yet open to new riders again.
+     *
+     * @return true if the driver has no other pool riders left and can be
+     *         released; also true for rides that were never pooled
+     */
+    public boolean leave(String rideId) {
+        return detach(rideId, false);
+    }
+
+    /**
+     * Take a ride whose booking was rolled back off its route, undoing its
+     * join: the riders left on board lose it from their pool and are
+     * repriced.
+     *
+     * @return true if the driver has no other pool riders left and can be
+     *         released; also true for rides that were never pooled
+     */
+    public boolean withdraw(String rideId) {
+        return detach(rideId, true);
+    }
+
+    public Optional<SharedRoute> getRoute(String rideId) {
+        return Optional.ofNullable(routesByRide.get(rideId));
+    }
+
+    public int getOpenRouteCount() {
+        return openRoutes.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private boolean detach(String rideId, boolean undoJoin) {
+        SharedRoute route = routesByRide.remove(rideId);
+        if (route == null) {
+            return true;
+        }
+        int remaining = undoJoin ? route.withdraw(rideId) : route.remove(rideId);
+        if (remaining > 0) {
+            if (route.isOpen() && route.hasCapacity()) {
+                index(route);
+            }
+            return false;
+        }
+        route.close();
+        unindex(route);
+        return true;
+    }
+
+    private List<SharedRoute> findNearby(Location origin) {
+        int originRow = grid.row(origin.getLatitude());
+        int originColumn = grid.column(origin.getLongitude());
+        int maxRing = (int) Math.ceil(searchRadiusKm / grid.minCellExtentKm(origin.getLatitude()));
+
+        List<SharedRoute> nearby = new ArrayList<>();
+        for (int row = originRow - maxRing; row <= originRow + maxRing; row++) {
+            for (int column = originColumn - maxRing; column <= originColumn + maxRing; column++) {
+                Set<SharedRoute> routes = openRoutes.get(GeoGrid.key(row, column));
+                if (routes == null) {
+                    continue;
+                }
+                for (SharedRoute route : routes) {
+                    if (route.getAnchor().distanceTo(origin) <= searchRadiusKm) {
+                        nearby.add(route);
+                    }
+                }
+            }
+        }
+        return nearby;
+    }
+
+    private void index(SharedRoute route) {
+        openRoutes.computeIfAbsent(grid.cellKey(route.getAnchor()), key -> ConcurrentHashMap.newKeySet())
+                .add(route);
+    }
+
+    private void unindex(SharedRoute route) {
+        openRoutes.computeIfPresent(grid.cellKey(route.getAnchor()), (key, routes) -> {
+            routes.remove(route);
+            return routes.isEmpty() ? null : routes;
+        });
+    }
+
+    private record Candidate(SharedRoute route, double addedKm) {
+    }
+}
@@ -0,0 +1,223 @@
+package com.ridesync.core.pool;
+
+import com.ridesync.core.exception.IllegalRideTransitionException;
+import com.ridesync.core.factory.FareStrategyFactory;
+import com.ridesync.core.model.Location;
+import com.ridesync.core.model.PoolRide;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.strategy.FareStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One driver's shared trip: the pool rides on board and the ordered
+ * pickup/drop-off stops the driver will visit.
+ * All methods lock the route, so concurrent joins are applied one at a time.
+ */
+public class SharedRoute {
+    private final PoolRide hostRide;
+    private final List<PoolRide> rides = new ArrayList<>();
+    private final List<Stop> stops = new ArrayList<>();
+    private boolean open = true;
+
+    SharedRoute(PoolRide hostRide) {
+        this.hostRide = hostRide;
+        rides.add(hostRide);
+        stops.add(new Stop(hostRide, true));
+        stops.add(new Stop(hostRide, false));
+    }
+
+    public PoolRide getHostRide() {
+        return hostRide;
+    }
+
+    public String getDriverId() {
+        return hostRide.getDriverId();
+    }
+
+    /**
+     * Pickup location of the host ride, used as the route's index position.
+     */
+    public Location getAnchor() {
+        return hostRide.getStartLocation();
+    }
+
+    public synchronized List<PoolRide> getRides() {
+        return List.copyOf(rides);
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Whether another rider fits, counting the host and every rider on board
+     * against the host's maximum pool size.
+     */
+    public synchronized boolean hasCapacity() {
+        return rides.size() < hostRide.getMaxPoolSize();
+    }
+
+    /**
+     * Stop accepting riders, e.g. once the driver has started the trip.
+     */
+    synchronized void close() {
+        open = false;
+    }
+
+    /**
+     * Cheapest feasible insertion of a ride into this route.
+     *
+     * @return Extra route length in kilometers, or {@link Double#POSITIVE_INFINITY}
+     *         if the ride cannot join without breaking a detour limit
+     */
+    synchronized double insertionCost(PoolRide ride, double maxDetourRatio) {
+        Insertion insertion = bestInsertion(ride, maxDetourRatio);
+        return insertion != null ? insertion.addedKm() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Add a ride to the route at its cheapest feasible insertion and reprice
+     * every ride on board with the pool discount.
+     *
+     * @return true if the ride joined
+     * @throws IllegalRideTransitionException if the ride can no longer be assigned;
+     *         the route is left unchanged
+     */
+    synchronized boolean join(PoolRide ride, double maxDetourRatio) {
+        Insertion insertion = bestInsertion(ride, maxDetourRatio);
+        if (insertion == null) {
+            return false;
+        }
+
+        ride.transitionTo(RideStatus.ASSIGNED);
+        stops.add(insertion.pickupIndex(), new Stop(ride, true));
+        stops.add(insertion.dropoffIndex(), new Stop(ride, false));
+        for (PoolRide member : rides) {
+            member.getPooledRiderIds().add(ride.getRiderId());
+            ride.getPooledRiderIds().add(member.getRiderId());
+        }
+        rides.add(ride);
+
+        ride.setDriverId(hostRide.getDriverId());
+        ride.setSurgeMultiplier(hostRide.getSurgeMultiplier());
+        reprice();
+        return true;
+    }
+
+    /**
+     * Take a finished or cancelled ride off the route.
+     *
+     * @return Number of rides still on board
+     */
+    synchronized int remove(String rideId) {
+        rides.removeIf(member -> member.getId().equals(rideId));
+        stops.removeIf(stop -> stop.ride().getId().equals(rideId));
+        return rides.size();
+    }
+
+    /**
+     * Undo a join whose booking did not go through: take the ride off the
+     * route, drop its rider from every member's pool and reprice them.
+     *
+     * @return Number of rides still on board
+     */
+    synchronized int withdraw(String rideId) {
+        PoolRide ride = rides.stream()
+                .filter(member -> member.getId().equals(rideId))
+                .findFirst()
+                .orElse(null);
+        int remaining = remove(rideId);
+        if (ride != null) {
+            for (PoolRide member : rides) {
+                member.getPooledRiderIds().remove(ride.getRiderId());
+            }
+            reprice();
+        }
+        return remaining;
+    }
+
+    private void reprice() {
+        for (PoolRide member : rides) {
+            FareStrategy fareStrategy = FareStrategyFactory.getStrategy(member.getRideType());
+            member.calculateFare(fareStrategy, member.getDistance(), member.getSurgeMultiplier());
+        }
+    }
+
+    private Insertion bestInsertion(PoolRide ride, double maxDetourRatio) {
+        if (!open || !hasCapacity()
+                || rides.stream().anyMatch(member -> member.getRiderId().equals(ride.getRiderId()))) {
+            return null;
+        }
+
+        double currentKm = routeKm(stops);
+        Insertion best = null;
+        List<Stop> candidate = new ArrayList<>(stops.size() + 2);
+        // The driver is already heading to the first stop, so new riders are picked up after it
+        for (int pickup = 1; pickup <= stops.size(); pickup++) {
+            for (int dropoff = pickup + 1; dropoff <= stops.size() + 1; dropoff++) {
+                candidate.clear();
+                candidate.addAll(stops);
+                candidate.add(pickup, new Stop(ride, true));
+                candidate.add(dropoff, new Stop(ride, false));
+
+                double addedKm = routeKm(candidate) - currentKm;
+                if ((best == null || addedKm < best.addedKm()) && withinDetour(candidate, maxDetourRatio)) {
+                    best = new Insertion(pickup, dropoff, addedKm);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Every rider's on-board distance must stay within maxDetourRatio of
+     * their direct trip, and so must their arrival measured from the first
+     * stop, so riders are not left waiting while others are dropped off.
+     */
+    private static boolean withinDetour(List<Stop> route, double maxDetourRatio) {
+        Location first = route.get(0).location();
+        double[] routeKmAt = new double[route.size()];
+        for (int i = 1; i < route.size(); i++) {
+            routeKmAt[i] = routeKmAt[i - 1] + route.get(i - 1).location().distanceTo(route.get(i).location());
+        }
+
+        for (int i = 0; i < route.size(); i++) {
+            Stop pickup = route.get(i);
+            if (!pickup.pickup()) {
+                continue;
+            }
+            int dropoff = i + 1;
+            while (route.get(dropoff).ride() != pickup.ride()) {
+                dropoff++;
+            }
+            PoolRide ride = pickup.ride();
+            double directKm = ride.getStartLocation().distanceTo(ride.getEndLocation());
+            double onBoardKm = routeKmAt[dropoff] - routeKmAt[i];
+            double arrivalKm = routeKmAt[dropoff];
+            if (onBoardKm > directKm * maxDetourRatio
+                    || arrivalKm > (first.distanceTo(ride.getStartLocation()) + directKm) * maxDetourRatio) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double routeKm(List<Stop> route) {
+        double total = 0.0;
+        for (int i = 1; i < route.size(); i++) {
+            total += route.get(i - 1).location().distanceTo(route.get(i).location());
+        }
+        return total;
+    }
+
+    private record Stop(PoolRide ride, boolean pickup) {
+        Location location() {
+            return pickup ? ride.getStartLocation() : ride.getEndLocation();
+        }
+    }
+
+    private record Insertion(int pickupIndex, int dropoffIndex, double addedKm) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.ridesync.core.service;
+
+import com.ridesync.core.model.Driver;
+
+/**
+ * Hook for claiming a driver in shared storage after the local claim.
+ * Lets several allocator instances (one per API node) compete for the same
+ * drivers without a global lock: only one of them can win a given claim.
+ */
+@FunctionalInterface
+public interface DriverClaim {
+    /**
+     * Claim that always succeeds, for a single allocator instance.
+     */
+    DriverClaim LOCAL = driver -> true;
+
+    /**
+     * Try to claim a driver that has already been claimed locally.
+     *
+     * @param driver The driver to claim
+     * @return true if this node now owns the driver, false if another node won
+     */
+    boolean tryClaim(Driver driver);
+
+    /**
+     * Give back a claim whose booking did not go through. Does nothing by default.
+     *
+     * @param driver A driver this node claimed
+     */
+    default void release(Driver driver) {
+    }
+}
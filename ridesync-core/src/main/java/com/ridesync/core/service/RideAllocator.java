@@ -1,25 +1,46 @@
 package com.ridesync.core.service;
 
+import com.ridesync.core.concurrent.StripedLock;
+import com.ridesync.core.exception.IllegalRideTransitionException;
 import com.ridesync.core.exception.NoDriverAvailableException;
 import com.ridesync.core.factory.FareStrategyFactory;
 import com.ridesync.core.model.*;
+import com.ridesync.core.spatial.DriverSpatialIndex;
 import com.ridesync.core.strategy.FareStrategy;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.BooleanSupplier;
 
 /**
  * Singleton service for thread-safe ride allocation.
  * Handles concurrent ride bookings without race conditions.
  * Implements Singleton pattern for centralized allocation management.
+ * 
+ * Instead of one global monitor, bookings lock the stripe of their pickup
+ * cell and lifecycle transitions lock the stripe of the driver involved, so
+ * unrelated bookings and rides run in parallel. A driver's status only flips
+ * from AVAILABLE to BUSY under that driver's lock, so no driver can ever be
+ * assigned to two rides at once.
+ * 
+ * Ride lifecycle transitions need no lock at all: each is a compare-and-set
+ * along the legal {@link RideStatus} edges, so of concurrent start, complete
+ * or cancel calls on one ride only the first legal one takes effect. Only
+ * the winner touches the driver, under that driver's lock.
  */
 @Slf4j
 public class RideAllocator {
+    private static final int CANDIDATE_COUNT = 5;
+    private static final double MAX_PICKUP_RADIUS_KM = 50.0;
+    private static final int LOCK_STRIPES = 256;
+    private static final int MAX_CLAIM_ATTEMPTS = 10;
+    
     private static volatile RideAllocator instance;
     private final SurgePricingService surgePricingService;
+    private final StripedLock regionLocks = new StripedLock(LOCK_STRIPES);
+    private final StripedLock driverLocks = new StripedLock(LOCK_STRIPES);
+    private volatile DriverClaim driverClaim = DriverClaim.LOCAL;
     
     // Private constructor for singleton
     private RideAllocator() {
@@ -40,40 +61,221 @@ public class RideAllocator {
         return instance;
     }
     
+    public SurgePricingService getSurgePricingService() {
+        return surgePricingService;
+    }
+    
+    /**
+     * Set the shared-storage claim used after a driver is claimed locally.
+     * Defaults to {@link DriverClaim#LOCAL}.
+     */
+    public void setDriverClaim(DriverClaim driverClaim) {
+        this.driverClaim = driverClaim;
+    }
+    
     /**
      * Assign a driver to a ride with thread safety.
-     * This method is synchronized to prevent race conditions during concurrent bookings.
+     * Candidates are tried nearest first; each is claimed under its own driver
+     * lock, so concurrent bookings over the same list never share a driver.
      * 
      * @param ride The ride to assign
      * @param availableDrivers List of available drivers
      * @return The assigned driver
      * @throws NoDriverAvailableException if no driver is available
+     * @throws IllegalRideTransitionException if the ride can no longer be assigned
      */
-    public synchronized Driver assignDriver(Ride ride, List<Driver> availableDrivers) {
+    public Driver assignDriver(Ride ride, List<Driver> availableDrivers) {
         log.info("Attempting to assign driver for ride: {}", ride.getId());
+        requireAssignable(ride);
         
-        // Find nearest available driver
-        Optional<Driver> nearestDriver = availableDrivers.stream()
+        // Nearest available drivers first, scanned over a primitive snapshot
+        DriverCoordinates candidates = DriverCoordinates.of(availableDrivers.stream()
                 .filter(Driver::isAvailable)
-                .min(Comparator.comparingDouble(driver -> 
-                    driver.getCurrentLocation().distanceTo(ride.getStartLocation())
-                ));
+                .filter(driver -> driver.getCurrentLocation() != null)
+                .toList());
+        
+        // Try the closest few; only if all were taken meanwhile, widen the
+        // shortlist geometrically instead of ordering the whole fleet
+        Location origin = ride.getStartLocation();
+        Driver driver = null;
+        int tried = 0;
+        for (int k = CANDIDATE_COUNT; driver == null && tried < candidates.size(); k *= 4) {
+            int[] order = candidates.nearest(origin, k, Double.POSITIVE_INFINITY);
+            driver = claimFirst(ride, candidates, order, tried);
+            tried = order.length;
+        }
+        
+        if (driver != null) {
+            applyAssignment(ride, driver, null);
+            return driver;
+        }
+        
+        log.error("No driver available for ride: {}", ride.getId());
+        throw new NoDriverAvailableException(
+            "No drivers available in your area. Please try again later."
+        );
+    }
+    
+    /**
+     * Assign the nearest indexed driver to a ride.
+     * Only the cells around the pickup point are searched, so the cost does not
+     * grow with fleet size. The assigned driver is removed from the index.
+     * Bookings are serialized per pickup cell stripe only, and the shared
+     * claim runs outside that lock. A lost shared claim leaves the driver out
+     * of the index and moves on to the next-best candidate.
+     * 
+     * @param ride The ride to assign
+     * @param driverIndex Spatial index of available drivers
+     * @return The assigned driver
+     * @throws NoDriverAvailableException if no driver is available nearby
+     * @throws IllegalRideTransitionException if the ride can no longer be assigned
+     */
+    public Driver assignDriver(Ride ride, DriverSpatialIndex driverIndex) {
+        log.info("Attempting to assign driver for ride: {}", ride.getId());
+        requireAssignable(ride);
         
-        if (nearestDriver.isEmpty()) {
-            log.error("No driver available for ride: {}", ride.getId());
-            throw new NoDriverAvailableException(
-                "No drivers available in your area. Please try again later."
-            );
+        long pickupCell = driverIndex.getGrid().cellKey(ride.getStartLocation());
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Driver driver = regionLocks.withLock(pickupCell, () -> claimNearest(ride, driverIndex));
+            if (driver == null) {
+                break;
+            }
+            if (claimShared(ride, driver, driverIndex)) {
+                applyAssignment(ride, driver, driverIndex);
+                return driver;
+            }
         }
         
-        Driver driver = nearestDriver.get();
+        log.error("No driver available for ride: {}", ride.getId());
+        throw new NoDriverAvailableException(
+            "No drivers available in your area. Please try again later."
+        );
+    }
+    
+    /**
+     * Claim the first available driver in order, skipping the first from
+     * entries, which an earlier, narrower shortlist already tried.
+     */
+    private Driver claimFirst(Ride ride, DriverCoordinates candidates, int[] order, int from) {
+        for (int i = from; i < order.length; i++) {
+            Driver driver = candidates.driver(order[i]);
+            if (claim(driver) && claimShared(ride, driver, null)) {
+                return driver;
+            }
+        }
+        return null;
+    }
+    
+    private Driver claimNearest(Ride ride, DriverSpatialIndex driverIndex) {
+        List<Driver> candidates = driverIndex.findNearest(
+                ride.getStartLocation(), CANDIDATE_COUNT, MAX_PICKUP_RADIUS_KM);
         
+        for (Driver candidate : candidates) {
+            // Removing from the index hands the driver to this booking only
+            Driver removed = driverIndex.remove(candidate.getId());
+            if (removed != null && claim(removed)) {
+                return removed;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Assign a specific indexed driver to a ride, as chosen by a batch solver.
+     * 
+     * @return true if the driver was still available and is now assigned
+     * @throws IllegalRideTransitionException if the ride can no longer be assigned
+     */
+    public boolean tryAssign(Ride ride, Driver driver, DriverSpatialIndex driverIndex) {
+        requireAssignable(ride);
+        Driver removed = driverIndex.remove(driver.getId());
+        if (removed == null || !claim(removed) || !claimShared(ride, removed, driverIndex)) {
+            return false;
+        }
+        applyAssignment(ride, removed, driverIndex);
+        return true;
+    }
+    
+    /**
+     * Undo the claim on a driver whose booking did not go through, for
+     * example because it was abandoned or rolled back. The driver becomes
+     * available in shared storage and locally, and returns to the index if
+     * one is given.
+     */
+    public void releaseDriver(Driver driver, DriverSpatialIndex driverIndex) {
+        driverClaim.release(driver);
+        driverLocks.withLock(driver.getId(), () -> driver.setStatus(DriverStatus.AVAILABLE));
+        if (driverIndex != null) {
+            driverIndex.add(driver);
+        }
+        log.info("Released driver {} from a booking that did not go through", driver.getId());
+    }
+    
+    /**
+     * Atomically move a driver from AVAILABLE to BUSY.
+     * 
+     * @return true if this caller claimed the driver
+     */
+    private boolean claim(Driver driver) {
+        return driverLocks.withLock(driver.getId(), () -> {
+            if (!driver.isAvailable()) {
+                return false;
+            }
+            driver.setStatus(DriverStatus.BUSY);
+            return true;
+        });
+    }
+    
+    /**
+     * Claim a locally claimed driver in shared storage.
+     * On failure the driver is busy on another node, so it stays BUSY here.
+     * If the claim cannot be made at all, the local claim is undone and the
+     * driver returned to the index, if it came from one, before rethrowing.
+     */
+    private boolean claimShared(Ride ride, Driver driver, DriverSpatialIndex driverIndex) {
+        boolean claimed;
+        try {
+            claimed = driverClaim.tryClaim(driver);
+        } catch (RuntimeException e) {
+            driverLocks.withLock(driver.getId(), () -> driver.setStatus(DriverStatus.AVAILABLE));
+            if (driverIndex != null) {
+                driverIndex.add(driver);
+            }
+            throw e;
+        }
+        if (claimed) {
+            return true;
+        }
+        log.warn("Lost claim on driver {} for ride {}, trying next candidate",
+                driver.getId(), ride.getId());
+        return false;
+    }
+    
+    /**
+     * Fail before claiming a driver for a ride that was already cancelled
+     * or assigned.
+     */
+    private static void requireAssignable(Ride ride) {
+        RideStatus status = ride.getStatus();
+        if (!status.canTransitionTo(RideStatus.ASSIGNED)) {
+            throw new IllegalRideTransitionException(ride.getId(), status, RideStatus.ASSIGNED);
+        }
+    }
+    
+    /**
+     * Hand a claimed driver to the ride. If the ride was cancelled since the
+     * driver was claimed, the driver is released again before rethrowing.
+     */
+    private void applyAssignment(Ride ride, Driver driver, DriverSpatialIndex driverIndex) {
         // Update ride with driver assignment
         ride.setDriverId(driver.getId());
-        ride.setStatus(RideStatus.ASSIGNED);
-        
-        // Update driver status
-        driver.setStatus(DriverStatus.BUSY);
+        try {
+            ride.transitionTo(RideStatus.ASSIGNED);
+        } catch (IllegalRideTransitionException e) {
+            ride.setDriverId(null);
+            releaseDriver(driver, driverIndex);
+            throw e;
+        }
         
         // Calculate surge and fare
         double surgeMultiplier = surgePricingService.calculateSurgeMultiplier(ride.getStartLocation());
@@ -84,41 +286,67 @@ public class RideAllocator {
         
         log.info("Assigned driver {} to ride {} with fare: {}", 
                 driver.getId(), ride.getId(), fare);
-        
-        return driver;
     }
     
     /**
      * Complete a ride and update driver earnings.
-     * Synchronized to ensure thread-safe updates.
+     * 
+     * @throws IllegalRideTransitionException if the ride is not in progress
      */
-    public synchronized void completeRide(Ride ride, Driver driver) {
-        ride.setStatus(RideStatus.COMPLETED);
+    public void completeRide(Ride ride, Driver driver) {
+        completeRide(ride, driver, () -> true);
+    }
+    
+    /**
+     * Complete a ride and update driver earnings.
+     * Only a call that moves the ride from STARTED credits the driver, so a
+     * ride is never paid twice.
+     * 
+     * @param releaseDriver asked once the ride is completed; false if the driver
+     *                      still has other pool riders on board
+     * @return whether the driver was made available again
+     * @throws IllegalRideTransitionException if the ride is not in progress
+     */
+    public boolean completeRide(Ride ride, Driver driver, BooleanSupplier releaseDriver) {
+        ride.transitionTo(RideStatus.COMPLETED);
         ride.setCompletedAt(LocalDateTime.now());
+        boolean release = releaseDriver.getAsBoolean();
         
-        driver.addCompletedRide(ride);
-        driver.setStatus(DriverStatus.AVAILABLE);
+        surgePricingService.recordCompletion(ride.getEndLocation());
+        driverLocks.withLock(driver.getId(), () -> {
+            driver.addCompletedRide(ride);
+            if (release) {
+                driver.setStatus(DriverStatus.AVAILABLE);
+            }
+        });
         
         log.info("Completed ride {} with earnings: {}", ride.getId(), ride.getFare());
+        return release;
     }
     
     /**
      * Start a ride.
+     * 
+     * @throws IllegalRideTransitionException if no driver is assigned or the ride has already started
      */
-    public synchronized void startRide(Ride ride) {
-        ride.setStatus(RideStatus.STARTED);
+    public void startRide(Ride ride) {
+        ride.transitionTo(RideStatus.STARTED);
         ride.setStartedAt(LocalDateTime.now());
         log.info("Started ride: {}", ride.getId());
     }
     
     /**
      * Cancel a ride and free up the driver.
+     * 
+     * @return The status the ride was cancelled from
+     * @throws IllegalRideTransitionException if the ride has already finished
      */
-    public synchronized void cancelRide(Ride ride, Driver driver) {
-        ride.setStatus(RideStatus.CANCELLED);
+    public RideStatus cancelRide(Ride ride, Driver driver) {
+        RideStatus previous = ride.transitionTo(RideStatus.CANCELLED);
         if (driver != null) {
-            driver.setStatus(DriverStatus.AVAILABLE);
+            driverLocks.withLock(driver.getId(), () -> driver.setStatus(DriverStatus.AVAILABLE));
         }
         log.info("Cancelled ride: {}", ride.getId());
+        return previous;
     }
 }
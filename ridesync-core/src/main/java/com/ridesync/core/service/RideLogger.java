@@ -1,97 +1,404 @@
 package com.ridesync.core.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridesync.core.log.BinaryRideCodec;
+import com.ridesync.core.log.CompactionMetrics;
+import com.ridesync.core.log.CompactionResult;
+import com.ridesync.core.log.GroupCommitWriter;
+import com.ridesync.core.log.JsonRideCodec;
+import com.ridesync.core.log.LogFormat;
+import com.ridesync.core.log.LogOptions;
+import com.ridesync.core.log.LogRecord;
+import com.ridesync.core.log.LogSink;
+import com.ridesync.core.log.LogWriterMetrics;
+import com.ridesync.core.log.RideCodec;
+import com.ridesync.core.log.RideLogQuery;
+import com.ridesync.core.log.SegmentedLog;
+import com.ridesync.core.log.StringDictionary;
 import com.ridesync.core.model.Ride;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Service for persisting ride data to JSON files.
- * Implements file I/O with JSON serialization using Jackson.
+ * Service for persisting ride data to the ride log.
+ * Every state change of a ride is appended as one record to a
+ * {@link SegmentedLog}, keyed by ride id, so a write costs the same no matter
+ * how much history the log holds and one ride's history can be looked up
+ * without scanning the log. Records are JSON or, for a much smaller log,
+ * {@link BinaryRideCodec} binary; both are read back whichever is configured.
+ *
+ * Writes are asynchronous: {@link #logRide} serializes the ride on the
+ * caller's thread and hands the record to a {@link GroupCommitWriter}, which
+ * appends queued records in batches on its own thread.
  */
 @Slf4j
-public class RideLogger {
+public class RideLogger implements AutoCloseable {
     private static final String LOG_DIRECTORY = "ride-logs";
-    private static final String LOG_FILE = "rides.json";
+    // Earlier single-file formats, imported into the segmented log on startup
+    private static final String LEGACY_LOG_FILE = "rides.json";
+    private static final String NDJSON_LOG_FILE = "rides.ndjson";
+    private static final String DICTIONARY_FILE = "strings.dict";
     private final ObjectMapper objectMapper;
-    private final Path logFilePath;
-    
+    private final Path logDirectory;
+    private final LogOptions options;
+    private final JsonRideCodec jsonCodec;
+    private StringDictionary dictionary;
+    private BinaryRideCodec binaryCodec;
+    private RideCodec encoder;
+    private volatile SegmentedLog segmentedLog;
+    private volatile GroupCommitWriter writer;
+
     public RideLogger() {
+        this(Paths.get(LOG_DIRECTORY));
+    }
+
+    public RideLogger(Path logDirectory) {
+        this(logDirectory, LogOptions.defaults());
+    }
+
+    public RideLogger(Path logDirectory, LogOptions options) {
+        this(logDirectory, options, false);
+    }
+
+    private RideLogger(Path logDirectory, LogOptions options, boolean readOnly) {
         this.objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
-        // Create log directory if it doesn't exist
-        try {
-            Files.createDirectories(Paths.get(LOG_DIRECTORY));
-        } catch (IOException e) {
-            log.error("Failed to create log directory", e);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.jsonCodec = new JsonRideCodec(objectMapper);
+        this.logDirectory = logDirectory;
+        this.options = options;
+
+        if (readOnly) {
+            openReadOnly();
+        } else {
+            open();
         }
-        
-        this.logFilePath = Paths.get(LOG_DIRECTORY, LOG_FILE);
     }
-    
+
     /**
-     * Log a ride to JSON file.
-     * Appends ride data in a thread-safe manner.
+     * Open an existing ride log for reading only, e.g. for replay or
+     * reconciliation next to a running node. Logging is not available.
      */
-    public synchronized void logRide(Ride ride) {
+    public static RideLogger openReadOnly(Path logDirectory) {
+        return new RideLogger(logDirectory, LogOptions.defaults(), true);
+    }
+
+    public Path getLogDirectory() {
+        return logDirectory;
+    }
+
+    /**
+     * Log a ride to the ride log.
+     * The ride is serialized immediately, so later changes to it are not
+     * picked up; the record is written in the background. Blocks only while
+     * the write buffer is full.
+     */
+    public void logRide(Ride ride) {
+        GroupCommitWriter out = writer;
+        if (out == null) {
+            log.error("Ride log is not open, dropping ride {}", ride.getId());
+            return;
+        }
         try {
-            List<Ride> rides = readAllRides();
-            rides.add(ride);
-            
-            String json = objectMapper.writeValueAsString(rides);
-            Files.writeString(logFilePath, json, StandardOpenOption.CREATE, 
-                            StandardOpenOption.TRUNCATE_EXISTING);
-            
-            log.info("Logged ride {} to file", ride.getId());
-        } catch (IOException e) {
+            out.append(new LogRecord(ride.getId(), encoder.encode(ride)));
+
+            log.debug("Queued ride {} for the log", ride.getId());
+        } catch (IOException | IllegalStateException e) {
             log.error("Failed to log ride to file", e);
         }
     }
-    
+
     /**
-     * Read all rides from the log file.
+     * Wait until every ride logged so far has been written to the log.
+     *
+     * @throws IllegalStateException if the log writer failed and stopped writing
      */
-    public List<Ride> readAllRides() {
+    public void flush() {
+        GroupCommitWriter out = writer;
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Ride events queued but not yet written.
+     */
+    public int getQueueDepth() {
+        GroupCommitWriter out = writer;
+        return out == null ? 0 : out.getQueueDepth();
+    }
+
+    public LogWriterMetrics getMetrics() {
+        GroupCommitWriter out = writer;
+        return out == null ? new LogWriterMetrics() : out.getMetrics();
+    }
+
+    /**
+     * Compact sealed log segments down to the latest state per ride and wait
+     * for it; logging carries on meanwhile. Normally run in the background
+     * every {@link LogOptions#getCompactionIntervalMillis()}.
+     *
+     * @return What the compaction did, or null if there was nothing new to compact
+     */
+    public CompactionResult compact() throws IOException {
+        SegmentedLog rides = segmentedLog;
+        if (rides == null || writer == null) {
+            throw new IllegalStateException("Ride log is not open for writing: " + logDirectory);
+        }
+        return rides.compact();
+    }
+
+    public CompactionMetrics getCompactionMetrics() {
+        SegmentedLog rides = segmentedLog;
+        return rides == null ? new CompactionMetrics() : rides.getCompactionMetrics();
+    }
+
+    /**
+     * Every logged state of one ride, oldest first.
+     * Uses the per-segment index instead of scanning the log. Once the
+     * segments holding a ride are compacted, only its latest state from
+     * them remains.
+     */
+    public List<Ride> getRideHistory(String rideId) {
+        SegmentedLog rides = segmentedLog;
+        if (rides == null) {
+            return new ArrayList<>();
+        }
+        flush();
         try {
-            if (!Files.exists(logFilePath)) {
-                return new ArrayList<>();
-            }
-            
-            String content = Files.readString(logFilePath);
-            if (content.isBlank()) {
-                return new ArrayList<>();
-            }
-            
-            return objectMapper.readValue(content, 
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Ride.class));
+            return rides.history(rideId).stream()
+                    .map(this::parseRecord)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
         } catch (IOException e) {
+            log.error("Failed to read history of ride {}", rideId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Stream every logged ride record in write order.
+     * Rides still queued are written first, so the stream includes them.
+     * Records that cannot be parsed are skipped. Segments are read one at a
+     * time; the stream should be closed by the caller.
+     */
+    public Stream<Ride> streamRides() throws IOException {
+        return streamRides(RideLogQuery.ALL, false);
+    }
+
+    /**
+     * Stream the logged ride records matching a query, without loading the
+     * log into memory. A parallel stream reads segments concurrently on the
+     * common fork-join pool; use forEachOrdered or an ordered collector if
+     * write order matters.
+     */
+    public Stream<Ride> streamRides(RideLogQuery query, boolean parallel) throws IOException {
+        SegmentedLog rides = segmentedLog;
+        if (rides == null) {
+            return Stream.empty();
+        }
+        flush();
+        return rides.records(parallel)
+                .filter(record -> query.mayMatch(record.payload()))
+                .map(this::parseRecord)
+                .filter(Objects::nonNull)
+                .filter(query::matches);
+    }
+
+    /**
+     * Read all rides from the log into memory.
+     * Only suitable for small logs; prefer {@link #streamRides(RideLogQuery, boolean)}.
+     */
+    public List<Ride> readAllRides() {
+        try (Stream<Ride> rides = streamRides()) {
+            return rides.collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
             log.error("Failed to read rides from file", e);
             return new ArrayList<>();
         }
     }
-    
+
     /**
      * Clear all logged rides (for testing).
      */
     public synchronized void clearLogs() {
+        GroupCommitWriter out = writer;
+        if (out == null) {
+            return;
+        }
+        out.flush();
         try {
-            Files.deleteIfExists(logFilePath);
+            segmentedLog.clear();
             log.info("Cleared ride logs");
         } catch (IOException e) {
             log.error("Failed to clear logs", e);
         }
     }
+
+    /**
+     * Write out queued rides and seal the active segment.
+     */
+    @Override
+    public synchronized void close() {
+        GroupCommitWriter out = writer;
+        writer = null;
+        segmentedLog = null;
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    private void open() {
+        try {
+            SegmentedLog rides = new SegmentedLog(logDirectory, options);
+            dictionary = new StringDictionary(logDirectory.resolve(DICTIONARY_FILE));
+            binaryCodec = new BinaryRideCodec(dictionary);
+            encoder = options.getFormat() == LogFormat.BINARY ? binaryCodec : jsonCodec;
+            importLegacyArray(rides, logDirectory.resolve(LEGACY_LOG_FILE));
+            importNdjson(rides, logDirectory.resolve(NDJSON_LOG_FILE));
+            segmentedLog = rides;
+            writer = new GroupCommitWriter(new DictionaryFirstSink(rides, dictionary), options.getBufferSize(),
+                    options.getFsyncPolicy(), options.getFsyncIntervalMillis());
+        } catch (IOException e) {
+            log.error("Failed to open ride log in {}", logDirectory, e);
+        }
+    }
+
+    private void openReadOnly() {
+        try {
+            segmentedLog = SegmentedLog.openReadOnly(logDirectory);
+            binaryCodec = new BinaryRideCodec(new StringDictionary(logDirectory.resolve(DICTIONARY_FILE)));
+        } catch (IOException e) {
+            log.error("Failed to open ride log in {}", logDirectory, e);
+        }
+    }
+
+    private Ride parseRecord(LogRecord record) {
+        try {
+            byte[] payload = record.payload();
+            return JsonRideCodec.isJson(payload) ? jsonCodec.decode(payload) : binaryCodec.decode(payload);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable ride log record for {}: {}", record.key(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * One-time import of the original log: a single pretty-printed JSON array.
+     * The array is read element by element, so memory stays flat however
+     * large it is. The file is kept with a .migrated suffix.
+     */
+    private void importLegacyArray(SegmentedLog rides, Path legacyPath) {
+        if (!Files.exists(legacyPath)) {
+            return;
+        }
+
+        int migrated = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(legacyPath.toFile())) {
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    Ride ride = objectMapper.readValue(parser, Ride.class);
+                    appendImported(rides, ride);
+                    migrated++;
+                }
+            }
+            rides.sync();
+            markMigrated(legacyPath);
+            log.info("Migrated {} rides from {}", migrated, legacyPath);
+        } catch (IOException e) {
+            log.error("Failed to migrate legacy ride log {} after {} rides, leaving it in place",
+                    legacyPath, migrated, e);
+        }
+    }
+
+    /**
+     * One-time import of the newline-delimited JSON log.
+     */
+    private void importNdjson(SegmentedLog rides, Path ndjsonPath) {
+        if (!Files.exists(ndjsonPath)) {
+            return;
+        }
+
+        int migrated = 0;
+        try (BufferedReader reader = Files.newBufferedReader(ndjsonPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Ride ride = objectMapper.readValue(line, Ride.class);
+                    appendImported(rides, ride);
+                    migrated++;
+                } catch (JsonProcessingException e) {
+                    log.warn("Skipping unreadable ride log line: {}", e.getOriginalMessage());
+                }
+            }
+            rides.sync();
+            markMigrated(ndjsonPath);
+            log.info("Migrated {} rides from {}", migrated, ndjsonPath);
+        } catch (IOException e) {
+            log.error("Failed to migrate ride log {} after {} rides, leaving it in place",
+                    ndjsonPath, migrated, e);
+        }
+    }
+
+    private void appendImported(SegmentedLog rides, Ride ride) throws IOException {
+        byte[] payload = encoder.encode(ride);
+        dictionary.sync();
+        rides.append(ride.getId(), payload);
+    }
+
+    private static void markMigrated(Path path) throws IOException {
+        Files.move(path, path.resolveSibling(path.getFileName() + ".migrated"),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Writes new dictionary entries out, and forces them to disk, before the
+     * records that may refer to them; segment pages can reach the disk as
+     * soon as they are written.
+     */
+    private record DictionaryFirstSink(SegmentedLog rides, StringDictionary dictionary) implements LogSink {
+
+        @Override
+        public void write(LogRecord[] batch, int offset, int count) throws IOException {
+            dictionary.sync();
+            rides.write(batch, offset, count);
+        }
+
+        @Override
+        public void sync() {
+            rides.sync();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                rides.close();
+            } finally {
+                dictionary.close();
+            }
+        }
+    }
 }
@@ -1,61 +1,176 @@
 package com.ridesync.core.service;
 
+import com.ridesync.core.model.Location;
+import com.ridesync.core.spatial.GeoGrid;
+import com.ridesync.core.surge.CellDemandTracker;
+import com.ridesync.core.surge.SurgeTable;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 /**
  * Service for calculating dynamic surge pricing.
- * Uses ML-like heuristic based on time of day, demand, and randomization.
- * This is a "wow factor" feature for hackathon judges.
+ * Surge follows the live demand/supply ratio around the pickup point:
+ * recent ride requests against available drivers plus recently freed ones.
+ *
+ * Multipliers are precomputed per grid cell into a {@link SurgeTable} by a
+ * background refresh, so a booking only looks up its pickup cell.
  */
 @Slf4j
 public class SurgePricingService {
-    private static final Random random = new Random();
-    
+    private static final double MAX_SURGE = 2.5;
+    // Extra multiplier per unit of demand above supply
+    private static final double SENSITIVITY = 0.5;
+    // Cells around the pickup cell counted as the same market (3x3 cells)
+    private static final int NEIGHBOURHOOD_RINGS = 1;
+
+    private final CellDemandTracker demandTracker;
+    private volatile ToIntFunction<Location> supplySource = location -> 0;
+    private volatile SurgeTable surgeTable = SurgeTable.EMPTY;
+    private ScheduledExecutorService scheduler;
+
+    public SurgePricingService() {
+        this(new CellDemandTracker());
+    }
+
+    public SurgePricingService(CellDemandTracker demandTracker) {
+        this.demandTracker = demandTracker;
+    }
+
     /**
-     * Calculate surge multiplier based on current conditions.
-     * Algorithm considers:
-     * - Time of day (peak hours)
-     * - Day of week
-     * - Simulated demand (random component for demo)
-     * 
-     * @param location Current location (could be used for area-specific surge)
+     * Set how many drivers are currently available in the grid cell of a
+     * location, e.g. backed by the spatial index of available drivers.
+     */
+    public void setSupplySource(ToIntFunction<Location> supplySource) {
+        this.supplySource = supplySource;
+    }
+
+    public CellDemandTracker getDemandTracker() {
+        return demandTracker;
+    }
+
+    /**
+     * Record a ride request at its pickup location.
+     */
+    public void recordRequest(Location location) {
+        demandTracker.recordRequest(location);
+    }
+
+    /**
+     * Record a completed ride at its drop-off, where the driver becomes free.
+     */
+    public void recordCompletion(Location location) {
+        demandTracker.recordCompletion(location);
+    }
+
+    /**
+     * Look up the surge multiplier for a pickup location in the current table.
+     *
+     * @param location Pickup location
      * @return Surge multiplier (1.0 = no surge, >1.0 = surge pricing)
      */
-    public double calculateSurgeMultiplier(com.ridesync.core.model.Location location) {
-        LocalDateTime now = LocalDateTime.now();
-        double surge = 1.0;
-        
-        // Time-of-day based surge
-        int hour = now.getHour();
-        if ((hour >= 7 && hour <= 9) || (hour >= 17 && hour <= 19)) {
-            // Morning and evening rush hours
-            surge += 0.5;
-        } else if (hour >= 22 || hour <= 5) {
-            // Late night surge
-            surge += 0.3;
+    public double calculateSurgeMultiplier(Location location) {
+        SurgeTable table = surgeTable;
+        return table.multiplierFor(demandTracker.getGrid().cellKey(location));
+    }
+
+    public SurgeTable getSurgeTable() {
+        return surgeTable;
+    }
+
+    /**
+     * Rebuild the surge table from the current counters and publish it.
+     * Covers every cell with recent activity and its neighbours, computed in
+     * parallel. Quiet cells elsewhere fall back to the city-wide ratio.
+     */
+    public SurgeTable refresh() {
+        long start = System.nanoTime();
+        demandTracker.evictIdleCells();
+
+        Set<Long> activeCells = demandTracker.activeCells();
+        Set<Long> cells = new HashSet<>();
+        for (long cellKey : activeCells) {
+            int row = GeoGrid.rowOf(cellKey);
+            int column = GeoGrid.columnOf(cellKey);
+            for (int r = row - NEIGHBOURHOOD_RINGS; r <= row + NEIGHBOURHOOD_RINGS; r++) {
+                for (int c = column - NEIGHBOURHOOD_RINGS; c <= column + NEIGHBOURHOOD_RINGS; c++) {
+                    cells.add(GeoGrid.key(r, c));
+                }
+            }
         }
-        
-        // Weekend surge (simulated)
-        int dayOfWeek = now.getDayOfWeek().getValue();
-        if (dayOfWeek == 6 || dayOfWeek == 7) {
-            surge += 0.2;
+
+        Map<Long, CellMarket> markets = cells.parallelStream()
+                .collect(Collectors.toConcurrentMap(cellKey -> cellKey, this::marketFor));
+
+        long totalDemand = 0;
+        long totalSupply = 0;
+        for (long cellKey : activeCells) {
+            CellMarket market = markets.get(cellKey);
+            totalDemand += market.ownDemand();
+            totalSupply += market.ownSupply();
         }
-        
-        // Simulated demand factor (ML-like heuristic)
-        // In production, this would query real-time demand data
-        double demandFactor = 0.2 + random.nextDouble() * 0.4; // 0.2 to 0.6
-        surge += demandFactor;
-        
-        // Cap maximum surge
-        surge = Math.min(surge, 2.5);
-        
-        log.info("Calculated surge multiplier: {} for hour: {}", surge, hour);
+
+        Map<Long, Double> multipliers = markets.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().multiplier()));
+        long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        SurgeTable table = new SurgeTable(multipliers, surgeFor(totalDemand, totalSupply),
+                surgeTable.getVersion() + 1, Instant.now(), computeMillis);
+        surgeTable = table;
+        log.debug("Surge table v{}: {} cells, fallback {}, {} ms",
+                table.getVersion(), multipliers.size(),
+                table.getFallbackMultiplier(), computeMillis);
+        return table;
+    }
+
+    /**
+     * Refresh the surge table every period on a background thread.
+     */
+    public synchronized void start(long periodMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "surge-table-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.error("Surge table refresh failed", e);
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+        log.info("Surge table refresh started every {} ms", periodMillis);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Map a demand/supply pair to a surge multiplier.
+     * Surge starts once demand exceeds supply and is capped at 2.5x.
+     */
+    public static double surgeFor(long demand, long supply) {
+        double ratio = (double) demand / Math.max(supply, 1);
+        double surge = Math.min(1.0 + Math.max(ratio - 1.0, 0.0) * SENSITIVITY, MAX_SURGE);
         return Math.round(surge * 100.0) / 100.0; // Round to 2 decimals
     }
-    
+
     /**
      * Check if current time is peak hour.
      */
@@ -63,4 +178,29 @@ public class SurgePricingService {
         int hour = LocalDateTime.now().getHour();
         return (hour >= 7 && hour <= 9) || (hour >= 17 && hour <= 19);
     }
+
+    private CellMarket marketFor(long cellKey) {
+        int row = GeoGrid.rowOf(cellKey);
+        int column = GeoGrid.columnOf(cellKey);
+        int ownDrivers = 0;
+        long drivers = 0;
+        for (int r = row - NEIGHBOURHOOD_RINGS; r <= row + NEIGHBOURHOOD_RINGS; r++) {
+            for (int c = column - NEIGHBOURHOOD_RINGS; c <= column + NEIGHBOURHOOD_RINGS; c++) {
+                int count = supplySource.applyAsInt(demandTracker.cellCenter(GeoGrid.key(r, c)));
+                drivers += count;
+                if (r == row && c == column) {
+                    ownDrivers = count;
+                }
+            }
+        }
+
+        long demand = demandTracker.recentRequests(cellKey, NEIGHBOURHOOD_RINGS);
+        long supply = drivers + demandTracker.recentCompletions(cellKey, NEIGHBOURHOOD_RINGS);
+        return new CellMarket(surgeFor(demand, supply),
+                demandTracker.recentRequests(cellKey, 0),
+                ownDrivers + demandTracker.recentCompletions(cellKey, 0));
+    }
+
+    private record CellMarket(double multiplier, long ownDemand, long ownSupply) {
+    }
 }
@@ -0,0 +1,206 @@
+package com.ridesync.core.spatial;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.Location;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index of available drivers.
+ * Drivers are bucketed into uniform grid cells so nearest-driver queries only
+ * look at cells around the pickup point instead of scanning the whole fleet.
+ *
+ * All mutations for a driver are applied atomically per driver ID, so a driver
+ * can only be removed (claimed) by one caller at a time.
+ */
+public class DriverSpatialIndex {
+    private final GeoGrid grid;
+    private final ConcurrentHashMap<String, Entry> drivers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+    public DriverSpatialIndex() {
+        this(new GeoGrid());
+    }
+
+    public DriverSpatialIndex(GeoGrid grid) {
+        this.grid = grid;
+    }
+
+    public GeoGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Add or refresh a driver in the index.
+     * Drivers that are not available are removed instead.
+     */
+    public void add(Driver driver) {
+        if (!driver.isAvailable() || driver.getCurrentLocation() == null) {
+            remove(driver.getId());
+            return;
+        }
+
+        long cellKey = grid.cellKey(driver.getCurrentLocation());
+        drivers.compute(driver.getId(), (id, existing) -> {
+            if (existing != null) {
+                removeFromCell(existing.cellKey, id);
+            }
+            addToCell(cellKey, id);
+            return new Entry(driver, cellKey);
+        });
+    }
+
+    /**
+     * Remove a driver from the index.
+     *
+     * @return The removed driver, or null if it was not indexed. Only one
+     *         concurrent caller can receive a given driver.
+     */
+    public Driver remove(String driverId) {
+        Driver[] removed = new Driver[1];
+        drivers.computeIfPresent(driverId, (id, existing) -> {
+            removeFromCell(existing.cellKey, id);
+            removed[0] = existing.driver;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Move an indexed driver to a new location.
+     * Has no effect if the driver is not currently indexed.
+     */
+    public void updateLocation(String driverId, Location location) {
+        long cellKey = grid.cellKey(location);
+        drivers.computeIfPresent(driverId, (id, existing) -> {
+            existing.driver.setCurrentLocation(location);
+            if (existing.cellKey != cellKey) {
+                removeFromCell(existing.cellKey, id);
+                addToCell(cellKey, id);
+                existing.cellKey = cellKey;
+            }
+            return existing;
+        });
+    }
+
+    /**
+     * Find the nearest K indexed drivers within a radius.
+     * Searches outward ring by ring from the origin cell and stops as soon as
+     * no unvisited cell can hold a closer driver than the K-th best found.
+     *
+     * @param origin Search centre
+     * @param k Maximum number of drivers to return
+     * @param radiusKm Maximum distance from the origin in kilometers
+     * @return Drivers ordered by increasing distance
+     */
+    public List<Driver> findNearest(Location origin, int k, double radiusKm) {
+        if (k <= 0 || drivers.isEmpty()) {
+            return List.of();
+        }
+
+        int originRow = grid.row(origin.getLatitude());
+        int originColumn = grid.column(origin.getLongitude());
+        double cellKm = grid.minCellExtentKm(origin.getLatitude());
+        int maxRing = (int) Math.ceil(radiusKm / cellKm) + 1;
+
+        // Max-heap on distance so the worst of the current best K is on top
+        PriorityQueue<Candidate> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::distance).reversed());
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int row = originRow - ring; row <= originRow + ring; row++) {
+                boolean edgeRow = row == originRow - ring || row == originRow + ring;
+                int step = edgeRow ? 1 : Math.max(2 * ring, 1);
+                for (int column = originColumn - ring; column <= originColumn + ring; column += step) {
+                    collect(GeoGrid.key(row, column), origin, k, radiusKm, best);
+                }
+            }
+
+            // Every cell in the next ring is at least ring * cellKm away
+            if (best.size() == k && best.peek().distance() <= ring * cellKm) {
+                break;
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(Candidate::distance));
+        return ordered.stream().map(Candidate::driver).toList();
+    }
+
+    /**
+     * Number of drivers indexed in the cell containing the given location.
+     */
+    public int countInCell(Location location) {
+        Set<String> ids = cells.get(grid.cellKey(location));
+        return ids == null ? 0 : ids.size();
+    }
+
+    public boolean contains(String driverId) {
+        return drivers.containsKey(driverId);
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    public void clear() {
+        drivers.clear();
+        cells.clear();
+    }
+
+    private void collect(long cellKey, Location origin, int k, double radiusKm, PriorityQueue<Candidate> best) {
+        Set<String> ids = cells.get(cellKey);
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            Entry entry = drivers.get(id);
+            if (entry == null) {
+                continue;
+            }
+            double distance = entry.driver.getCurrentLocation().distanceTo(origin);
+            if (distance > radiusKm) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.offer(new Candidate(entry.driver, distance));
+            } else if (distance < best.peek().distance()) {
+                best.poll();
+                best.offer(new Candidate(entry.driver, distance));
+            }
+        }
+    }
+
+    private void addToCell(long cellKey, String driverId) {
+        cells.compute(cellKey, (key, ids) -> {
+            Set<String> set = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            set.add(driverId);
+            return set;
+        });
+    }
+
+    private void removeFromCell(long cellKey, String driverId) {
+        cells.computeIfPresent(cellKey, (key, ids) -> {
+            ids.remove(driverId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static final class Entry {
+        private final Driver driver;
+        private volatile long cellKey;
+
+        private Entry(Driver driver, long cellKey) {
+            this.driver = driver;
+            this.cellKey = cellKey;
+        }
+    }
+
+    private record Candidate(Driver driver, double distance) {
+    }
+}
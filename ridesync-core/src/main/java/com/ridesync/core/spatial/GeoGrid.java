@@ -0,0 +1,85 @@
+package com.ridesync.core.spatial;
+
+import com.ridesync.core.model.Location;
+
+/**
+ * Uniform latitude/longitude grid used to bucket locations into cells.
+ * Each cell is identified by a single long key packing its row and column,
+ * which keeps cell lookups allocation-free on the booking path.
+ */
+public class GeoGrid {
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double DEFAULT_CELL_SIZE_DEGREES = 0.01; // ~1.1 km at the equator
+
+    private final double cellSizeDegrees;
+
+    public GeoGrid() {
+        this(DEFAULT_CELL_SIZE_DEGREES);
+    }
+
+    public GeoGrid(double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+
+    public double getCellSizeDegrees() {
+        return cellSizeDegrees;
+    }
+
+    public int row(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+    }
+
+    public int column(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellSizeDegrees);
+    }
+
+    /**
+     * Pack a row and column into a single cell key.
+     */
+    public static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    public static int rowOf(long cellKey) {
+        return (int) (cellKey >> 32);
+    }
+
+    public static int columnOf(long cellKey) {
+        return (int) cellKey;
+    }
+
+    public long cellKey(double latitude, double longitude) {
+        return key(row(latitude), column(longitude));
+    }
+
+    public long cellKey(Location location) {
+        return cellKey(location.getLatitude(), location.getLongitude());
+    }
+
+    /**
+     * Latitude of the centre of the given cell.
+     */
+    public double centerLatitude(long cellKey) {
+        return (rowOf(cellKey) + 0.5) * cellSizeDegrees - 90.0;
+    }
+
+    /**
+     * Longitude of the centre of the given cell.
+     */
+    public double centerLongitude(long cellKey) {
+        return (columnOf(cellKey) + 0.5) * cellSizeDegrees - 180.0;
+    }
+
+    /**
+     * Smallest ground extent of a cell near the given latitude, in kilometers.
+     * Cells shrink east-west away from the equator, so the longitude span is the
+     * limiting side and gives a safe lower bound for ring-by-ring searches.
+     */
+    public double minCellExtentKm(double latitude) {
+        double cosLat = Math.max(Math.cos(Math.toRadians(Math.abs(latitude) + cellSizeDegrees)), 0.01);
+        return cellSizeDegrees * KM_PER_DEGREE * cosLat;
+    }
+}
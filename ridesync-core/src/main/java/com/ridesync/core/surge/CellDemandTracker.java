@@ -0,0 +1,141 @@
+package com.ridesync.core.surge;
+
+import com.ridesync.core.model.Location;
+import com.ridesync.core.spatial.GeoGrid;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Recent ride requests and completions per grid cell.
+ * Counters are created on first use and updated without locks, so recording
+ * an event on the booking path never blocks.
+ */
+public class CellDemandTracker {
+    public static final long DEFAULT_WINDOW_MILLIS = 5 * 60 * 1000;
+    public static final int DEFAULT_BUCKETS = 10;
+
+    private final GeoGrid grid;
+    private final long windowMillis;
+    private final int bucketCount;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Long, CellCounters> cells = new ConcurrentHashMap<>();
+
+    public CellDemandTracker() {
+        this(new GeoGrid(), DEFAULT_WINDOW_MILLIS, DEFAULT_BUCKETS, System::currentTimeMillis);
+    }
+
+    public CellDemandTracker(GeoGrid grid, long windowMillis, int bucketCount, LongSupplier clock) {
+        this.grid = grid;
+        this.windowMillis = windowMillis;
+        this.bucketCount = bucketCount;
+        this.clock = clock;
+    }
+
+    public GeoGrid getGrid() {
+        return grid;
+    }
+
+    public void recordRequest(Location location) {
+        counters(grid.cellKey(location)).requests.increment();
+    }
+
+    public void recordCompletion(Location location) {
+        counters(grid.cellKey(location)).completions.increment();
+    }
+
+    /**
+     * Requests in the window, summed over the cell and its neighbours within rings.
+     */
+    public long recentRequests(Location location, int rings) {
+        long total = 0;
+        for (long cellKey : neighbourhood(location, rings)) {
+            CellCounters counters = cells.get(cellKey);
+            if (counters != null) {
+                total += counters.requests.sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Completions in the window, summed over the cell and its neighbours within rings.
+     */
+    public long recentCompletions(Location location, int rings) {
+        long total = 0;
+        for (long cellKey : neighbourhood(location, rings)) {
+            CellCounters counters = cells.get(cellKey);
+            if (counters != null) {
+                total += counters.completions.sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Requests in the window, summed over a cell and its neighbours within rings.
+     */
+    public long recentRequests(long cellKey, int rings) {
+        return recentRequests(cellCenter(cellKey), rings);
+    }
+
+    /**
+     * Completions in the window, summed over a cell and its neighbours within rings.
+     */
+    public long recentCompletions(long cellKey, int rings) {
+        return recentCompletions(cellCenter(cellKey), rings);
+    }
+
+    /**
+     * Cells that have counters, i.e. saw a request or completion recently.
+     */
+    public Set<Long> activeCells() {
+        return Set.copyOf(cells.keySet());
+    }
+
+    /**
+     * Drop counters of cells with nothing left in their window, so the map
+     * only holds cells with recent activity. An event recorded in the same
+     * instant a cell is dropped may be lost.
+     *
+     * @return Number of cells removed
+     */
+    public int evictIdleCells() {
+        int before = cells.size();
+        cells.entrySet().removeIf(entry ->
+                entry.getValue().requests.sum() == 0 && entry.getValue().completions.sum() == 0);
+        return before - cells.size();
+    }
+
+    public Location cellCenter(long cellKey) {
+        return Location.builder()
+                .latitude(grid.centerLatitude(cellKey))
+                .longitude(grid.centerLongitude(cellKey))
+                .build();
+    }
+
+    private long[] neighbourhood(Location location, int rings) {
+        int originRow = grid.row(location.getLatitude());
+        int originColumn = grid.column(location.getLongitude());
+        int side = 2 * rings + 1;
+        long[] keys = new long[side * side];
+        int i = 0;
+        for (int row = originRow - rings; row <= originRow + rings; row++) {
+            for (int column = originColumn - rings; column <= originColumn + rings; column++) {
+                keys[i++] = GeoGrid.key(row, column);
+            }
+        }
+        return keys;
+    }
+
+    private CellCounters counters(long cellKey) {
+        CellCounters counters = cells.get(cellKey);
+        return counters != null ? counters : cells.computeIfAbsent(cellKey, key -> new CellCounters(
+                new SlidingWindowCounter(windowMillis, bucketCount, clock),
+                new SlidingWindowCounter(windowMillis, bucketCount, clock)));
+    }
+
+    private record CellCounters(SlidingWindowCounter requests, SlidingWindowCounter completions) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.ridesync.core.surge;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free event counter over a sliding time window.
+ * The window is split into a ring of buckets, each a {@link LongAdder} stamped
+ * with the time slot it counts. A bucket is recycled by the first writer of a
+ * new slot; an increment racing with that reset may be dropped, which only
+ * matters at bucket boundaries and is acceptable for pricing signals.
+ */
+public class SlidingWindowCounter {
+    private final long bucketMillis;
+    private final LongAdder[] buckets;
+    private final AtomicLongArray bucketSlots;
+    private final LongSupplier clock;
+
+    public SlidingWindowCounter(long windowMillis, int bucketCount) {
+        this(windowMillis, bucketCount, System::currentTimeMillis);
+    }
+
+    public SlidingWindowCounter(long windowMillis, int bucketCount, LongSupplier clock) {
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.buckets = new LongAdder[bucketCount];
+        this.bucketSlots = new AtomicLongArray(bucketCount);
+        this.clock = clock;
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new LongAdder();
+            bucketSlots.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void increment() {
+        long slot = clock.getAsLong() / bucketMillis;
+        int index = (int) Math.floorMod(slot, (long) buckets.length);
+        long seen = bucketSlots.get(index);
+        if (seen != slot && bucketSlots.compareAndSet(index, seen, slot)) {
+            buckets[index].reset();
+        }
+        buckets[index].increment();
+    }
+
+    /**
+     * Number of events in the current window.
+     * Cost depends only on the bucket count, never on the event rate.
+     */
+    public long sum() {
+        long slot = clock.getAsLong() / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            long bucketSlot = bucketSlots.get(i);
+            if (bucketSlot != Long.MIN_VALUE && slot - bucketSlot < buckets.length) {
+                total += buckets[i].sum();
+            }
+        }
+        return total;
+    }
+}
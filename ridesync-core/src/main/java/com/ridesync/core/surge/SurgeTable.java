@@ -0,0 +1,56 @@
+package com.ridesync.core.surge;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of surge multipliers per grid cell.
+ * Cells without an entry use the fallback multiplier. A new table is built
+ * off the booking path and published as a whole, so readers never see a
+ * half-updated grid.
+ */
+public final class SurgeTable {
+    public static final SurgeTable EMPTY = new SurgeTable(Map.of(), 1.0, 0, Instant.EPOCH, 0);
+
+    private final Map<Long, Double> multipliers;
+    private final double fallbackMultiplier;
+    private final long version;
+    private final Instant computedAt;
+    private final long computeMillis;
+
+    public SurgeTable(Map<Long, Double> multipliers, double fallbackMultiplier,
+                      long version, Instant computedAt, long computeMillis) {
+        this.multipliers = Map.copyOf(multipliers);
+        this.fallbackMultiplier = fallbackMultiplier;
+        this.version = version;
+        this.computedAt = computedAt;
+        this.computeMillis = computeMillis;
+    }
+
+    /**
+     * Multiplier for a grid cell, or the fallback if the cell has no entry.
+     */
+    public double multiplierFor(long cellKey) {
+        return multipliers.getOrDefault(cellKey, fallbackMultiplier);
+    }
+
+    public Map<Long, Double> getMultipliers() {
+        return multipliers;
+    }
+
+    public double getFallbackMultiplier() {
+        return fallbackMultiplier;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getComputedAt() {
+        return computedAt;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ridesync.core.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the incrementally ranked driver leaderboard.
+ */
+class LeaderboardTest {
+
+    @Test
+    void testRanksByEarningsThenDriverId() {
+        Leaderboard board = new Leaderboard();
+        board.add("d1", 100.0, 1);
+        board.add("d2", 250.0, 2);
+        board.add("d3", 100.0, 1);
+        board.add("d4", 0.0, 0);
+
+        assertEquals(List.of("d2", "d1", "d3"), driverIds(board.top(3)));
+        assertEquals(4, board.top(10).size());
+        assertEquals(List.of(), board.top(0));
+
+        board.add("d1", 200.0, 1);
+        assertEquals(List.of("d1", "d2", "d3", "d4"), driverIds(board.top(10)));
+        assertEquals(new Leaderboard.Entry("d1", 300.0, 2), board.get("d1").orElseThrow());
+
+        board.remove("d2");
+        assertEquals(List.of("d1", "d3", "d4"), driverIds(board.top(10)));
+        assertEquals(3, board.size());
+    }
+
+    @Test
+    void testConcurrentUpdatesKeepOneEntryPerDriver() {
+        Leaderboard board = new Leaderboard();
+
+        IntStream.range(0, 20_000).parallel().forEach(i -> board.add("d" + (i % 50), i % 50, 1));
+
+        List<Leaderboard.Entry> top = board.top(100);
+        assertEquals(50, top.size());
+        assertEquals("d49", top.get(0).driverId());
+        assertEquals(49.0 * 400, top.get(0).earnings(), 0.001);
+        assertEquals(400, top.get(0).completedRides());
+        assertEquals(20_000, top.stream().mapToLong(Leaderboard.Entry::completedRides).sum());
+    }
+
+    @Test
+    void testWindowStarts() {
+        LocalDateTime thursday = LocalDateTime.of(2026, 10, 15, 18, 30);
+
+        assertEquals(LocalDateTime.of(2026, 10, 15, 0, 0), LeaderboardWindow.DAY.start(thursday));
+        assertEquals(LocalDateTime.of(2026, 10, 12, 0, 0), LeaderboardWindow.WEEK.start(thursday));
+        assertEquals(LocalDateTime.of(2026, 10, 12, 0, 0),
+                LeaderboardWindow.WEEK.start(LocalDateTime.of(2026, 10, 12, 0, 0)));
+        assertEquals(LocalDateTime.MIN, LeaderboardWindow.ALL.start(thursday));
+    }
+
+    private static List<String> driverIds(List<Leaderboard.Entry> entries) {
+        return entries.stream().map(Leaderboard.Entry::driverId).toList();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ridesync.core.analytics;
+
+import com.ridesync.core.model.RideType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-minute ride activity buckets.
+ */
+class MinuteRingTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void testRecordsIntoCurrentMinute() {
+        AtomicLong now = new AtomicLong(100 * MINUTE + 5_000);
+        MinuteRing ring = new MinuteRing(10, now::get);
+
+        ring.recordRequested(RideType.STANDARD, 1.5);
+        ring.recordRequested(RideType.STANDARD, 1.0);
+        ring.recordCompleted(RideType.POOL, 40.0);
+        now.addAndGet(MINUTE);
+        ring.recordCancelled(RideType.STANDARD);
+
+        List<MinuteRing.Minute> minutes = ring.minutes(0, Long.MAX_VALUE);
+        assertEquals(2, minutes.size());
+        assertEquals(100, minutes.get(0).epochMinute());
+        assertEquals(Map.of(
+                RideType.STANDARD, new RideActivity(2, 0, 0, 0.0, 2.5),
+                RideType.POOL, new RideActivity(0, 1, 0, 40.0, 0.0)), minutes.get(0).activity());
+        assertEquals(1.25, minutes.get(0).activity().get(RideType.STANDARD).averageSurge());
+        assertEquals(Map.of(RideType.STANDARD, new RideActivity(0, 0, 1, 0.0, 0.0)), minutes.get(1).activity());
+
+        assertEquals(List.of(), ring.minutes(101, 101));
+        assertEquals(101, ring.minutes(101, 102).get(0).epochMinute());
+    }
+
+    @Test
+    void testWrappedMinutesAreReplaced() {
+        AtomicLong now = new AtomicLong(0);
+        MinuteRing ring = new MinuteRing(3, now::get);
+
+        for (int minute = 0; minute < 5; minute++) {
+            now.set(minute * MINUTE);
+            ring.recordRequested(RideType.LUXURY, 1.0);
+        }
+
+        assertEquals(List.of(2L, 3L, 4L), ring.minutes(0, 10).stream().map(MinuteRing.Minute::epochMinute).toList());
+        ring.minutes(0, 10).forEach(minute -> assertEquals(1, minute.activity().get(RideType.LUXURY).requested()));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() {
+        MinuteRing ring = new MinuteRing(5, () -> 42 * MINUTE);
+
+        IntStream.range(0, 20_000).parallel().forEach(i -> ring.recordCompleted(RideType.STANDARD, 2.0));
+
+        RideActivity activity = ring.minutes(42, 43).get(0).activity().get(RideType.STANDARD);
+        assertEquals(20_000, activity.completed());
+        assertEquals(40_000.0, activity.revenue(), 0.001);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ridesync.core.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the size- and time-bounded cache.
+ */
+class BoundedCacheTest {
+
+    @Test
+    void testEvictsOldestInsertedBeyondMaxSize() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(3, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.put("a", 10); // replacing keeps a's place
+        cache.put("d", 4);
+
+        assertEquals(3, cache.size());
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertEquals(Optional.of(2), cache.get("b"));
+        assertEquals(Optional.of(4), cache.get("d"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testEntriesExpireAfterWrite() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, now::get);
+        cache.put("ride", "ASSIGNED");
+
+        now.set(900_000_000L);
+        assertEquals(Optional.of("ASSIGNED"), cache.get("ride"));
+        cache.put("ride", "STARTED");
+        now.set(1_800_000_000L);
+        assertEquals(Optional.of("STARTED"), cache.get("ride"), "A write restarts the time to live");
+        now.set(1_900_000_000L);
+        assertEquals(Optional.empty(), cache.get("ride"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPutIfAbsentKeepsLiveValue() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, now::get);
+        cache.putIfAbsent("ride", "ASSIGNED");
+        cache.putIfAbsent("ride", "REQUESTED");
+        assertEquals(Optional.of("ASSIGNED"), cache.get("ride"));
+
+        now.set(2_000_000_000L);
+        cache.putIfAbsent("ride", "STARTED");
+        assertEquals(Optional.of("STARTED"), cache.get("ride"), "An expired value is replaced");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testInvalidatedKeysDoNotGrowTheQueueOrBlockEviction() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(5, 60_000);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+            cache.invalidate(i);
+        }
+        IntStream.range(0, 7).forEach(i -> cache.put(i, i));
+
+        assertEquals(5, cache.size());
+        assertEquals(Optional.empty(), cache.get(0));
+        assertEquals(Optional.of(6), cache.get(6));
+    }
+
+    @Test
+    void testConcurrentPutsStayWithinMaxSize() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, 60_000);
+
+        IntStream.range(0, 50_000).parallel().forEach(i -> {
+            cache.put(i % 1_000, i);
+            cache.get(i % 1_000);
+        });
+
+        assertTrue(cache.size() <= 100, "size " + cache.size());
+        assertEquals(50_000, cache.getHitCount() + cache.getMissCount());
+    }
+}
@@ -0,0 +1,191 @@
+package com.ridesync.core.dispatch;
+
+import com.ridesync.core.factory.RideFactory;
+import com.ridesync.core.model.*;
+import com.ridesync.core.service.DriverClaim;
+import com.ridesync.core.service.RideAllocator;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batched dispatch and the assignment solvers.
+ */
+class BatchDispatcherTest {
+
+    private static final double INF = AssignmentSolver.INFEASIBLE;
+
+    @Test
+    void testHungarianFindsOptimalAssignment() {
+        double[][] cost = {
+            {4, 1, 3},
+            {2, 0, 5},
+            {3, 2, 2}
+        };
+
+        int[] assignment = new HungarianSolver().solve(cost);
+
+        // Taking the cheapest pair (rider 1, driver 1) first costs 6; the optimum is 1 + 2 + 2 = 5
+        assertEquals(5.0, totalCost(cost, assignment), 1e-9);
+    }
+
+    @Test
+    void testHungarianHandlesMoreRidersThanDriversAndInfeasiblePairs() {
+        double[][] cost = {
+            {1, INF},
+            {INF, INF},
+            {2, 3}
+        };
+
+        int[] assignment = new HungarianSolver().solve(cost);
+
+        assertEquals(-1, assignment[1]);
+        assertEquals(4.0, totalCost(cost, assignment), 1e-9);
+    }
+
+    @Test
+    void testAuctionIsCloseToHungarian() {
+        Random random = new Random(7);
+        double[][] cost = new double[60][80];
+        for (double[] row : cost) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextDouble() * 10;
+            }
+        }
+
+        double exact = totalCost(cost, new HungarianSolver().solve(cost));
+        double auction = totalCost(cost, new AuctionSolver().solve(cost));
+
+        assertTrue(auction <= exact + 60 * 0.01 + 1e-9, "Auction should be within n * epsilon of optimal");
+    }
+
+    @Test
+    void testBatchBeatsGreedyOnPickupDistance() {
+        // Greedy in arrival order gives A to the first rider and leaves the second
+        // rider with distant B. Matching the batch jointly swaps them.
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(driver("A", 12.9700, 77.6000));
+        index.add(driver("B", 12.9700, 77.6300));
+        BatchDispatcher dispatcher = new BatchDispatcher(RideAllocator.getInstance(), index, 300, 100);
+
+        Ride first = ride(12.9700, 77.6100);
+        Ride second = ride(12.9700, 77.5950);
+        CompletableFuture<Driver> firstDriver = dispatcher.submit(first);
+        CompletableFuture<Driver> secondDriver = dispatcher.submit(second);
+        dispatcher.dispatchPending();
+
+        assertEquals("B", firstDriver.join().getId());
+        assertEquals("A", secondDriver.join().getId());
+        assertEquals(RideStatus.ASSIGNED, first.getStatus());
+        assertEquals(1, dispatcher.getMetrics().getBatchCount());
+        assertEquals(2, dispatcher.getMetrics().getMatchedRides());
+    }
+
+    @Test
+    void testUnmatchedRidesFailWhenFleetExhausted() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        Random random = new Random(11);
+        for (int i = 0; i < 5; i++) {
+            index.add(driver("d" + i, 12.95 + random.nextDouble() * 0.05, 77.58 + random.nextDouble() * 0.05));
+        }
+        BatchDispatcher dispatcher = new BatchDispatcher(RideAllocator.getInstance(), index, 300, 100);
+
+        List<CompletableFuture<Driver>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(dispatcher.submit(ride(12.96, 77.60)));
+        }
+        dispatcher.dispatchPending();
+
+        Set<String> assigned = new HashSet<>();
+        long failed = 0;
+        for (CompletableFuture<Driver> result : results) {
+            if (result.isCompletedExceptionally()) {
+                failed++;
+            } else {
+                assertTrue(assigned.add(result.join().getId()), "Driver assigned twice");
+            }
+        }
+        assertEquals(5, assigned.size());
+        assertEquals(3, failed);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testEveryRideCompletesWhenClaimsFail() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(driver("A", 12.9700, 77.6000));
+        index.add(driver("B", 12.9700, 77.6300));
+        RideAllocator allocator = RideAllocator.getInstance();
+        BatchDispatcher dispatcher = new BatchDispatcher(allocator, index, 300, 100);
+        allocator.setDriverClaim(driver -> {
+            throw new IllegalStateException("database down");
+        });
+        try {
+            List<CompletableFuture<Driver>> results = List.of(
+                    dispatcher.submit(ride(12.9700, 77.6100)),
+                    dispatcher.submit(ride(12.9700, 77.5950)));
+            dispatcher.dispatchPending();
+
+            for (CompletableFuture<Driver> result : results) {
+                assertTrue(result.isCompletedExceptionally(), "Every submitted ride must be completed");
+            }
+            assertEquals(2, index.size(), "Drivers whose claim failed must return to the index");
+        } finally {
+            allocator.setDriverClaim(DriverClaim.LOCAL);
+        }
+    }
+
+    @Test
+    void testRidesGivenUpOnAreNotAssigned() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        Driver driver = driver("A", 12.9700, 77.6000);
+        index.add(driver);
+        BatchDispatcher dispatcher = new BatchDispatcher(RideAllocator.getInstance(), index, 300, 100, 50);
+
+        CompletableFuture<Driver> result = dispatcher.submit(ride(12.9700, 77.6100))
+                .orTimeout(dispatcher.getAssignTimeoutMillis(), TimeUnit.MILLISECONDS);
+        assertThrows(CompletionException.class, result::join);
+        dispatcher.dispatchPending();
+
+        assertEquals(DriverStatus.AVAILABLE, driver.getStatus());
+        assertTrue(index.contains("A"));
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    private double totalCost(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                total += cost[i][assignment[i]];
+            }
+        }
+        return total;
+    }
+
+    private Ride ride(double latitude, double longitude) {
+        Location start = Location.builder().latitude(latitude).longitude(longitude).build();
+        Location end = Location.builder().latitude(12.9698).longitude(77.7500).build();
+        return RideFactory.createRide(RideType.STANDARD, "rider1", start, end);
+    }
+
+    private Driver driver(String id, double latitude, double longitude) {
+        return Driver.builder()
+                .id(id)
+                .name("Driver " + id)
+                .status(DriverStatus.AVAILABLE)
+                .currentLocation(Location.builder().latitude(latitude).longitude(longitude).build())
+                .vehicle("Test Car")
+                .vehicleNumber("TEST-" + id)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ridesync.core.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridesync.core.factory.RideFactory;
+import com.ridesync.core.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary ride record codec.
+ */
+class BinaryRideCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEveryRideTypeRoundTrips() throws Exception {
+        BinaryRideCodec codec = new BinaryRideCodec(new StringDictionary(directory.resolve("strings.dict")));
+
+        PoolRide pool = (PoolRide) ride(RideType.POOL);
+        pool.setPooledRiderIds(List.of("RDR-0A1B2C3D", "rider-legacy"));
+        LuxuryRide luxury = (LuxuryRide) ride(RideType.LUXURY);
+        luxury.setAmenities("WiFi, Water");
+        luxury.setPremiumDriver(true);
+        Ride standard = ride(RideType.STANDARD);
+        standard.setDriverId(null);
+        standard.setCompletedAt(null);
+
+        for (Ride ride : List.of(standard, pool, luxury)) {
+            assertEquals(ride, codec.decode(codec.encode(ride)));
+        }
+    }
+
+    @Test
+    void testRecordsAreMuchSmallerThanJson() throws Exception {
+        BinaryRideCodec codec = new BinaryRideCodec(new StringDictionary(directory.resolve("strings.dict")));
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Ride ride = ride(RideType.STANDARD);
+        codec.encode(ride); // addresses enter the dictionary on first use
+
+        int binary = codec.encode(ride).length;
+        int json = objectMapper.writeValueAsBytes(ride).length;
+        assertTrue(json >= 4 * binary, "json " + json + " bytes vs binary " + binary + " bytes");
+    }
+
+    @Test
+    void testDictionaryIsSharedAcrossRestarts() throws Exception {
+        Path file = directory.resolve("strings.dict");
+        Ride ride = ride(RideType.STANDARD);
+        StringDictionary dictionary = new StringDictionary(file);
+        byte[] encoded = new BinaryRideCodec(dictionary).encode(ride);
+        assertEquals(0, new StringDictionary(file).size(), "New entries stay in memory until synced");
+        dictionary.sync();
+
+        StringDictionary reopened = new StringDictionary(file);
+        assertEquals(2, reopened.size());
+        assertEquals("MG Road", new BinaryRideCodec(reopened).decode(encoded).getStartLocation().getAddress());
+    }
+
+    @Test
+    void testUnknownVersionIsRejected() throws Exception {
+        BinaryRideCodec codec = new BinaryRideCodec(new StringDictionary(directory.resolve("strings.dict")));
+        byte[] encoded = codec.encode(ride(RideType.STANDARD));
+        encoded[1] = 99;
+
+        assertThrows(IOException.class, () -> codec.decode(encoded));
+        assertThrows(IOException.class, () -> codec.decode(new byte[]{BinaryRideCodec.MAGIC, BinaryRideCodec.VERSION, 0}));
+    }
+
+    private Ride ride(RideType rideType) {
+        Ride ride = RideFactory.createRide(rideType, "RDR-1A2B3C4D",
+                Location.builder().latitude(12.9716).longitude(77.5946).address("MG Road").build(),
+                Location.builder().latitude(12.9352).longitude(77.6245).address("Koramangala").build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        ride.setDriverId("DRV-9F8E7D6C");
+        ride.restoreStatus(RideStatus.COMPLETED);
+        ride.setRequestedAt(now.minusMinutes(30));
+        ride.setStartedAt(now.minusMinutes(20));
+        ride.setCompletedAt(now);
+        ride.setDistance(5.184651844857277);
+        ride.setFare(71.84651844857277);
+        ride.setSurgeMultiplier(1.25);
+        return ride;
+    }
+}
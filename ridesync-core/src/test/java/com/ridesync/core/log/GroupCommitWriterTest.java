@@ -0,0 +1,189 @@
+package com.ridesync.core.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ring-buffered group-commit writer.
+ */
+class GroupCommitWriterTest {
+
+    @Test
+    void testConcurrentProducersLoseNothingThroughASmallBuffer() throws Exception {
+        MemorySink sink = new MemorySink();
+        int producers = 8;
+        int perProducer = 2_000;
+
+        GroupCommitWriter writer = new GroupCommitWriter(sink, 16, FsyncPolicy.NONE, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    writer.append(record(producer + ":" + i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        writer.close();
+
+        assertEquals(producers * perProducer, sink.values.size());
+        assertEquals(producers * perProducer, new HashSet<>(sink.values).size());
+        assertTrue(sink.closed);
+
+        LogWriterMetrics metrics = writer.getMetrics();
+        assertEquals(producers * perProducer, metrics.getRecordCount());
+        assertTrue(metrics.getLastBatchSize() <= writer.getCapacity());
+        assertTrue(metrics.getBatchCount() < producers * perProducer, "Records should be grouped into batches");
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    void testRecordsFromOneProducerKeepTheirOrder() throws Exception {
+        MemorySink sink = new MemorySink();
+        try (GroupCommitWriter writer = new GroupCommitWriter(sink, 4, FsyncPolicy.EVERY_BATCH, 0)) {
+            for (int i = 0; i < 100; i++) {
+                writer.append(record(String.valueOf(i)));
+            }
+            writer.flush();
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(String.valueOf(i), sink.values.get(i));
+            }
+            assertEquals(writer.getMetrics().getBatchCount(), sink.syncs);
+        }
+    }
+
+    @Test
+    void testIntervalPolicyFsyncsIdleWrites() throws Exception {
+        try (GroupCommitWriter writer = new GroupCommitWriter(new MemorySink(), 8, FsyncPolicy.INTERVAL, 20)) {
+            Thread.sleep(30);
+            writer.append(record("first"));
+            writer.append(record("second"));
+            writer.flush();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (writer.getMetrics().getFsyncCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(writer.getMetrics().getFsyncCount() > 0);
+        }
+    }
+
+    @Test
+    void testAppendAfterCloseIsRejected() throws Exception {
+        MemorySink sink = new MemorySink();
+        GroupCommitWriter writer = new GroupCommitWriter(sink, 8, FsyncPolicy.NONE, 0);
+        writer.append(record("kept"));
+        writer.close();
+
+        assertEquals(List.of("kept"), sink.values);
+        assertThrows(IllegalStateException.class, () -> writer.append(record("dropped")));
+    }
+
+    @Test
+    void testFailedWriteIsRetriedFromTheFirstUnwrittenRecord() throws Exception {
+        AtomicInteger failures = new AtomicInteger(2);
+        MemorySink sink = new MemorySink() {
+            @Override
+            public void write(LogRecord[] batch, int offset, int count) throws IOException {
+                if (count > 1 && failures.getAndDecrement() > 0) {
+                    // Append one record, then fail
+                    super.write(batch, offset, 1);
+                    throw new LogWriteException(1, new IOException("disk full"));
+                }
+                super.write(batch, offset, count);
+            }
+        };
+        try (GroupCommitWriter writer = new GroupCommitWriter(sink, 8, FsyncPolicy.NONE, 0)) {
+            for (int i = 0; i < 50; i++) {
+                writer.append(record(String.valueOf(i)));
+            }
+            writer.flush();
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                expected.add(String.valueOf(i));
+            }
+            assertEquals(expected, sink.values, "Each record should be written once, in order");
+            assertEquals(50, writer.getMetrics().getRecordCount());
+            assertEquals(0, writer.getMetrics().getFailedRecordCount());
+            assertNull(writer.getFailure());
+        }
+    }
+
+    @Test
+    void testWriterFailsWhenRetriesRunOut() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        MemorySink sink = new MemorySink() {
+            @Override
+            public void write(LogRecord[] batch, int offset, int count) throws IOException {
+                attempts.incrementAndGet();
+                throw new IOException("disk gone");
+            }
+        };
+        GroupCommitWriter writer = new GroupCommitWriter(sink, 8, FsyncPolicy.NONE, 0);
+        writer.append(record("lost"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, writer::flush);
+        assertEquals("disk gone", e.getCause().getMessage());
+        assertThrows(IllegalStateException.class, () -> writer.append(record("rejected")));
+        assertEquals(GroupCommitWriter.MAX_WRITE_ATTEMPTS, attempts.get());
+        assertEquals(0, writer.getMetrics().getRecordCount());
+        assertEquals(1, writer.getMetrics().getFailedRecordCount());
+        writer.close();
+        assertTrue(sink.closed);
+    }
+
+    private static LogRecord record(String value) {
+        return new LogRecord("RIDE-1", value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sink keeping payloads in memory, in the order they were written.
+     */
+    private static class MemorySink implements LogSink {
+        private final List<String> values = Collections.synchronizedList(new ArrayList<>());
+        private volatile int syncs;
+        private volatile boolean closed;
+
+        @Override
+        public void write(LogRecord[] batch, int offset, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                values.add(new String(batch[offset + i].payload(), StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void sync() {
+            syncs++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
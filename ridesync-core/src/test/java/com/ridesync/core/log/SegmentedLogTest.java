@@ -0,0 +1,263 @@
+package com.ridesync.core.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the segmented, memory-mapped log.
+ */
+class SegmentedLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSegmentsRollBySizeAndHistorySpansThem() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(256).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            for (int i = 0; i < 20; i++) {
+                log.append("RIDE-" + (i % 3), payload("event-" + i));
+            }
+
+            assertTrue(log.segmentIds().size() >= 3);
+            assertEquals(List.of("event-1", "event-4", "event-7", "event-10", "event-13", "event-16", "event-19"),
+                    values(log.history("RIDE-1")));
+            assertEquals(20, log.records().count());
+            assertTrue(log.history("RIDE-9").isEmpty());
+        }
+    }
+
+    @Test
+    void testHistorySkipsSegmentsThatCannotHoldTheKey() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(128).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            log.append("RIDE-RARE", payload("requested"));
+            for (int i = 0; i < 600; i++) {
+                log.append("RIDE-" + (i % 2), payload("event-" + i));
+            }
+            log.append("RIDE-RARE", payload("completed"));
+            List<Long> segmentIds = log.segmentIds();
+            assertTrue(segmentIds.size() > 100, "More segments than cached indexes");
+            assertEquals(List.of("requested", "completed"), values(log.history("RIDE-RARE")));
+
+            // Only the first segment holds the key, so no other index is read again
+            for (long segmentId : segmentIds.subList(1, segmentIds.size() - 1)) {
+                Files.delete(directory.resolve(String.format("rides-%020d.idx", segmentId)));
+            }
+            assertEquals(List.of("requested", "completed"), values(log.history("RIDE-RARE")));
+        }
+    }
+
+    @Test
+    void testSegmentsRollByAge() throws Exception {
+        LogOptions options = LogOptions.builder().rollIntervalMillis(1).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            log.append("RIDE-1", payload("requested"));
+            Thread.sleep(5);
+            log.append("RIDE-1", payload("completed"));
+
+            assertEquals(2, log.segmentIds().size());
+            assertEquals(List.of("requested", "completed"), values(log.history("RIDE-1")));
+        }
+    }
+
+    @Test
+    void testSealedSegmentsAreCompressedAndStillReadable() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(256).compressSealedSegments(true).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            for (int i = 0; i < 12; i++) {
+                log.append("RIDE-" + (i % 2), payload("event-" + i));
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).toList();
+            assertTrue(names.stream().anyMatch(name -> name.endsWith(".seg.gz")));
+            assertTrue(names.stream().noneMatch(name -> name.endsWith(".seg")));
+        }
+        try (SegmentedLog reopened = new SegmentedLog(directory, options)) {
+            assertEquals(6, reopened.history("RIDE-0").size());
+            assertEquals(12, reopened.records().count());
+        }
+    }
+
+    @Test
+    void testDamagedRecordIsDroppedOnRecovery() throws Exception {
+        try (SegmentedLog log = new SegmentedLog(directory, LogOptions.defaults())) {
+            log.append("RIDE-1", payload("requested"));
+            log.append("RIDE-1", payload("assigned"));
+        }
+        // As if the process died mid-write: no index, last record damaged
+        Path segment = directory.resolve("rides-00000000000000000001.seg");
+        Files.delete(directory.resolve("rides-00000000000000000001.idx"));
+        byte[] data = Files.readAllBytes(segment);
+        int at = new String(data, StandardCharsets.ISO_8859_1).lastIndexOf("assigned");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(payload("X")), at);
+        }
+
+        try (SegmentedLog reopened = new SegmentedLog(directory, LogOptions.defaults())) {
+            assertEquals(List.of("requested"), values(reopened.history("RIDE-1")));
+            reopened.append("RIDE-1", payload("started"));
+            assertEquals(List.of("requested", "started"), values(reopened.history("RIDE-1")));
+            assertEquals(2, reopened.records().count());
+        }
+    }
+
+    @Test
+    void testParallelReadMatchesSequentialAcrossSegments() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(256).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            for (int i = 0; i < 200; i++) {
+                log.append("RIDE-" + (i % 7), payload("event-" + i));
+            }
+            assertTrue(log.segmentIds().size() > 10);
+
+            List<String> sequential = values(log.records(false).toList());
+            List<String> parallel = values(log.records(true).toList());
+            assertEquals(200, sequential.size());
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    void testReadOnlyOpenLeavesLiveLogUntouched() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(256).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            for (int i = 0; i < 20; i++) {
+                log.append("RIDE-" + (i % 3), payload("event-" + i));
+            }
+            List<String> before = fileNames();
+
+            try (SegmentedLog reader = SegmentedLog.openReadOnly(directory)) {
+                assertEquals(20, reader.records(true).count());
+                assertEquals(7, reader.history("RIDE-1").size());
+                assertThrows(IllegalStateException.class, () -> reader.append("RIDE-1", payload("x")));
+            }
+            assertEquals(before, fileNames());
+        }
+    }
+
+    @Test
+    void testCompactionKeepsLatestRecordPerKey() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(1024).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            appendLifecycles(log, 40);
+            log.roll();
+
+            CompactionResult result = log.compact();
+            assertEquals(120, result.recordsIn());
+            assertEquals(40, result.recordsOut());
+            assertTrue(result.segmentsOut() < result.segmentsIn());
+            assertTrue(result.bytesBefore() > 2.5 * result.bytesAfter(), result.toString());
+            assertEquals(result.bytesReclaimed(), log.getCompactionMetrics().getBytesReclaimed());
+            assertNull(log.compact(), "Nothing sealed since the last compaction");
+
+            assertEquals(List.of("RIDE-7:completed"), values(log.history("RIDE-7")));
+            assertEquals(completedInWriteOrder(40), values(log.records().toList()));
+            log.append("RIDE-7", payload("RIDE-7:rated"));
+            assertEquals(List.of("RIDE-7:completed", "RIDE-7:rated"), values(log.history("RIDE-7")));
+        }
+
+        try (SegmentedLog reopened = new SegmentedLog(directory, options)) {
+            assertEquals(41, reopened.records().count());
+            assertEquals(List.of("RIDE-0:completed"), values(reopened.history("RIDE-0")));
+        }
+    }
+
+    @Test
+    void testStreamReadsLogAsOfItsCreationThroughCompaction() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(1024).compressSealedSegments(true).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            appendLifecycles(log, 40);
+            log.roll();
+
+            try (Stream<LogRecord> before = log.records(true)) {
+                assertNotNull(log.compact());
+                assertEquals(120, before.count());
+            }
+            assertEquals(40, log.records().count());
+        }
+    }
+
+    @Test
+    void testCompactionSpillsSortedRunsWhenOverMemoryBudget() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(1024).compactionMemoryBytes(1024).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            appendLifecycles(log, 40);
+            log.roll();
+
+            CompactionResult result = log.compact();
+            assertEquals(40, result.recordsOut());
+            assertEquals(completedInWriteOrder(40), values(log.records().toList()));
+            assertEquals(List.of("RIDE-39:completed"), values(log.history("RIDE-39")));
+        }
+        assertTrue(fileNames().stream().noneMatch(name -> name.startsWith("compaction")));
+    }
+
+    @Test
+    void testAppendsCarryOnDuringCompaction() throws Exception {
+        LogOptions options = LogOptions.builder().segmentBytes(1024).compactionMemoryBytes(2048).build();
+        try (SegmentedLog log = new SegmentedLog(directory, options)) {
+            appendLifecycles(log, 200);
+            log.roll();
+
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        log.append("NEW-" + i, payload("NEW-" + i + ":requested"));
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writer.start();
+            CompactionResult result = log.compact();
+            writer.join();
+
+            assertEquals(200, result.recordsOut());
+            assertEquals(700, log.records().count());
+            assertEquals(List.of("NEW-499:requested"), values(log.history("NEW-499")));
+        }
+    }
+
+    private static void appendLifecycles(SegmentedLog log, int rides) throws Exception {
+        for (String state : List.of("requested", "started", "completed")) {
+            for (int i = 0; i < rides; i++) {
+                log.append("RIDE-" + i, payload("RIDE-" + i + ":" + state));
+            }
+        }
+    }
+
+    private static List<String> completedInWriteOrder(int rides) {
+        return IntStream.range(0, rides).mapToObj(i -> "RIDE-" + i + ":completed").toList();
+    }
+
+    private List<String> fileNames() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static byte[] payload(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> values(List<LogRecord> records) {
+        return records.stream()
+                .map(record -> new String(record.payload(), StandardCharsets.UTF_8))
+                .toList();
+    }
+}
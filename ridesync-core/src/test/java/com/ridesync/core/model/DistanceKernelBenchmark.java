@@ -0,0 +1,103 @@
+package com.ridesync.core.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of nearest-driver search: per-object Comparator paths
+ * over boxed drivers against the {@link DriverCoordinates} kernel. The
+ * single {@code min} scan is the baseline, the search RideAllocator ran
+ * before it returned several candidates.
+ *
+ * Not picked up by surefire; run {@link #main} or org.openjdk.jmh.Main on the
+ * test classpath after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceKernelBenchmark {
+
+    private static final int K = 5;
+
+    @Param({"1000", "10000", "100000"})
+    private int fleetSize;
+
+    private List<Driver> drivers;
+    private DriverCoordinates coordinates;
+    private Location origin;
+
+    @Setup
+    public void setUp() {
+        drivers = DriverCoordinatesTest.randomDrivers(fleetSize, new Random(42));
+        coordinates = DriverCoordinates.of(drivers);
+        origin = Location.builder().latitude(12.9716).longitude(77.5946).build();
+    }
+
+    /**
+     * Baseline: nearest driver only, one pass over boxed drivers. The
+     * Comparator computes distanceTo for both sides, so each comparison costs
+     * two Haversines.
+     */
+    @Benchmark
+    public Driver perObjectMin() {
+        return drivers.stream()
+                .min(Comparator.comparingDouble(driver -> driver.getCurrentLocation().distanceTo(origin)))
+                .orElseThrow();
+    }
+
+    /**
+     * Nearest K by sorting boxed drivers with a distanceTo Comparator,
+     * recomputing both distances in every comparison.
+     */
+    @Benchmark
+    public List<Driver> perObjectSort() {
+        return drivers.stream()
+                .sorted(Comparator.comparingDouble(driver -> driver.getCurrentLocation().distanceTo(origin)))
+                .limit(K)
+                .toList();
+    }
+
+    /**
+     * Nearest K over an existing snapshot.
+     */
+    @Benchmark
+    public int[] soaNearest() {
+        return coordinates.nearest(origin, K, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Snapshot plus nearest K, as RideAllocator does per booking.
+     */
+    @Benchmark
+    public int[] soaSnapshotAndNearest() {
+        return DriverCoordinates.of(drivers).nearest(origin, K, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Exact Haversine over every driver, without the pre-filter.
+     */
+    @Benchmark
+    public double[] soaExactAll() {
+        double[] out = new double[fleetSize];
+        coordinates.distancesTo(origin, out);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DistanceKernelBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.ridesync.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the structure-of-arrays driver distance kernel.
+ */
+class DriverCoordinatesTest {
+
+    private static final Location ORIGIN = Location.builder().latitude(12.9716).longitude(77.5946).build();
+
+    @Test
+    void testDistancesMatchLocationHaversine() {
+        List<Driver> drivers = randomDrivers(200, new Random(1));
+        DriverCoordinates coordinates = DriverCoordinates.of(drivers);
+
+        double[] exact = new double[drivers.size()];
+        double[] approximate = new double[drivers.size()];
+        coordinates.distancesTo(ORIGIN, exact);
+        coordinates.approximateDistancesTo(ORIGIN, approximate);
+
+        for (int i = 0; i < drivers.size(); i++) {
+            double expected = drivers.get(i).getCurrentLocation().distanceTo(ORIGIN);
+            assertEquals(expected, exact[i], 1e-9);
+            assertEquals(expected, approximate[i], expected * 0.001 + 1e-6);
+        }
+    }
+
+    @Test
+    void testNearestMatchesBruteForce() {
+        List<Driver> drivers = randomDrivers(5000, new Random(2));
+        DriverCoordinates coordinates = DriverCoordinates.of(drivers);
+
+        int[] nearest = coordinates.nearest(ORIGIN, 10, 50.0);
+
+        List<Driver> expected = drivers.stream()
+                .sorted(Comparator.comparingDouble(driver -> driver.getCurrentLocation().distanceTo(ORIGIN)))
+                .limit(10)
+                .toList();
+        assertEquals(10, nearest.length);
+        for (int i = 0; i < nearest.length; i++) {
+            assertEquals(expected.get(i).getId(), coordinates.driver(nearest[i]).getId());
+        }
+    }
+
+    @Test
+    void testNearestRespectsRadius() {
+        List<Driver> drivers = randomDrivers(1000, new Random(3));
+        DriverCoordinates coordinates = DriverCoordinates.of(drivers);
+
+        int[] nearest = coordinates.nearest(ORIGIN, 1000, 2.0);
+
+        long expected = drivers.stream()
+                .filter(driver -> driver.getCurrentLocation().distanceTo(ORIGIN) <= 2.0)
+                .count();
+        assertEquals(expected, nearest.length);
+        assertTrue(DriverCoordinates.of(List.of()).nearest(ORIGIN, 5, 2.0).length == 0);
+    }
+
+    static List<Driver> randomDrivers(int size, Random random) {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            drivers.add(Driver.builder()
+                    .id("driver" + i)
+                    .name("Driver " + i)
+                    .status(DriverStatus.AVAILABLE)
+                    .currentLocation(Location.builder()
+                            .latitude(12.85 + random.nextDouble() * 0.25)
+                            .longitude(77.45 + random.nextDouble() * 0.30)
+                            .build())
+                    .vehicle("Test Car")
+                    .vehicleNumber("TEST-" + i)
+                    .build());
+        }
+        return drivers;
+    }
+}
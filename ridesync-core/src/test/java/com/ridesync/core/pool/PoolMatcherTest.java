@@ -0,0 +1,135 @@
+package com.ridesync.core.pool;
+
+import com.ridesync.core.factory.FareStrategyFactory;
+import com.ridesync.core.factory.RideFactory;
+import com.ridesync.core.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for pool matching and detour constraints.
+ */
+class PoolMatcherTest {
+
+    @Test
+    void testRiderGoingSameWayJoinsOpenRoute() {
+        PoolMatcher matcher = new PoolMatcher();
+        PoolRide host = hostRide("rider1", 12.9716, 77.5946, 12.9352, 77.6245, "driver1");
+        double soloFare = host.getFare();
+        matcher.open(host);
+
+        PoolRide rider = poolRide("rider2", 12.9700, 77.5960, 12.9360, 77.6230);
+        Optional<SharedRoute> route = matcher.tryJoin(rider);
+
+        assertTrue(route.isPresent());
+        assertEquals("driver1", rider.getDriverId());
+        assertEquals(RideStatus.ASSIGNED, rider.getStatus());
+        assertTrue(host.getPooledRiderIds().contains("rider2"));
+        assertTrue(rider.getPooledRiderIds().contains("rider1"));
+        assertEquals(soloFare * 0.8, host.getFare(), 1e-9, "Host should get the pool discount");
+        assertEquals(2, route.get().getRides().size());
+    }
+
+    @Test
+    void testRiderGoingOppositeWayIsRejectedByDetourLimit() {
+        PoolMatcher matcher = new PoolMatcher();
+        matcher.open(hostRide("rider1", 12.9716, 77.5946, 12.9352, 77.6245, "driver1"));
+
+        PoolRide rider = poolRide("rider2", 12.9700, 77.5960, 13.0100, 77.5600);
+
+        assertTrue(matcher.tryJoin(rider).isEmpty());
+        assertNull(rider.getDriverId());
+    }
+
+    @Test
+    void testFullRouteAcceptsNoMoreRiders() {
+        PoolMatcher matcher = new PoolMatcher(3.0, 2.0);
+        PoolRide host = hostRide("rider0", 12.9716, 77.5946, 12.9352, 77.6245, "driver1");
+        host.setMaxPoolSize(2);
+        matcher.open(host);
+
+        // The host takes one of the two seats
+        PoolRide rider = poolRide("rider1", 12.9710, 77.5950, 12.9355, 77.6240);
+        assertTrue(matcher.tryJoin(rider).isPresent());
+        PoolRide waiting = poolRide("rider2", 12.9705, 77.5955, 12.9358, 77.6235);
+        assertTrue(matcher.tryJoin(waiting).isEmpty());
+        assertEquals(0, matcher.getOpenRouteCount());
+
+        // A rider leaving frees the seat again
+        assertFalse(matcher.leave(rider.getId()));
+        assertEquals(1, matcher.getOpenRouteCount());
+        assertTrue(matcher.tryJoin(waiting).isPresent());
+    }
+
+    @Test
+    void testDriverReleasedOnlyAfterLastRiderLeaves() {
+        PoolMatcher matcher = new PoolMatcher();
+        PoolRide host = hostRide("rider1", 12.9716, 77.5946, 12.9352, 77.6245, "driver1");
+        matcher.open(host);
+        PoolRide rider = poolRide("rider2", 12.9700, 77.5960, 12.9360, 77.6230);
+        matcher.tryJoin(rider);
+
+        matcher.close(host.getId());
+        assertTrue(matcher.tryJoin(poolRide("rider3", 12.9705, 77.5955, 12.9358, 77.6235)).isEmpty(),
+                "Started route should not accept riders");
+
+        assertFalse(matcher.leave(host.getId()));
+        assertTrue(matcher.leave(rider.getId()));
+        assertTrue(matcher.leave("RIDE-NOT-POOLED"));
+    }
+
+    @Test
+    void testWithdrawnRiderIsUndoneFromRoute() {
+        PoolMatcher matcher = new PoolMatcher();
+        PoolRide host = hostRide("rider1", 12.9716, 77.5946, 12.9352, 77.6245, "driver1");
+        double soloFare = host.getFare();
+        matcher.open(host);
+        PoolRide rider = poolRide("rider2", 12.9700, 77.5960, 12.9360, 77.6230);
+        assertTrue(matcher.tryJoin(rider).isPresent());
+
+        assertFalse(matcher.withdraw(rider.getId()));
+
+        assertTrue(host.getPooledRiderIds().isEmpty());
+        assertEquals(soloFare, host.getFare(), 1e-9, "Host should lose the pool discount");
+        assertEquals(1, matcher.getRoute(host.getId()).orElseThrow().getRides().size());
+        assertTrue(matcher.withdraw(host.getId()));
+    }
+
+    @Test
+    void testMatchesAmongThousandsOfOpenRoutes() {
+        PoolMatcher matcher = new PoolMatcher();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            double latitude = 12.85 + random.nextDouble() * 0.25;
+            double longitude = 77.45 + random.nextDouble() * 0.30;
+            // Every open route heads north-west, about 3 km
+            matcher.open(hostRide("host" + i, latitude, longitude, latitude + 0.02, longitude - 0.02, "driver" + i));
+        }
+
+        PoolRide rider = poolRide("rider", 12.9700, 77.6000, 12.9900, 77.5800);
+        Optional<SharedRoute> route = matcher.tryJoin(rider);
+
+        assertTrue(route.isPresent());
+        assertTrue(route.get().getAnchor().distanceTo(rider.getStartLocation()) <= PoolMatcher.DEFAULT_SEARCH_RADIUS_KM);
+    }
+
+    private PoolRide hostRide(String riderId, double startLatitude, double startLongitude,
+                              double endLatitude, double endLongitude, String driverId) {
+        PoolRide ride = poolRide(riderId, startLatitude, startLongitude, endLatitude, endLongitude);
+        ride.setDriverId(driverId);
+        ride.restoreStatus(RideStatus.ASSIGNED);
+        ride.calculateFare(FareStrategyFactory.getStrategy(RideType.POOL), ride.getDistance(), 1.0);
+        return ride;
+    }
+
+    private PoolRide poolRide(String riderId, double startLatitude, double startLongitude,
+                              double endLatitude, double endLongitude) {
+        return (PoolRide) RideFactory.createRide(RideType.POOL, riderId,
+                Location.builder().latitude(startLatitude).longitude(startLongitude).build(),
+                Location.builder().latitude(endLatitude).longitude(endLongitude).build());
+    }
+}
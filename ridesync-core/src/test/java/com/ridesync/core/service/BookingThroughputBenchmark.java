@@ -0,0 +1,102 @@
+package com.ridesync.core.service;
+
+import com.ridesync.core.exception.NoDriverAvailableException;
+import com.ridesync.core.factory.RideFactory;
+import com.ridesync.core.model.*;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH throughput of booking through the striped {@link RideAllocator}.
+ * Each operation assigns the nearest indexed driver, starts and completes
+ * the ride, and returns the driver to the index, so the fleet stays in
+ * steady state. Throughput should rise with threads since bookings in
+ * different cells and rides of different drivers do not share a lock.
+ *
+ * Not picked up by surefire; run {@link #main}, which measures 1 thread up
+ * to the core count, or org.openjdk.jmh.Main on the test classpath after
+ * mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingThroughputBenchmark {
+
+    private static final int FLEET_SIZE = 5000;
+
+    private RideAllocator allocator;
+    private DriverSpatialIndex index;
+
+    /**
+     * Per-thread source of riders, so threads do not contend on one Random.
+     */
+    @State(Scope.Thread)
+    public static class Riders {
+        private final Random random = new Random(Thread.currentThread().getId());
+
+        Ride next() {
+            return RideFactory.createRide(RideType.STANDARD, "rider" + random.nextInt(1000),
+                    randomLocation(random), randomLocation(random));
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        allocator = RideAllocator.getInstance();
+        index = new DriverSpatialIndex();
+        Random random = new Random(3);
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            index.add(Driver.builder()
+                    .id("driver" + i)
+                    .name("Driver " + i)
+                    .status(DriverStatus.AVAILABLE)
+                    .currentLocation(randomLocation(random))
+                    .vehicle("Test Car")
+                    .vehicleNumber("TEST-" + i)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public Driver bookStartAndComplete(Riders riders) {
+        Ride ride = riders.next();
+        try {
+            Driver driver = allocator.assignDriver(ride, index);
+            allocator.startRide(ride);
+            allocator.completeRide(ride, driver);
+            index.add(driver);
+            return driver;
+        } catch (NoDriverAvailableException e) {
+            // Sparse corner of the city
+            return null;
+        }
+    }
+
+    private static Location randomLocation(Random random) {
+        return Location.builder()
+                .latitude(12.85 + random.nextDouble() * 0.25)
+                .longitude(77.45 + random.nextDouble() * 0.30)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= Math.max(cores, 2); threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(BookingThroughputBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.ridesync.core.service;
+
+import com.ridesync.core.exception.IllegalRideTransitionException;
+import com.ridesync.core.exception.NoDriverAvailableException;
+import com.ridesync.core.factory.RideFactory;
+import com.ridesync.core.model.*;
+import com.ridesync.core.spatial.DriverSpatialIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency tests for striped RideAllocator locking, claims shared between
+ * allocator instances and lock-free ride transitions. Booking throughput is
+ * measured separately by {@link BookingThroughputBenchmark}.
+ */
+class RideAllocatorConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @AfterEach
+    void tearDown() {
+        RideAllocator.getInstance().setDriverClaim(DriverClaim.LOCAL);
+    }
+
+    @Test
+    void testNoDriverDoubleAssignedFromSharedList() throws Exception {
+        RideAllocator allocator = RideAllocator.getInstance();
+        List<Driver> drivers = createFleet(50, new Random(1));
+        Set<String> assigned = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(THREADS, 200, random -> {
+            try {
+                Driver driver = allocator.assignDriver(randomRide(random), drivers);
+                if (!assigned.add(driver.getId())) {
+                    duplicates.incrementAndGet();
+                }
+            } catch (NoDriverAvailableException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, duplicates.get(), "A driver was assigned twice");
+        assertEquals(drivers.size(), assigned.size());
+        assertEquals(200 - drivers.size(), rejected.get());
+    }
+
+    @Test
+    void testNoDriverDoubleAssignedFromSharedIndex() throws Exception {
+        RideAllocator allocator = RideAllocator.getInstance();
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        createFleet(50, new Random(2)).forEach(index::add);
+        Set<String> assigned = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        runConcurrently(THREADS, 200, random -> {
+            try {
+                Driver driver = allocator.assignDriver(randomRide(random), index);
+                if (!assigned.add(driver.getId())) {
+                    duplicates.incrementAndGet();
+                }
+            } catch (NoDriverAvailableException e) {
+                // Expected once the fleet is exhausted
+            }
+        });
+
+        assertEquals(0, duplicates.get(), "A driver was assigned twice");
+        assertEquals(50, assigned.size());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testLostClaimFallsBackToNextCandidate() {
+        RideAllocator allocator = RideAllocator.getInstance();
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(createDriver("near", 12.9700, 77.6000));
+        index.add(createDriver("far", 12.9700, 77.6200));
+        allocator.setDriverClaim(driver -> !driver.getId().equals("near"));
+
+        Ride ride = RideFactory.createRide(RideType.STANDARD, "rider1",
+                Location.builder().latitude(12.9700).longitude(77.5990).build(),
+                Location.builder().latitude(12.9698).longitude(77.7500).build());
+        Driver driver = allocator.assignDriver(ride, index);
+
+        assertEquals("far", driver.getId());
+        assertFalse(index.contains("near"), "Driver taken by another node should leave the index");
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testDriverReleasedWhenRideCancelledDuringClaim() {
+        RideAllocator allocator = RideAllocator.getInstance();
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(createDriver("near", 12.9700, 77.6000));
+        Ride ride = RideFactory.createRide(RideType.STANDARD, "rider1",
+                Location.builder().latitude(12.9700).longitude(77.5990).build(),
+                Location.builder().latitude(12.9698).longitude(77.7500).build());
+        Set<String> released = ConcurrentHashMap.newKeySet();
+        allocator.setDriverClaim(new DriverClaim() {
+            @Override
+            public boolean tryClaim(Driver driver) {
+                // The rider cancels while the shared claim is in flight
+                allocator.cancelRide(ride, null);
+                return true;
+            }
+
+            @Override
+            public void release(Driver driver) {
+                released.add(driver.getId());
+            }
+        });
+
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.assignDriver(ride, index));
+
+        assertEquals(Set.of("near"), released);
+        assertTrue(index.contains("near"), "Released driver should be back in the index");
+        assertEquals(DriverStatus.AVAILABLE, index.findNearest(ride.getStartLocation(), 1, 1.0).get(0).getStatus());
+        assertNull(ride.getDriverId());
+        assertEquals(RideStatus.CANCELLED, ride.getStatus());
+    }
+
+    @Test
+    void testNoDriverDoubleAssignedAcrossNodes() throws Exception {
+        // Two nodes with their own copies of the fleet, sharing one claim store
+        RideAllocator allocator = RideAllocator.getInstance();
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        allocator.setDriverClaim(driver -> claimed.add(driver.getId()));
+        DriverSpatialIndex nodeA = new DriverSpatialIndex();
+        DriverSpatialIndex nodeB = new DriverSpatialIndex();
+        createFleet(50, new Random(4)).forEach(nodeA::add);
+        createFleet(50, new Random(4)).forEach(nodeB::add);
+        Set<String> assigned = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        runConcurrently(THREADS, 200, random -> {
+            DriverSpatialIndex node = random.nextBoolean() ? nodeA : nodeB;
+            try {
+                Driver driver = allocator.assignDriver(randomRide(random), node);
+                if (!assigned.add(driver.getId())) {
+                    duplicates.incrementAndGet();
+                }
+            } catch (NoDriverAvailableException e) {
+                // Expected once the fleet is exhausted
+            }
+        });
+
+        assertEquals(0, duplicates.get(), "A driver was assigned by both nodes");
+        assertEquals(claimed, assigned);
+    }
+
+    /**
+     * Many threads race to start, complete and cancel the same ride, round
+     * after round. Exactly one start and one finishing transition must win
+     * each round, and the driver must be paid at most once per ride.
+     */
+    @Test
+    void testConcurrentTransitionsOnOneRideResolveOnce() throws Exception {
+        RideAllocator allocator = RideAllocator.getInstance();
+        int rounds = 2000;
+        int threads = Math.max(THREADS, Runtime.getRuntime().availableProcessors());
+        Driver driver = Driver.builder().id("driver-stress").status(DriverStatus.BUSY).totalEarnings(0.0).build();
+        AtomicInteger starts = new AtomicInteger();
+        AtomicInteger completions = new AtomicInteger();
+        AtomicInteger cancellations = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                Ride ride = randomRide(new Random(round));
+                ride.restoreStatus(RideStatus.ASSIGNED);
+                ride.setFare(10.0);
+                CountDownLatch startGate = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int action = t % 3;
+                    futures.add(executor.submit(() -> {
+                        startGate.await();
+                        try {
+                            switch (action) {
+                                case 0 -> {
+                                    allocator.startRide(ride);
+                                    starts.incrementAndGet();
+                                }
+                                case 1 -> {
+                                    allocator.completeRide(ride, driver, () -> false);
+                                    completions.incrementAndGet();
+                                }
+                                default -> {
+                                    allocator.cancelRide(ride, null);
+                                    cancellations.incrementAndGet();
+                                }
+                            }
+                        } catch (IllegalRideTransitionException e) {
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                startGate.countDown();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                assertTrue(ride.getStatus().isTerminal() || ride.getStatus() == RideStatus.STARTED,
+                        "Unexpected final status " + ride.getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int finished = completions.get() + cancellations.get();
+        assertTrue(finished <= rounds, "A ride finished twice");
+        assertTrue(starts.get() <= rounds, "A ride started twice");
+        assertTrue(completions.get() <= starts.get(), "A ride completed without being started");
+        assertEquals((long) rounds * threads, starts.get() + finished + rejected.get());
+        assertEquals(completions.get() * 10.0, driver.getTotalEarnings(), 0.001);
+    }
+
+    private void runConcurrently(int threads, int tasks, Consumer<Random> task)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            Random random = new Random(i);
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                task.accept(random);
+                return null;
+            }));
+        }
+        startGate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        for (Future<?> future : futures) {
+            assertDoesNotThrow(() -> future.get());
+        }
+    }
+
+    private List<Driver> createFleet(int size, Random random) {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            drivers.add(Driver.builder()
+                    .id("driver" + i)
+                    .name("Driver " + i)
+                    .status(DriverStatus.AVAILABLE)
+                    .currentLocation(randomLocation(random))
+                    .vehicle("Test Car")
+                    .vehicleNumber("TEST-" + i)
+                    .build());
+        }
+        return drivers;
+    }
+
+    private Driver createDriver(String id, double latitude, double longitude) {
+        return Driver.builder()
+                .id(id)
+                .name("Driver " + id)
+                .status(DriverStatus.AVAILABLE)
+                .currentLocation(Location.builder().latitude(latitude).longitude(longitude).build())
+                .vehicle("Test Car")
+                .vehicleNumber("TEST-" + id)
+                .build();
+    }
+
+    private Ride randomRide(Random random) {
+        return RideFactory.createRide(RideType.STANDARD, "rider" + random.nextInt(1000),
+                randomLocation(random), randomLocation(random));
+    }
+
+    private Location randomLocation(Random random) {
+        return Location.builder()
+                .latitude(12.85 + random.nextDouble() * 0.25)
+                .longitude(77.45 + random.nextDouble() * 0.30)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ridesync.core.service;
 
+import com.ridesync.core.exception.IllegalRideTransitionException;
 import com.ridesync.core.exception.NoDriverAvailableException;
 import com.ridesync.core.factory.RideFactory;
 import com.ridesync.core.model.*;
@@ -83,10 +84,80 @@ class RideAllocatorTest {
                 .totalEarnings(0.0)
                 .build();
         
+        ride.restoreStatus(RideStatus.ASSIGNED);
+        allocator.startRide(ride);
         allocator.completeRide(ride, driver);
         
         assertEquals(RideStatus.COMPLETED, ride.getStatus());
         assertEquals(DriverStatus.AVAILABLE, driver.getStatus());
         assertNotNull(ride.getCompletedAt());
+        assertEquals(150.0, driver.getTotalEarnings());
+    }
+    
+    @Test
+    void testIllegalTransitionsAreRejected() {
+        RideAllocator allocator = RideAllocator.getInstance();
+        
+        Location start = Location.builder().latitude(12.9716).longitude(77.5946).build();
+        Location end = Location.builder().latitude(12.9698).longitude(77.7500).build();
+        Ride ride = RideFactory.createRide(RideType.STANDARD, "rider1", start, end);
+        ride.setFare(150.0);
+        Driver driver = Driver.builder()
+                .id("driver1")
+                .name("Test Driver")
+                .status(DriverStatus.BUSY)
+                .totalEarnings(0.0)
+                .build();
+        
+        // Neither started nor completed before a driver is assigned
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.startRide(ride));
+        ride.restoreStatus(RideStatus.ASSIGNED);
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.completeRide(ride, driver));
+        assertEquals(RideStatus.ASSIGNED, ride.getStatus());
+        
+        allocator.startRide(ride);
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.startRide(ride));
+        allocator.completeRide(ride, driver);
+        
+        // A finished ride can be neither completed again nor cancelled
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.completeRide(ride, driver));
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.cancelRide(ride, driver));
+        assertEquals(RideStatus.COMPLETED, ride.getStatus());
+        assertEquals(150.0, driver.getTotalEarnings(), "The ride must be paid once");
+    }
+    
+    @Test
+    void testCancelReturnsPreviousStatusAndFreesDriver() {
+        RideAllocator allocator = RideAllocator.getInstance();
+        
+        Location start = Location.builder().latitude(12.9716).longitude(77.5946).build();
+        Location end = Location.builder().latitude(12.9698).longitude(77.7500).build();
+        Ride ride = RideFactory.createRide(RideType.STANDARD, "rider1", start, end);
+        ride.restoreStatus(RideStatus.ASSIGNED);
+        Driver driver = Driver.builder().id("driver1").status(DriverStatus.BUSY).build();
+        
+        assertEquals(RideStatus.ASSIGNED, allocator.cancelRide(ride, driver));
+        assertEquals(RideStatus.CANCELLED, ride.getStatus());
+        assertEquals(DriverStatus.AVAILABLE, driver.getStatus());
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.startRide(ride));
+    }
+    
+    @Test
+    void testCancelledRideClaimsNoDriver() {
+        RideAllocator allocator = RideAllocator.getInstance();
+        
+        Location start = Location.builder().latitude(12.9716).longitude(77.5946).build();
+        Location end = Location.builder().latitude(12.9698).longitude(77.7500).build();
+        Ride ride = RideFactory.createRide(RideType.STANDARD, "rider1", start, end);
+        allocator.cancelRide(ride, null);
+        Driver driver = Driver.builder()
+                .id("driver1")
+                .status(DriverStatus.AVAILABLE)
+                .currentLocation(start)
+                .build();
+        
+        assertThrows(IllegalRideTransitionException.class, () -> allocator.assignDriver(ride, List.of(driver)));
+        assertEquals(DriverStatus.AVAILABLE, driver.getStatus());
+        assertNull(ride.getDriverId());
     }
 }
@@ -0,0 +1,183 @@
+package com.ridesync.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridesync.core.factory.RideFactory;
+import com.ridesync.core.log.LogFormat;
+import com.ridesync.core.log.LogOptions;
+import com.ridesync.core.log.RideLogQuery;
+import com.ridesync.core.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ride log.
+ */
+class RideLoggerTest {
+
+    @TempDir
+    Path logDirectory;
+
+    @Test
+    void testRidesAreAppendedOneLineEachAndReadBackWithTheirType() throws Exception {
+        try (RideLogger rideLogger = new RideLogger(logDirectory)) {
+            Ride standard = ride(RideType.STANDARD);
+            Ride pool = ride(RideType.POOL);
+            rideLogger.logRide(standard);
+            rideLogger.logRide(pool);
+            standard.restoreStatus(RideStatus.STARTED);
+            rideLogger.logRide(standard);
+
+            List<Ride> rides = rideLogger.readAllRides();
+            assertEquals(3, rides.size());
+            assertInstanceOf(StandardRide.class, rides.get(0));
+            assertInstanceOf(PoolRide.class, rides.get(1));
+            assertEquals(pool.getId(), rides.get(1).getId());
+            assertEquals(RideStatus.STARTED, rides.get(2).getStatus());
+
+            List<Ride> history = rideLogger.getRideHistory(standard.getId());
+            assertEquals(List.of(RideStatus.ASSIGNED, RideStatus.STARTED),
+                    history.stream().map(Ride::getStatus).toList());
+        }
+    }
+
+    @Test
+    void testLoggedRideIsSnapshotWhenQueued() throws Exception {
+        try (RideLogger rideLogger = new RideLogger(logDirectory)) {
+            Ride ride = ride(RideType.STANDARD);
+            rideLogger.logRide(ride);
+            ride.restoreStatus(RideStatus.COMPLETED);
+
+            assertEquals(RideStatus.ASSIGNED, rideLogger.readAllRides().get(0).getStatus());
+        }
+    }
+
+    @Test
+    void testRidesSurviveReopen() {
+        Ride ride = ride(RideType.POOL);
+        try (RideLogger rideLogger = new RideLogger(logDirectory)) {
+            rideLogger.logRide(ride);
+        }
+
+        try (RideLogger reopened = new RideLogger(logDirectory)) {
+            assertEquals(1, reopened.getRideHistory(ride.getId()).size());
+            assertInstanceOf(PoolRide.class, reopened.readAllRides().get(0));
+        }
+    }
+
+    @Test
+    void testSwitchingToBinaryKeepsEarlierJsonRecordsReadable() {
+        Ride ride = ride(RideType.POOL);
+        LogOptions json = LogOptions.builder().format(LogFormat.JSON).build();
+        try (RideLogger rideLogger = new RideLogger(logDirectory, json)) {
+            rideLogger.logRide(ride);
+        }
+
+        LogOptions binary = LogOptions.builder().format(LogFormat.BINARY).build();
+        try (RideLogger rideLogger = new RideLogger(logDirectory, binary)) {
+            ride.restoreStatus(RideStatus.STARTED);
+            rideLogger.logRide(ride);
+
+            List<Ride> history = rideLogger.getRideHistory(ride.getId());
+            assertEquals(List.of(RideStatus.ASSIGNED, RideStatus.STARTED),
+                    history.stream().map(Ride::getStatus).toList());
+            assertInstanceOf(PoolRide.class, history.get(1));
+        }
+    }
+
+    @Test
+    void testFilteredParallelStreamAndReadOnlyReplay() throws Exception {
+        LogOptions options = LogOptions.builder().format(LogFormat.BINARY).segmentBytes(1024).build();
+        try (RideLogger rideLogger = new RideLogger(logDirectory, options)) {
+            for (int i = 0; i < 60; i++) {
+                Ride ride = ride(RideType.values()[i % 3]);
+                ride.setRequestedAt(LocalDateTime.of(2024, 1, 1 + i % 10, 12, 0));
+                rideLogger.logRide(ride);
+                ride.restoreStatus(RideStatus.COMPLETED);
+                rideLogger.logRide(ride);
+            }
+
+            RideLogQuery completedPool = RideLogQuery.builder()
+                    .rideTypes(Set.of(RideType.POOL))
+                    .statuses(Set.of(RideStatus.COMPLETED))
+                    .from(LocalDateTime.of(2024, 1, 1, 0, 0))
+                    .to(LocalDateTime.of(2024, 1, 6, 0, 0))
+                    .build();
+            try (Stream<Ride> rides = rideLogger.streamRides(completedPool, true)) {
+                List<Ride> matched = rides.toList();
+                assertEquals(10, matched.size());
+                assertTrue(matched.stream().allMatch(ride -> ride instanceof PoolRide
+                        && ride.getStatus() == RideStatus.COMPLETED));
+            }
+            rideLogger.flush();
+
+            RideLogReplay.Summary summary = RideLogReplay.replay(logDirectory, RideLogQuery.ALL);
+            assertEquals(120, summary.getRecords());
+            assertEquals(60, summary.getCompletedRides());
+            assertEquals(60 * 120.0, summary.getCompletedRevenue(), 0.001);
+            assertEquals(40L, summary.getRecordsByType().get(RideType.LUXURY));
+        }
+    }
+
+    @Test
+    void testNdjsonLogIsMigrated() throws Exception {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Ride ride = ride(RideType.LUXURY);
+        Files.writeString(logDirectory.resolve("rides.ndjson"),
+                mapper.writeValueAsString(ride) + "\n{\"id\":\"RIDE-CUT\n");
+
+        try (RideLogger rideLogger = new RideLogger(logDirectory)) {
+            List<Ride> rides = rideLogger.readAllRides();
+            assertEquals(1, rides.size());
+            assertInstanceOf(LuxuryRide.class, rides.get(0));
+        }
+        assertTrue(Files.exists(logDirectory.resolve("rides.ndjson.migrated")));
+    }
+
+    @Test
+    void testLegacyJsonArrayIsMigratedOnce() throws Exception {
+        ObjectMapper legacyMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        List<Ride> legacyRides = List.of(ride(RideType.STANDARD), ride(RideType.POOL), ride(RideType.LUXURY));
+        Files.writeString(logDirectory.resolve("rides.json"), legacyMapper.writeValueAsString(legacyRides));
+
+        try (RideLogger rideLogger = new RideLogger(logDirectory)) {
+            rideLogger.logRide(ride(RideType.STANDARD));
+
+            List<Ride> rides = rideLogger.readAllRides();
+            assertEquals(4, rides.size());
+            assertEquals(legacyRides.get(0).getId(), rides.get(0).getId());
+            assertInstanceOf(LuxuryRide.class, rides.get(2));
+        }
+        assertFalse(Files.exists(logDirectory.resolve("rides.json")));
+        assertTrue(Files.exists(logDirectory.resolve("rides.json.migrated")));
+
+        try (RideLogger reopened = new RideLogger(logDirectory)) {
+            assertEquals(4, reopened.readAllRides().size(), "Migration must not run twice");
+        }
+    }
+
+    private Ride ride(RideType rideType) {
+        Ride ride = RideFactory.createRide(rideType, "rider1",
+                Location.builder().latitude(12.9716).longitude(77.5946).address("MG Road").build(),
+                Location.builder().latitude(12.9352).longitude(77.6245).address("Koramangala").build());
+        ride.setDriverId("driver1");
+        ride.restoreStatus(RideStatus.ASSIGNED);
+        ride.setFare(120.0);
+        return ride;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ridesync.core.service;
+
+import com.ridesync.core.model.Location;
+import com.ridesync.core.spatial.GeoGrid;
+import com.ridesync.core.surge.CellDemandTracker;
+import com.ridesync.core.surge.SlidingWindowCounter;
+import com.ridesync.core.surge.SurgeTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for demand-driven surge pricing, the surge table and the
+ * sliding-window counters.
+ */
+class SurgePricingServiceTest {
+
+    private static final Location MG_ROAD = Location.builder().latitude(12.9716).longitude(77.5946).build();
+    private static final Location WHITEFIELD = Location.builder().latitude(12.9698).longitude(77.7500).build();
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final GeoGrid grid = new GeoGrid();
+    private final SurgePricingService surgePricingService = new SurgePricingService(
+            new CellDemandTracker(grid, 60_000, 6, clock::get));
+
+    @Test
+    void testNoSurgeWhenSupplyCoversDemand() {
+        surgePricingService.setSupplySource(location -> sameCell(location, MG_ROAD) ? 3 : 0);
+        for (int i = 0; i < 3; i++) {
+            surgePricingService.recordRequest(MG_ROAD);
+        }
+        surgePricingService.refresh();
+
+        assertEquals(1.0, surgePricingService.calculateSurgeMultiplier(MG_ROAD));
+    }
+
+    @Test
+    void testSurgeFollowsDemandSupplyRatioInRiderCell() {
+        surgePricingService.setSupplySource(location -> sameCell(location, MG_ROAD) ? 2 : 0);
+        for (int i = 0; i < 6; i++) {
+            surgePricingService.recordRequest(MG_ROAD);
+        }
+        surgePricingService.recordCompletion(WHITEFIELD);
+        surgePricingService.refresh();
+
+        // 6 requests against 2 drivers: ratio 3 -> 1 + (3 - 1) * 0.5
+        assertEquals(2.0, surgePricingService.calculateSurgeMultiplier(MG_ROAD));
+        assertEquals(1.0, surgePricingService.calculateSurgeMultiplier(WHITEFIELD),
+                "Demand elsewhere should not raise surge");
+    }
+
+    @Test
+    void testCompletionsCountAsSupplyAndSurgeIsCapped() {
+        for (int i = 0; i < 20; i++) {
+            surgePricingService.recordRequest(MG_ROAD);
+        }
+        surgePricingService.refresh();
+        assertEquals(2.5, surgePricingService.calculateSurgeMultiplier(MG_ROAD));
+
+        for (int i = 0; i < 10; i++) {
+            surgePricingService.recordCompletion(MG_ROAD);
+        }
+        surgePricingService.refresh();
+        assertEquals(1.5, surgePricingService.calculateSurgeMultiplier(MG_ROAD));
+    }
+
+    @Test
+    void testOldRequestsSlideOutOfWindow() {
+        for (int i = 0; i < 4; i++) {
+            surgePricingService.recordRequest(MG_ROAD);
+        }
+        surgePricingService.refresh();
+        assertEquals(2.5, surgePricingService.calculateSurgeMultiplier(MG_ROAD));
+
+        clock.addAndGet(61_000);
+        surgePricingService.refresh();
+
+        assertEquals(1.0, surgePricingService.calculateSurgeMultiplier(MG_ROAD));
+    }
+
+    @Test
+    void testTableIsSwappedWithNewVersionAndFallback() {
+        SurgeTable before = surgePricingService.getSurgeTable();
+        for (int i = 0; i < 6; i++) {
+            surgePricingService.recordRequest(MG_ROAD);
+        }
+        for (int i = 0; i < 2; i++) {
+            surgePricingService.recordCompletion(WHITEFIELD);
+        }
+
+        SurgeTable after = surgePricingService.refresh();
+
+        assertSame(after, surgePricingService.getSurgeTable());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(1.0, before.multiplierFor(grid.cellKey(MG_ROAD)), "Old snapshot must not change");
+        assertEquals(2.5, after.multiplierFor(grid.cellKey(MG_ROAD)));
+        assertEquals(2.5, after.multiplierFor(grid.cellKey(12.9720, 77.6046)), "Neighbouring cell is in the same market");
+        // City-wide: 6 requests against 2 completions
+        assertEquals(2.0, after.getFallbackMultiplier());
+        assertThrows(UnsupportedOperationException.class, () -> after.getMultipliers().put(1L, 1.0));
+    }
+
+    @Test
+    void testCounterLosesNoConcurrentIncrementsWithinBucket() throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 6, clock::get);
+        counter.increment();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(80_001, counter.sum());
+    }
+
+    private boolean sameCell(Location location, Location other) {
+        return grid.cellKey(location) == grid.cellKey(other);
+    }
+}
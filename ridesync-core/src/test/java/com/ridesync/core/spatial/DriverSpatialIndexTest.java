@@ -0,0 +1,112 @@
+package com.ridesync.core.spatial;
+
+import com.ridesync.core.model.Driver;
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.core.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the grid-based driver spatial index.
+ */
+class DriverSpatialIndexTest {
+
+    private static final Location MG_ROAD = Location.builder().latitude(12.9716).longitude(77.5946).build();
+
+    @Test
+    void testFindNearestOrdersByDistance() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(driver("far", 12.9698, 77.7500));
+        index.add(driver("near", 12.9720, 77.5950));
+        index.add(driver("mid", 12.9352, 77.6245));
+
+        List<Driver> nearest = index.findNearest(MG_ROAD, 2, 50.0);
+
+        assertEquals(2, nearest.size());
+        assertEquals("near", nearest.get(0).getId());
+        assertEquals("mid", nearest.get(1).getId());
+    }
+
+    @Test
+    void testRadiusExcludesDistantDrivers() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(driver("far", 13.0358, 77.5970));
+
+        assertTrue(index.findNearest(MG_ROAD, 1, 2.0).isEmpty());
+        assertEquals(1, index.findNearest(MG_ROAD, 1, 10.0).size());
+    }
+
+    @Test
+    void testMatchesBruteForceOnRandomFleet() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        List<Driver> fleet = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            Driver driver = driver("d" + i,
+                    12.8 + random.nextDouble() * 0.4,
+                    77.4 + random.nextDouble() * 0.4);
+            fleet.add(driver);
+            index.add(driver);
+        }
+
+        List<String> expected = fleet.stream()
+                .sorted(Comparator.comparingDouble(d -> d.getCurrentLocation().distanceTo(MG_ROAD)))
+                .limit(5)
+                .map(Driver::getId)
+                .toList();
+        List<String> actual = index.findNearest(MG_ROAD, 5, 50.0).stream()
+                .map(Driver::getId)
+                .toList();
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testUpdateLocationMovesDriverBetweenCells() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(driver("d1", 13.0358, 77.5970));
+
+        index.updateLocation("d1", Location.builder().latitude(12.9717).longitude(77.5947).build());
+
+        assertEquals(1, index.countInCell(MG_ROAD));
+        assertEquals("d1", index.findNearest(MG_ROAD, 1, 1.0).get(0).getId());
+    }
+
+    @Test
+    void testRemoveClaimsDriverOnlyOnce() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        index.add(driver("d1", 12.9716, 77.5946));
+
+        assertNotNull(index.remove("d1"));
+        assertNull(index.remove("d1"));
+        assertTrue(index.findNearest(MG_ROAD, 1, 50.0).isEmpty());
+    }
+
+    @Test
+    void testBusyDriverIsNotIndexed() {
+        DriverSpatialIndex index = new DriverSpatialIndex();
+        Driver busy = driver("d1", 12.9716, 77.5946);
+        busy.setStatus(DriverStatus.BUSY);
+
+        index.add(busy);
+
+        assertFalse(index.contains("d1"));
+    }
+
+    private Driver driver(String id, double latitude, double longitude) {
+        return Driver.builder()
+                .id(id)
+                .name("Driver " + id)
+                .status(DriverStatus.AVAILABLE)
+                .currentLocation(Location.builder().latitude(latitude).longitude(longitude).build())
+                .vehicle("Test Car")
+                .vehicleNumber("TEST-" + id)
+                .build();
+    }
+}
@@ -11,7 +11,10 @@ import lombok.NoArgsConstructor;
  * JPA Entity for Driver persistence in H2 database.
  */
 @Entity
-@Table(name = "drivers")
+@Table(name = "drivers", indexes = {
+        @Index(name = "idx_drivers_status_rating", columnList = "status, rating"),
+        @Index(name = "idx_drivers_rating", columnList = "rating")
+})
 @Data
 @Builder
 @NoArgsConstructor
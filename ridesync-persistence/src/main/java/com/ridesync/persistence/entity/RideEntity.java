@@ -12,9 +12,22 @@ import java.time.LocalDateTime;
 
 /**
  * JPA Entity for Ride persistence in H2 database.
+ * Indexes cover every lookup in {@code RideRepository}: rider and driver
+ * history, status and type filters, requestedAt ranges and completions
+ * since a point in time. Each history filter has an index ending in
+ * requestedAt, so pages come back in order without sorting.
  */
 @Entity
-@Table(name = "rides")
+@Table(name = "rides", indexes = {
+        @Index(name = "idx_rides_rider_requested", columnList = "riderId, requestedAt"),
+        @Index(name = "idx_rides_driver_requested", columnList = "driverId, requestedAt"),
+        @Index(name = "idx_rides_driver_status", columnList = "driverId, status"),
+        @Index(name = "idx_rides_status_requested", columnList = "status, requestedAt"),
+        @Index(name = "idx_rides_type_requested", columnList = "rideType, requestedAt"),
+        @Index(name = "idx_rides_type_status", columnList = "rideType, status"),
+        @Index(name = "idx_rides_requested", columnList = "requestedAt"),
+        @Index(name = "idx_rides_status_completed", columnList = "status, completedAt")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,73 @@
+package com.ridesync.persistence.entity;
+
+import com.ridesync.core.analytics.RideActivity;
+import com.ridesync.core.analytics.TimeResolution;
+import com.ridesync.core.model.RideType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ride activity of one ride type in one hourly or daily bucket.
+ * The id is derived from resolution, bucket start and type, so a bucket
+ * can be looked up and added to without querying by its columns.
+ */
+@Entity
+@Table(name = "ride_rollups", indexes = {
+        @Index(name = "idx_rollups_resolution_bucket", columnList = "resolution, bucketStart")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RideRollupEntity {
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TimeResolution resolution;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RideType rideType;
+
+    private long requested;
+    private long completed;
+    private long cancelled;
+    private double revenue;
+    private double surgeTotal;
+
+    public static String idOf(TimeResolution resolution, LocalDateTime bucketStart, RideType rideType) {
+        return resolution + "|" + bucketStart + "|" + rideType;
+    }
+
+    public static RideRollupEntity empty(TimeResolution resolution, LocalDateTime bucketStart, RideType rideType) {
+        return RideRollupEntity.builder()
+                .id(idOf(resolution, bucketStart, rideType))
+                .resolution(resolution)
+                .bucketStart(bucketStart)
+                .rideType(rideType)
+                .build();
+    }
+
+    public void add(RideActivity activity) {
+        requested += activity.requested();
+        completed += activity.completed();
+        cancelled += activity.cancelled();
+        revenue += activity.revenue();
+        surgeTotal += activity.surgeTotal();
+    }
+
+    public RideActivity toActivity() {
+        return new RideActivity(requested, completed, cancelled, revenue, surgeTotal);
+    }
+}
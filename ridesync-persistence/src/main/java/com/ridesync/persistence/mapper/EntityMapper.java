@@ -110,4 +110,40 @@ public class EntityMapper {
                 .completedAt(ride.getCompletedAt())
                 .build();
     }
+    
+    /**
+     * Convert RideEntity to the Ride subclass of its type, keeping its ID, fare and lifecycle.
+     */
+    public static Ride toDomain(RideEntity entity) {
+        Ride.RideBuilder<?, ?> builder = switch (entity.getRideType()) {
+            case STANDARD -> StandardRide.builder();
+            case POOL -> PoolRide.builder();
+            case LUXURY -> LuxuryRide.builder()
+                    .amenities("WiFi, Water, Premium Music")
+                    .isPremiumDriver(true);
+        };
+        return builder
+                .id(entity.getId())
+                .riderId(entity.getRiderId())
+                .driverId(entity.getDriverId())
+                .rideType(entity.getRideType())
+                .status(entity.getStatus())
+                .startLocation(Location.builder()
+                    .latitude(entity.getStartLatitude())
+                    .longitude(entity.getStartLongitude())
+                    .address(entity.getStartAddress())
+                    .build())
+                .endLocation(Location.builder()
+                    .latitude(entity.getEndLatitude())
+                    .longitude(entity.getEndLongitude())
+                    .address(entity.getEndAddress())
+                    .build())
+                .distance(entity.getDistance())
+                .fare(entity.getFare())
+                .surgeMultiplier(entity.getSurgeMultiplier())
+                .requestedAt(entity.getRequestedAt())
+                .startedAt(entity.getStartedAt())
+                .completedAt(entity.getCompletedAt())
+                .build();
+    }
 }
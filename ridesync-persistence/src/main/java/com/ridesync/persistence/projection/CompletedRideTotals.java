@@ -0,0 +1,7 @@
+package com.ridesync.persistence.projection;
+
+/**
+ * Totals over all completed rides; averages are 0 when there are none.
+ */
+public record CompletedRideTotals(long count, double revenue, double averageFare, double averageDistance) {
+}
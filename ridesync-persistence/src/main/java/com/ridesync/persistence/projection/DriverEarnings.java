@@ -0,0 +1,8 @@
+package com.ridesync.persistence.projection;
+
+/**
+ * A driver with the earnings and number of their completed rides.
+ */
+public record DriverEarnings(String driverId, String driverName, double rating,
+                             double totalEarnings, long completedRides) {
+}
@@ -0,0 +1,16 @@
+package com.ridesync.persistence.projection;
+
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ride with the name and vehicle of its driver, read in one joined query.
+ * Driver fields are null while no driver is assigned.
+ */
+public record RideDetails(String rideId, String riderId, String driverId, String driverName, String driverVehicle,
+                          RideType rideType, RideStatus status, double distance, double fare,
+                          double surgeMultiplier, LocalDateTime requestedAt, LocalDateTime startedAt,
+                          LocalDateTime completedAt) {
+}
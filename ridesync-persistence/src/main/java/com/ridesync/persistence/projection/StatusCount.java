@@ -0,0 +1,9 @@
+package com.ridesync.persistence.projection;
+
+import com.ridesync.core.model.RideStatus;
+
+/**
+ * Number of rides in one status.
+ */
+public record StatusCount(RideStatus status, long count) {
+}
@@ -0,0 +1,9 @@
+package com.ridesync.persistence.projection;
+
+import com.ridesync.core.model.RideType;
+
+/**
+ * Average fare of the completed rides of one type.
+ */
+public record TypeAverageFare(RideType rideType, double averageFare) {
+}
@@ -0,0 +1,9 @@
+package com.ridesync.persistence.projection;
+
+import com.ridesync.core.model.RideType;
+
+/**
+ * Number of rides of one type.
+ */
+public record TypeCount(RideType rideType, long count) {
+}
@@ -0,0 +1,45 @@
+package com.ridesync.persistence.query;
+
+import com.ridesync.core.exception.InvalidQueryException;
+import com.ridesync.persistence.entity.RideEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in ride history, newest first: the last ride of a page.
+ * The next page holds rides requested before it, or at the same time
+ * with a smaller id. Clients pass it around as an opaque token.
+ */
+public record RideCursor(LocalDateTime requestedAt, String id) {
+
+    public static RideCursor after(RideEntity ride) {
+        return new RideCursor(ride.getRequestedAt(), ride.getId());
+    }
+
+    public String encode() {
+        String value = requestedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token made by {@link #encode()}.
+     *
+     * @throws InvalidQueryException if the token is malformed
+     */
+    public static RideCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidQueryException("Invalid cursor: " + token);
+            }
+            return new RideCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Not Base64, or no timestamp before the separator
+            throw new InvalidQueryException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ridesync.persistence.query;
+
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+
+/**
+ * Conditions on a ride history query; null fields are not filtered on.
+ */
+public record RideFilter(String riderId, String driverId, RideStatus status, RideType rideType) {
+
+    public static RideFilter forRider(String riderId) {
+        return new RideFilter(riderId, null, null, null);
+    }
+
+    public static RideFilter forDriver(String driverId) {
+        return new RideFilter(null, driverId, null, null);
+    }
+
+    public static RideFilter of(RideStatus status, RideType rideType) {
+        return new RideFilter(null, null, status, rideType);
+    }
+}
@@ -3,7 +3,12 @@ package com.ridesync.persistence.repository;
 import com.ridesync.core.model.DriverStatus;
 import com.ridesync.persistence.entity.DriverEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -27,4 +32,54 @@ public interface DriverRepository extends JpaRepository<DriverEntity, String> {
      * Count available drivers.
      */
     long countByStatus(DriverStatus status);
+    
+    /**
+     * Atomically move a driver from AVAILABLE to BUSY.
+     * Safe across API nodes: of several concurrent claims only one updates the row.
+     * 
+     * @return 1 if the claim succeeded, 0 if the driver was not available
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DriverEntity d SET d.status = com.ridesync.core.model.DriverStatus.BUSY " +
+           "WHERE d.id = :driverId AND d.status = com.ridesync.core.model.DriverStatus.AVAILABLE")
+    int claimAvailableDriver(@Param("driverId") String driverId);
+    
+    /**
+     * Set a driver's status unconditionally.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DriverEntity d SET d.status = :status WHERE d.id = :driverId")
+    int updateStatus(@Param("driverId") String driverId, @Param("status") DriverStatus status);
+    
+    /**
+     * Make a driver claimed for a booking that did not go through available again.
+     * Runs in its own transaction, so it also works once the booking's
+     * transaction has rolled back.
+     * 
+     * @return 1 if the driver was released, 0 if it was not busy
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE DriverEntity d SET d.status = com.ridesync.core.model.DriverStatus.AVAILABLE " +
+           "WHERE d.id = :driverId AND d.status = com.ridesync.core.model.DriverStatus.BUSY")
+    int releaseClaim(@Param("driverId") String driverId);
+    
+    /**
+     * Write a driver's location and add to its earnings without touching
+     * status, so write-behind flushes never overwrite a claim made by
+     * another node. Earnings are incremented rather than set, so fares
+     * credited on different nodes all add up. The explicit cast keeps
+     * Hibernate from emitting an untyped parameter cast that H2 rejects.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DriverEntity d SET d.currentLatitude = :latitude, d.currentLongitude = :longitude, " +
+           "d.currentAddress = :address, d.totalEarnings = d.totalEarnings + cast(:earned as double) WHERE d.id = :driverId")
+    int updateLocationAndAddEarnings(@Param("driverId") String driverId,
+                                     @Param("latitude") double latitude,
+                                     @Param("longitude") double longitude,
+                                     @Param("address") String address,
+                                     @Param("earned") double earned);
 }
@@ -0,0 +1,31 @@
+package com.ridesync.persistence.repository;
+
+import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.query.RideCursor;
+import com.ridesync.persistence.query.RideFilter;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Ride history queries, newest first, with filters applied in SQL.
+ * Mixed into {@link RideRepository}.
+ */
+public interface RideHistoryRepository {
+
+    /**
+     * One page of rides matching the filter, after the cursor.
+     * Uses keyset pagination on (requestedAt, id), so a page costs the same
+     * however deep into the history it is.
+     *
+     * @param after Last ride of the previous page, or null for the first page
+     */
+    List<RideEntity> findHistoryPage(RideFilter filter, RideCursor after, int limit);
+
+    /**
+     * Every ride matching the filter, read from the database in batches of fetchSize.
+     * Must be consumed and closed within a transaction; rides are detached as
+     * they are read so the persistence context does not grow.
+     */
+    Stream<RideEntity> streamHistory(RideFilter filter, int fetchSize);
+}
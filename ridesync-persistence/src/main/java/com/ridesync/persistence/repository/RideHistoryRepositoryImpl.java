@@ -0,0 +1,77 @@
+package com.ridesync.persistence.repository;
+
+import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.query.RideCursor;
+import com.ridesync.persistence.query.RideFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Criteria-based implementation of {@link RideHistoryRepository}.
+ * Only the filters that are set become conditions, so each combination is
+ * planned on its own index: (riderId, requestedAt), (driverId, requestedAt),
+ * (status, requestedAt), (rideType, requestedAt) or (requestedAt).
+ */
+class RideHistoryRepositoryImpl implements RideHistoryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RideEntity> findHistoryPage(RideFilter filter, RideCursor after, int limit) {
+        return query(filter, after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<RideEntity> streamHistory(RideFilter filter, int fetchSize) {
+        return query(filter, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    private TypedQuery<RideEntity> query(RideFilter filter, RideCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RideEntity> query = cb.createQuery(RideEntity.class);
+        Root<RideEntity> ride = query.from(RideEntity.class);
+
+        List<Predicate> conditions = new ArrayList<>();
+        if (filter.riderId() != null) {
+            conditions.add(cb.equal(ride.get("riderId"), filter.riderId()));
+        }
+        if (filter.driverId() != null) {
+            conditions.add(cb.equal(ride.get("driverId"), filter.driverId()));
+        }
+        if (filter.status() != null) {
+            conditions.add(cb.equal(ride.get("status"), filter.status()));
+        }
+        if (filter.rideType() != null) {
+            conditions.add(cb.equal(ride.get("rideType"), filter.rideType()));
+        }
+        if (after != null) {
+            conditions.add(cb.or(
+                    cb.lessThan(ride.<LocalDateTime>get("requestedAt"), after.requestedAt()),
+                    cb.and(cb.equal(ride.get("requestedAt"), after.requestedAt()),
+                            cb.lessThan(ride.<String>get("id"), after.id()))));
+        }
+
+        query.select(ride)
+                .where(conditions.toArray(Predicate[]::new))
+                .orderBy(cb.desc(ride.get("requestedAt")), cb.desc(ride.get("id")));
+        return entityManager.createQuery(query);
+    }
+}
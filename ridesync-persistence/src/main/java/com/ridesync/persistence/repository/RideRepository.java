@@ -3,18 +3,39 @@ package com.ridesync.persistence.repository;
 import com.ridesync.core.model.RideStatus;
 import com.ridesync.core.model.RideType;
 import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.projection.CompletedRideTotals;
+import com.ridesync.persistence.projection.DriverEarnings;
+import com.ridesync.persistence.projection.RideDetails;
+import com.ridesync.persistence.projection.StatusCount;
+import com.ridesync.persistence.projection.TypeAverageFare;
+import com.ridesync.persistence.projection.TypeCount;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for Ride entities.
  */
 @Repository
-public interface RideRepository extends JpaRepository<RideEntity, String> {
+public interface RideRepository extends JpaRepository<RideEntity, String>, RideHistoryRepository {
+    
+    /**
+     * A ride joined with its driver's name and vehicle, without loading either entity.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.RideDetails(r.id, r.riderId, r.driverId, " +
+           "d.name, d.vehicle, r.rideType, r.status, r.distance, r.fare, r.surgeMultiplier, " +
+           "r.requestedAt, r.startedAt, r.completedAt) " +
+           "FROM RideEntity r LEFT JOIN DriverEntity d ON d.id = r.driverId WHERE r.id = ?1")
+    Optional<RideDetails> findDetailsById(String rideId);
     
     /**
      * Find rides by rider ID.
@@ -31,6 +52,26 @@ public interface RideRepository extends JpaRepository<RideEntity, String> {
      */
     List<RideEntity> findByStatus(RideStatus status);
     
+    /**
+     * Find rides in any of the given statuses.
+     */
+    List<RideEntity> findByStatusIn(Collection<RideStatus> statuses);
+    
+    /**
+     * Write a ride's status, fare and lifecycle timestamps without loading it.
+     * 
+     * @return 1 if the ride exists, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RideEntity r SET r.status = :status, r.fare = :fare, " +
+           "r.startedAt = :startedAt, r.completedAt = :completedAt WHERE r.id = :rideId")
+    int updateLifecycle(@Param("rideId") String rideId,
+                        @Param("status") RideStatus status,
+                        @Param("fare") double fare,
+                        @Param("startedAt") LocalDateTime startedAt,
+                        @Param("completedAt") LocalDateTime completedAt);
+    
     /**
      * Find rides by type.
      */
@@ -48,12 +89,70 @@ public interface RideRepository extends JpaRepository<RideEntity, String> {
     
     /**
      * Calculate total earnings for a driver.
+     * Resolved on the (driverId, status) index.
+     *
+     * @return The sum of completed fares, or null if the driver has none
      */
-    @Query("SELECT SUM(r.fare) FROM RideEntity r WHERE r.driverId = ?1 AND r.status = 'COMPLETED'")
+    @Query("SELECT SUM(r.fare) FROM RideEntity r WHERE r.driverId = ?1 " +
+           "AND r.status = com.ridesync.core.model.RideStatus.COMPLETED")
     Double calculateTotalEarnings(String driverId);
     
     /**
      * Get ride count by status.
      */
     long countByStatus(RideStatus status);
+    
+    /**
+     * Ride counts grouped by status, read from the (status, requestedAt) index.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.StatusCount(r.status, COUNT(r)) " +
+           "FROM RideEntity r GROUP BY r.status")
+    List<StatusCount> countRidesByStatus();
+    
+    /**
+     * Ride counts grouped by type, read from the (rideType, status) index.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.TypeCount(r.rideType, COUNT(r)) " +
+           "FROM RideEntity r GROUP BY r.rideType")
+    List<TypeCount> countRidesByType();
+    
+    /**
+     * Count, revenue and average fare and distance of completed rides.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.CompletedRideTotals(COUNT(r), " +
+           "COALESCE(SUM(r.fare), 0.0), COALESCE(AVG(r.fare), 0.0), COALESCE(AVG(r.distance), 0.0)) " +
+           "FROM RideEntity r WHERE r.status = com.ridesync.core.model.RideStatus.COMPLETED")
+    CompletedRideTotals summarizeCompletedRides();
+    
+    /**
+     * Average fare of completed rides per ride type.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.TypeAverageFare(r.rideType, AVG(r.fare)) " +
+           "FROM RideEntity r WHERE r.status = com.ridesync.core.model.RideStatus.COMPLETED " +
+           "GROUP BY r.rideType")
+    List<TypeAverageFare> averageFareByType();
+    
+    /**
+     * Drivers ranked by earnings from completed rides, highest first.
+     * Drivers without completed rides are included with zero earnings;
+     * the page size is the number of drivers returned.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.DriverEarnings(d.id, d.name, d.rating, " +
+           "COALESCE(SUM(r.fare), 0.0), COUNT(r.id)) " +
+           "FROM DriverEntity d LEFT JOIN RideEntity r ON r.driverId = d.id " +
+           "AND r.status = com.ridesync.core.model.RideStatus.COMPLETED " +
+           "GROUP BY d.id, d.name, d.rating " +
+           "ORDER BY COALESCE(SUM(r.fare), 0.0) DESC, d.id")
+    List<DriverEarnings> findTopDriversByEarnings(Pageable page);
+    
+    /**
+     * Earnings of drivers with rides completed at or after since, in no particular order.
+     * Resolved on the (status, completedAt) index.
+     */
+    @Query("SELECT new com.ridesync.persistence.projection.DriverEarnings(d.id, d.name, d.rating, " +
+           "SUM(r.fare), COUNT(r.id)) " +
+           "FROM RideEntity r JOIN DriverEntity d ON d.id = r.driverId " +
+           "WHERE r.status = com.ridesync.core.model.RideStatus.COMPLETED AND r.completedAt >= ?1 " +
+           "GROUP BY d.id, d.name, d.rating")
+    List<DriverEarnings> findDriverEarningsSince(LocalDateTime since);
 }
@@ -0,0 +1,25 @@
+package com.ridesync.persistence.repository;
+
+import com.ridesync.core.analytics.TimeResolution;
+import com.ridesync.persistence.entity.RideRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for hourly and daily ride rollups.
+ */
+@Repository
+public interface RideRollupRepository extends JpaRepository<RideRollupEntity, String> {
+
+    /**
+     * Rollups of one resolution with a bucket start in {@code [from, to)}, oldest first.
+     * Resolved on the (resolution, bucketStart) index.
+     */
+    @Query("SELECT r FROM RideRollupEntity r WHERE r.resolution = ?1 " +
+           "AND r.bucketStart >= ?2 AND r.bucketStart < ?3 ORDER BY r.bucketStart, r.rideType")
+    List<RideRollupEntity> findRollups(TimeResolution resolution, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,10 @@
+package com.ridesync.persistence;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Boot configuration for slice tests of the persistence module.
+ */
+@SpringBootApplication
+class PersistenceTestApplication {
+}
@@ -0,0 +1,57 @@
+package com.ridesync.persistence.repository;
+
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.persistence.entity.DriverEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the conditional status updates and write-behind flush of drivers.
+ */
+@DataJpaTest
+class DriverRepositoryTest {
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        driverRepository.save(DriverEntity.builder()
+                .id("DRV-1")
+                .name("Driver DRV-1")
+                .vehicle("Sedan")
+                .vehicleNumber("KA-01-DRV-1")
+                .status(DriverStatus.AVAILABLE)
+                .currentLatitude(12.9716)
+                .currentLongitude(77.5946)
+                .totalEarnings(100.0)
+                .rating(4.8)
+                .build());
+        entityManager.flush();
+    }
+
+    @Test
+    void testFlushAddsToEarningsAndKeepsStatus() {
+        assertEquals(1, driverRepository.claimAvailableDriver("DRV-1"));
+        assertEquals(0, driverRepository.claimAvailableDriver("DRV-1"));
+
+        assertEquals(1, driverRepository.updateLocationAndAddEarnings("DRV-1", 12.9352, 77.6245, "Koramangala", 40.0));
+        assertEquals(1, driverRepository.updateLocationAndAddEarnings("DRV-1", 12.9352, 77.6245, "Koramangala", 2.5));
+        assertEquals(0, driverRepository.updateLocationAndAddEarnings("DRV-404", 0.0, 0.0, null, 10.0));
+        entityManager.clear();
+
+        DriverEntity driver = driverRepository.findById("DRV-1").orElseThrow();
+        assertEquals(142.5, driver.getTotalEarnings(), 0.001);
+        assertEquals(12.9352, driver.getCurrentLatitude());
+        assertEquals("Koramangala", driver.getCurrentAddress());
+        assertEquals(DriverStatus.BUSY, driver.getStatus());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ridesync.persistence.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that H2 plans the repository lookups on the declared indexes
+ * rather than scanning the rides and drivers tables.
+ */
+@DataJpaTest
+class QueryPlanTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void testRiderAndDriverHistoryUseIndexes() {
+        assertUsesIndex("IDX_RIDES_RIDER_REQUESTED",
+                "SELECT * FROM rides WHERE rider_id = 'RDR-1' ORDER BY requested_at");
+        assertUsesIndex("IDX_RIDES_DRIVER_REQUESTED",
+                "SELECT * FROM rides WHERE driver_id = 'DRV-1' ORDER BY requested_at");
+        assertUsesIndex("IDX_RIDES_DRIVER_STATUS",
+                "SELECT SUM(fare) FROM rides WHERE driver_id = 'DRV-1' AND status = 'COMPLETED'");
+    }
+
+    @Test
+    void testStatusTypeAndTimeFiltersUseIndexes() {
+        assertUsesIndex("IDX_RIDES_STATUS_REQUESTED",
+                "SELECT * FROM rides WHERE status = 'COMPLETED'");
+        assertUsesIndex("IDX_RIDES_STATUS_REQUESTED",
+                "SELECT * FROM rides WHERE status = 'COMPLETED' AND requested_at >= TIMESTAMP '2024-01-01 00:00:00'");
+        assertUsesIndex("IDX_RIDES_TYPE_REQUESTED",
+                "SELECT * FROM rides WHERE ride_type = 'POOL' ORDER BY requested_at");
+        assertUsesIndex("IDX_RIDES_TYPE_STATUS",
+                "SELECT * FROM rides WHERE status = 'REQUESTED' AND ride_type = 'POOL'");
+        assertUsesIndex("IDX_RIDES_REQUESTED",
+                "SELECT * FROM rides WHERE requested_at BETWEEN TIMESTAMP '2024-01-01 00:00:00' "
+                        + "AND TIMESTAMP '2024-02-01 00:00:00'");
+        assertUsesIndex("IDX_RIDES_STATUS_COMPLETED",
+                "SELECT driver_id, SUM(fare) FROM rides WHERE status = 'COMPLETED' "
+                        + "AND completed_at >= TIMESTAMP '2024-01-01 00:00:00' GROUP BY driver_id");
+    }
+
+    @Test
+    void testHistoryPagesUseIndexes() {
+        String keyset = " AND (requested_at < TIMESTAMP '2024-01-01 00:00:00' OR "
+                + "(requested_at = TIMESTAMP '2024-01-01 00:00:00' AND id < 'RIDE-9')) "
+                + "ORDER BY requested_at DESC, id DESC LIMIT 50";
+        assertUsesIndex("IDX_RIDES_RIDER_REQUESTED", "SELECT * FROM rides WHERE rider_id = 'RDR-1'" + keyset);
+        assertUsesIndex("IDX_RIDES_DRIVER_REQUESTED", "SELECT * FROM rides WHERE driver_id = 'DRV-1'" + keyset);
+        assertUsesIndex("IDX_RIDES_TYPE_REQUESTED", "SELECT * FROM rides WHERE ride_type = 'POOL'" + keyset);
+        assertUsesIndex("IDX_RIDES_STATUS_REQUESTED", "SELECT * FROM rides WHERE status = 'STARTED'" + keyset);
+    }
+
+    @Test
+    void testDriverLookupsUseIndexes() {
+        assertUsesIndex("IDX_DRIVERS_STATUS_RATING",
+                "SELECT * FROM drivers WHERE status = 'AVAILABLE'");
+        assertUsesIndex("IDX_DRIVERS_RATING",
+                "SELECT * FROM drivers WHERE rating >= 4.5");
+    }
+
+    private void assertUsesIndex(String index, String sql) {
+        String plan = String.valueOf(entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult());
+        assertTrue(plan.toUpperCase().contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+}
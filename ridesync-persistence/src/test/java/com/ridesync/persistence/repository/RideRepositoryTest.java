@@ -0,0 +1,222 @@
+package com.ridesync.persistence.repository;
+
+import com.ridesync.core.exception.InvalidQueryException;
+import com.ridesync.core.model.DriverStatus;
+import com.ridesync.core.model.RideStatus;
+import com.ridesync.core.model.RideType;
+import com.ridesync.persistence.entity.DriverEntity;
+import com.ridesync.persistence.entity.RideEntity;
+import com.ridesync.persistence.projection.CompletedRideTotals;
+import com.ridesync.persistence.projection.DriverEarnings;
+import com.ridesync.persistence.projection.RideDetails;
+import com.ridesync.persistence.projection.StatusCount;
+import com.ridesync.persistence.projection.TypeAverageFare;
+import com.ridesync.persistence.projection.TypeCount;
+import com.ridesync.persistence.query.RideCursor;
+import com.ridesync.persistence.query.RideFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the aggregate queries behind the analytics dashboard.
+ */
+@DataJpaTest
+class RideRepositoryTest {
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @BeforeEach
+    void setUp() {
+        driverRepository.saveAll(List.of(driver("DRV-1", 4.8), driver("DRV-2", 4.5), driver("DRV-3", 4.9)));
+        rideRepository.saveAll(List.of(
+                ride("RIDE-1", "DRV-1", RideStatus.COMPLETED, RideType.STANDARD, 100.0, 10.0),
+                ride("RIDE-2", "DRV-1", RideStatus.COMPLETED, RideType.POOL, 60.0, 6.0),
+                ride("RIDE-3", "DRV-2", RideStatus.COMPLETED, RideType.LUXURY, 300.0, 20.0),
+                ride("RIDE-4", "DRV-2", RideStatus.STARTED, RideType.STANDARD, 80.0, 8.0),
+                ride("RIDE-5", null, RideStatus.REQUESTED, RideType.STANDARD, 0.0, 5.0)));
+    }
+
+    @Test
+    void testGroupedCounts() {
+        Map<RideStatus, Long> byStatus = rideRepository.countRidesByStatus().stream()
+                .collect(Collectors.toMap(StatusCount::status, StatusCount::count));
+        assertEquals(Map.of(RideStatus.COMPLETED, 3L, RideStatus.STARTED, 1L, RideStatus.REQUESTED, 1L), byStatus);
+
+        Map<RideType, Long> byType = rideRepository.countRidesByType().stream()
+                .collect(Collectors.toMap(TypeCount::rideType, TypeCount::count));
+        assertEquals(Map.of(RideType.STANDARD, 3L, RideType.POOL, 1L, RideType.LUXURY, 1L), byType);
+    }
+
+    @Test
+    void testCompletedRideTotals() {
+        CompletedRideTotals totals = rideRepository.summarizeCompletedRides();
+        assertEquals(3, totals.count());
+        assertEquals(460.0, totals.revenue(), 0.001);
+        assertEquals(460.0 / 3, totals.averageFare(), 0.001);
+        assertEquals(12.0, totals.averageDistance(), 0.001);
+
+        Map<RideType, Double> averages = rideRepository.averageFareByType().stream()
+                .collect(Collectors.toMap(TypeAverageFare::rideType, TypeAverageFare::averageFare));
+        assertEquals(300.0, averages.get(RideType.LUXURY), 0.001);
+        assertEquals(100.0, averages.get(RideType.STANDARD), 0.001);
+    }
+
+    @Test
+    void testCompletedRideTotalsOfEmptyTable() {
+        rideRepository.deleteAll();
+        CompletedRideTotals totals = rideRepository.summarizeCompletedRides();
+        assertEquals(0, totals.count());
+        assertEquals(0.0, totals.averageFare());
+    }
+
+    @Test
+    void testTopDriversByEarnings() {
+        List<DriverEarnings> top = rideRepository.findTopDriversByEarnings(PageRequest.of(0, 2));
+        assertEquals(List.of("DRV-2", "DRV-1"), top.stream().map(DriverEarnings::driverId).toList());
+        assertEquals(300.0, top.get(0).totalEarnings(), 0.001);
+        assertEquals(1, top.get(0).completedRides());
+        assertEquals(2, top.get(1).completedRides());
+
+        DriverEarnings idle = rideRepository.findTopDriversByEarnings(PageRequest.of(0, 10)).get(2);
+        assertEquals("DRV-3", idle.driverId());
+        assertEquals(0.0, idle.totalEarnings());
+        assertEquals(0, idle.completedRides());
+    }
+
+    @Test
+    void testDriverEarningsSince() {
+        LocalDateTime dayStart = LocalDateTime.of(2024, 1, 2, 0, 0);
+        complete("RIDE-1", dayStart.plusHours(10));
+        complete("RIDE-2", dayStart.minusHours(1));
+        complete("RIDE-3", dayStart);
+
+        Map<String, DriverEarnings> earnings = rideRepository.findDriverEarningsSince(dayStart).stream()
+                .collect(Collectors.toMap(DriverEarnings::driverId, driver -> driver));
+        assertEquals(Set.of("DRV-1", "DRV-2"), earnings.keySet());
+        assertEquals(100.0, earnings.get("DRV-1").totalEarnings(), 0.001);
+        assertEquals(1, earnings.get("DRV-1").completedRides());
+        assertEquals("Driver DRV-2", earnings.get("DRV-2").driverName());
+        assertEquals(300.0, earnings.get("DRV-2").totalEarnings(), 0.001);
+    }
+
+    @Test
+    void testRideDetailsJoinTheDriver() {
+        RideDetails assigned = rideRepository.findDetailsById("RIDE-3").orElseThrow();
+        assertEquals("DRV-2", assigned.driverId());
+        assertEquals("Driver DRV-2", assigned.driverName());
+        assertEquals("Sedan", assigned.driverVehicle());
+        assertEquals(RideStatus.COMPLETED, assigned.status());
+        assertEquals(300.0, assigned.fare());
+
+        RideDetails unassigned = rideRepository.findDetailsById("RIDE-5").orElseThrow();
+        assertNull(unassigned.driverId());
+        assertNull(unassigned.driverName());
+        assertEquals(RideStatus.REQUESTED, unassigned.status());
+
+        assertTrue(rideRepository.findDetailsById("RIDE-404").isEmpty());
+    }
+
+    @Test
+    void testUpdateLifecycleAndActiveRides() {
+        LocalDateTime completedAt = LocalDateTime.of(2024, 1, 15, 11, 0);
+        assertEquals(1, rideRepository.updateLifecycle("RIDE-4", RideStatus.COMPLETED, 85.0,
+                LocalDateTime.of(2024, 1, 15, 10, 30), completedAt));
+        assertEquals(0, rideRepository.updateLifecycle("RIDE-404", RideStatus.COMPLETED, 0.0, null, null));
+
+        RideDetails completed = rideRepository.findDetailsById("RIDE-4").orElseThrow();
+        assertEquals(RideStatus.COMPLETED, completed.status());
+        assertEquals(85.0, completed.fare());
+        assertEquals(completedAt, completed.completedAt());
+
+        Set<String> active = rideRepository.findByStatusIn(
+                        List.of(RideStatus.REQUESTED, RideStatus.ASSIGNED, RideStatus.STARTED)).stream()
+                .map(RideEntity::getId)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("RIDE-5"), active);
+    }
+
+    @Test
+    void testHistoryPagesFollowTheCursor() {
+        // RIDE-1..5 share a requestedAt, so pages are split on id
+        RideEntity newest = ride("RIDE-6", "DRV-1", RideStatus.COMPLETED, RideType.STANDARD, 90.0, 9.0);
+        newest.setRequestedAt(LocalDateTime.of(2024, 1, 3, 8, 0));
+        rideRepository.save(newest);
+
+        List<RideEntity> first = rideRepository.findHistoryPage(RideFilter.of(null, null), null, 4);
+        assertEquals(List.of("RIDE-6", "RIDE-5", "RIDE-4", "RIDE-3"), rideIds(first));
+        List<RideEntity> second = rideRepository.findHistoryPage(
+                RideFilter.of(null, null), RideCursor.after(first.get(3)), 4);
+        assertEquals(List.of("RIDE-2", "RIDE-1"), rideIds(second));
+
+        RideCursor cursor = RideCursor.decode(RideCursor.after(first.get(0)).encode());
+        assertEquals(List.of("RIDE-2", "RIDE-1"),
+                rideIds(rideRepository.findHistoryPage(RideFilter.forDriver("DRV-1"), cursor, 10)));
+        assertEquals(List.of("RIDE-4", "RIDE-1"), rideIds(rideRepository.findHistoryPage(
+                RideFilter.of(null, RideType.STANDARD), new RideCursor(first.get(2).getRequestedAt(), "RIDE-5"), 10)));
+        assertEquals(List.of("RIDE-6", "RIDE-1"), rideIds(rideRepository.findHistoryPage(
+                RideFilter.of(RideStatus.COMPLETED, RideType.STANDARD), null, 10)));
+    }
+
+    @Test
+    void testStreamHistoryAppliesFilters() {
+        try (Stream<RideEntity> rides = rideRepository.streamHistory(RideFilter.forRider("RDR-1"), 2)) {
+            assertEquals(List.of("RIDE-5", "RIDE-4", "RIDE-3", "RIDE-2", "RIDE-1"), rideIds(rides.toList()));
+        }
+        try (Stream<RideEntity> rides = rideRepository.streamHistory(RideFilter.of(RideStatus.STARTED, null), 2)) {
+            assertEquals(List.of("RIDE-4"), rideIds(rides.toList()));
+        }
+        assertThrows(InvalidQueryException.class, () -> RideCursor.decode("bm90LWEtY3Vyc29y"));
+    }
+
+    private static List<String> rideIds(List<RideEntity> rides) {
+        return rides.stream().map(RideEntity::getId).toList();
+    }
+
+    private void complete(String rideId, LocalDateTime completedAt) {
+        RideEntity ride = rideRepository.findById(rideId).orElseThrow();
+        ride.setCompletedAt(completedAt);
+        rideRepository.save(ride);
+    }
+
+    private static DriverEntity driver(String id, double rating) {
+        return DriverEntity.builder()
+                .id(id)
+                .name("Driver " + id)
+                .vehicle("Sedan")
+                .vehicleNumber("KA-01-" + id)
+                .status(DriverStatus.AVAILABLE)
+                .rating(rating)
+                .build();
+    }
+
+    private static RideEntity ride(String id, String driverId, RideStatus status, RideType type,
+                                   double fare, double distance) {
+        return RideEntity.builder()
+                .id(id)
+                .riderId("RDR-1")
+                .driverId(driverId)
+                .status(status)
+                .rideType(type)
+                .fare(fare)
+                .distance(distance)
+                .surgeMultiplier(1.0)
+                .requestedAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}